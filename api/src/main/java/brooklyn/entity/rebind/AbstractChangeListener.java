@@ -0,0 +1,56 @@
+package brooklyn.entity.rebind;
+
+import java.util.Collection;
+
+import brooklyn.entity.Entity;
+import brooklyn.location.Location;
+import brooklyn.policy.Policy;
+
+/**
+ * Convenience base class for a {@link ChangeListener}, ignoring all changes.
+ * <p>
+ * Subclasses override only the notifications they need. Extending this class, rather than implementing
+ * {@link ChangeListener} directly, keeps a listener compatible when methods are added to that interface:
+ * for example {@link #onManagedAll(Collection)} and {@link #onUnmanagedAll(Collection)} here call
+ * {@link #onManaged(Entity)} and {@link #onUnmanaged(Entity)} for each entity, which is what a listener
+ * written before they existed expects.
+ */
+public abstract class AbstractChangeListener implements ChangeListener {
+
+    @Override
+    public void onManaged(Entity entity) {}
+
+    @Override
+    public void onUnmanaged(Entity entity) {}
+
+    /** calls {@link #onManaged(Entity)} for each entity; override to handle them more efficiently together */
+    @Override
+    public void onManagedAll(Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            onManaged(entity);
+        }
+    }
+
+    /** calls {@link #onUnmanaged(Entity)} for each entity; override to handle them more efficiently together */
+    @Override
+    public void onUnmanagedAll(Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            onUnmanaged(entity);
+        }
+    }
+
+    @Override
+    public void onChanged(Entity entity) {}
+
+    @Override
+    public void onManaged(Location location) {}
+
+    @Override
+    public void onUnmanaged(Location location) {}
+
+    @Override
+    public void onChanged(Location location) {}
+
+    @Override
+    public void onChanged(Policy policy) {}
+}
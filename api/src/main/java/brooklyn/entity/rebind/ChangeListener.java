@@ -1,14 +1,24 @@
 package brooklyn.entity.rebind;
 
+import java.util.Collection;
+
 import brooklyn.entity.Entity;
 import brooklyn.location.Location;
 import brooklyn.policy.Policy;
 
+/**
+ * Listener for changes to the managed entities, locations and policies, e.g. to persist them for rebind.
+ * <p>
+ * Implementations should normally extend {@link AbstractChangeListener}, so that they are unaffected
+ * when methods are added to this interface.
+ */
 public interface ChangeListener {
 
     public static final ChangeListener NOOP = new ChangeListener() {
         @Override public void onManaged(Entity entity) {}
         @Override public void onUnmanaged(Entity entity) {}
+        @Override public void onManagedAll(Collection<? extends Entity> entities) {}
+        @Override public void onUnmanagedAll(Collection<? extends Entity> entities) {}
         @Override public void onChanged(Entity entity) {}
         @Override public void onManaged(Location location) {}
         @Override public void onUnmanaged(Location location) {}
@@ -20,6 +30,12 @@ public interface ChangeListener {
     
     void onUnmanaged(Entity entity);
     
+    /** as {@link #onManaged(Entity)} for each entity, e.g. for all the entities in a newly managed application */
+    void onManagedAll(Collection<? extends Entity> entities);
+    
+    /** as {@link #onUnmanaged(Entity)} for each entity */
+    void onUnmanagedAll(Collection<? extends Entity> entities);
+    
     void onChanged(Entity entity);
     
     void onManaged(Location location);
@@ -8,6 +8,7 @@ import brooklyn.entity.Application;
 import brooklyn.entity.Entity;
 import brooklyn.entity.drivers.EntityDriverFactory;
 import brooklyn.entity.rebind.RebindManager;
+import brooklyn.location.Location;
 import brooklyn.location.LocationRegistry;
 
 /**
@@ -35,6 +36,26 @@ public interface ManagementContext {
      */
     Entity getEntity(String id);
     
+    /**
+     * All entities in the application with the given id (including the application itself)
+     */
+    Collection<Entity> getEntitiesInApplication(String applicationId);
+    
+    /**
+     * All entities which are instances of the given class or interface
+     */
+    <T> Collection<T> getEntitiesOfType(Class<T> type);
+    
+    /**
+     * All entities in the given location, or in any of its descendant locations
+     */
+    Collection<Entity> getEntitiesInLocation(Location location);
+
+    /**
+     * All entities whose display name is the given name, ignoring case
+     */
+    Collection<Entity> getEntitiesNamed(String displayName);
+    
     /** whether the entity is under management by this management context */
     boolean isManaged(Entity entity);
 
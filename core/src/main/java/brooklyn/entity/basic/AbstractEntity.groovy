@@ -196,14 +196,16 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
             }
         }
 
-        displayName = flags.remove('displayName') ?: displayName;
+        // through the setter, so that a rename after management is seen by the management context
+        def suppliedDisplayName = flags.remove('displayName')
+        if (suppliedDisplayName) setDisplayName(suppliedDisplayName)
 
         // allow config keys, and fields, to be set from these flags if they have a SetFromFlag annotation
         flags = FlagUtils.setConfigKeysFromFlags(flags, this);
         flags = FlagUtils.setFieldsFromFlags(flags, this);
         
 		if (displayName==null)
-			displayName = flags.name ? flags.remove('name') : getClass().getSimpleName()+":"+id.substring(0, 4)
+			setDisplayName(flags.name ? flags.remove('name') : getClass().getSimpleName()+":"+id.substring(0, 4))
 		
         // all config keys specified in map should be set as config
         for (Iterator fi = flags.iterator(); fi.hasNext(); ) {
@@ -365,6 +367,13 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
         getApplication()?.id
     }
 
+    @Override
+    public void setDisplayName(String newDisplayName) {
+        this.@displayName = newDisplayName
+        // management support is created lazily, so may not exist yet while the entity is being constructed
+        if (managementSupport != null) managementSupport.getEntityChangeListener().onDisplayNameChanged()
+    }
+
     /** @deprecated since 0.4.0 should not be needed / leaked outwith brooklyn internals? */
     @Override
     @Deprecated
@@ -428,7 +437,8 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
             entityType.addSensorIfAbsent(attribute);
         }
         
-        getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
+        // sensor adapters re-set the same values on each poll; those are not changes
+        if (!Objects.equal(result, val)) getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
         return result;
     }
 
@@ -440,7 +450,7 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
             entityType.addSensorIfAbsentWithoutPublishing(attribute);
         }
         
-        getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
+        if (!Objects.equal(result, val)) getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
         return result;
     }
 
@@ -448,6 +458,8 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
     public void removeAttribute(AttributeSensor<?> attribute) {
         attributesInternal.remove(attribute);
         entityType.removeSensor(attribute);
+        
+        getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
     }
 
     /** sets the value of the given attribute sensor from the config key value herein,
@@ -492,12 +504,16 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
     @Override
     public <T> T setConfig(ConfigKey<T> key, T val) {
         assertNotYetOwned()
-        configsInternal.setConfig(key, val);
+        T result = configsInternal.setConfig(key, val);
+        onConfigChanged(key);
+        return result;
     }
 
     public <T> T setConfig(ConfigKey<T> key, Task<T> val) {
         assertNotYetOwned()
-        configsInternal.setConfig(key, val);
+        T result = configsInternal.setConfig(key, val);
+        onConfigChanged(key);
+        return result;
     }
 
 	@Override
@@ -510,7 +526,14 @@ public abstract class AbstractEntity extends GroovyObjectSupport implements Enti
     }
 
     public <T> T setConfigEvenIfOwned(ConfigKey<T> key, T val) {
-        configsInternal.setConfig(key, val);
+        T result = configsInternal.setConfig(key, val);
+        onConfigChanged(key);
+        return result;
+    }
+
+    private void onConfigChanged(ConfigKey<?> key) {
+        // management support is created lazily, so may not exist yet while the entity is being constructed
+        if (managementSupport != null) managementSupport.getEntityChangeListener().onConfigChanged(key);
     }
 
     public <T> T setConfigEvenIfOwned(HasConfigKey<T> key, T val) {
@@ -18,7 +18,7 @@ import brooklyn.event.SensorEventListener;
 import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.management.internal.AbstractManagementContext;
-import brooklyn.management.internal.CollectionChangeListener;
+import brooklyn.management.internal.BatchCollectionChangeListener;
 import brooklyn.util.GroovyJavaMethods;
 import brooklyn.util.MutableMap;
 import brooklyn.util.flags.SetFromFlag;
@@ -75,9 +75,20 @@ public class DynamicGroup extends AbstractGroup {
         setAttribute(RUNNING, true);
     }
     
+    /**
+     * Sets the filter for which entities are members. Filters from {@link EntityPredicates} such as
+     * {@link EntityPredicates#isInstanceOf(Class)} can be indexed by the management context, so the group is only
+     * told about entities which could match (rather than evaluating the filter for every entity managed).
+     */
     public void setEntityFilter(Predicate<? super Entity> filter) {
         // TODO Sould this be "evenIfOwned"?
         setConfigEvenIfOwned(ENTITY_FILTER, filter);
+        synchronized (this) {
+            if (setChangeListener != null) {
+                ((AbstractManagementContext) getManagementContext()).removeEntitySetListener(setChangeListener);
+                ((AbstractManagementContext) getManagementContext()).addEntitySetListener(setChangeListener, filter);
+            }
+        }
         rescanEntities();
     }
     
@@ -142,9 +153,15 @@ public class DynamicGroup extends AbstractGroup {
         }
     }
     
-    class MyEntitySetChangeListener implements CollectionChangeListener<Entity> {
+    class MyEntitySetChangeListener implements BatchCollectionChangeListener<Entity> {
         public void onItemAdded(Entity item) { onEntityAdded(item); }
         public void onItemRemoved(Entity item) { onEntityRemoved(item); }
+        public void onItemsAdded(Collection<? extends Entity> items) {
+            for (Entity item : items) onEntityAdded(item);
+        }
+        public void onItemsRemoved(Collection<? extends Entity> items) {
+            for (Entity item : items) onEntityRemoved(item);
+        }
     }
 
     @Override
@@ -154,7 +171,7 @@ public class DynamicGroup extends AbstractGroup {
             return;
         }
         setChangeListener = new MyEntitySetChangeListener();
-        ((AbstractManagementContext)getManagementContext()).addEntitySetListener(setChangeListener);
+        ((AbstractManagementContext)getManagementContext()).addEntitySetListener(setChangeListener, getConfig(ENTITY_FILTER));
         rescanEntities();
     }
 
@@ -185,7 +202,12 @@ public class DynamicGroup extends AbstractGroup {
         Collection<Entity> currentMembers = super.getMembers();
         Collection<Entity> toRemove = new LinkedHashSet<Entity>();
         toRemove.addAll(currentMembers);
-        for (Entity it : ((AbstractManagementContext) getManagementContext()).getEntities()) {
+        Predicate<? super Entity> entityFilter = getConfig(ENTITY_FILTER);
+        Collection<?> candidates = (entityFilter instanceof EntityPredicates.InstanceOf) ?
+                getManagementContext().getEntitiesOfType(((EntityPredicates.InstanceOf) entityFilter).getType()) :
+                getManagementContext().getEntities();
+        for (Object candidate : candidates) {
+            Entity it = (Entity) candidate;
             if (acceptsEntity(it)) {
                 toRemove.remove(it);
                 if (!currentMembers.contains(it)) {
@@ -1,7 +1,10 @@
 package brooklyn.entity.basic;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import javax.annotation.Nullable;
 
+import brooklyn.config.ConfigKey;
 import brooklyn.entity.Entity;
 import brooklyn.event.AttributeSensor;
 import brooklyn.location.Location;
@@ -9,15 +12,101 @@ import brooklyn.location.Location;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 
+/**
+ * Predicates for filtering entities.
+ * <p>
+ * The predicates returned by {@link #isInstanceOf(Class)}, {@link #configEqualTo(ConfigKey, Object)} and
+ * {@link #attributeEqualTo(AttributeSensor, Object)} are {@link IndexablePredicate}s: the management context can
+ * index them, e.g. to tell a {@link DynamicGroup} using one only about the entities it could match.
+ */
 public class EntityPredicates {
 
-    public static <T> Predicate<Entity> attributeEqualTo(final AttributeSensor<T> attribute, final T val) {
-        return new Predicate<Entity>() {
-            @Override
-            public boolean apply(@Nullable Entity input) {
-                return Objects.equal(input.getAttribute(attribute), val);
-            }
-        };
+    /**
+     * A predicate which matches entities on a single property: their type, a config value or an attribute value.
+     */
+    public static abstract class IndexablePredicate implements Predicate<Entity> {
+    }
+
+    /** Matches entities which are instances of a class or interface. */
+    public static class InstanceOf extends IndexablePredicate {
+        private final Class<?> type;
+        
+        public InstanceOf(Class<?> type) {
+            this.type = checkNotNull(type, "type");
+        }
+        public Class<?> getType() {
+            return type;
+        }
+        @Override
+        public boolean apply(@Nullable Entity input) {
+            return type.isInstance(input);
+        }
+        @Override
+        public String toString() {
+            return "instanceOf("+type.getName()+")";
+        }
+    }
+    
+    /** Matches entities with the given value for a config key. */
+    public static class ConfigEqualTo<T> extends IndexablePredicate {
+        private final ConfigKey<T> key;
+        private final T value;
+        
+        public ConfigEqualTo(ConfigKey<T> key, @Nullable T value) {
+            this.key = checkNotNull(key, "key");
+            this.value = value;
+        }
+        public ConfigKey<T> getKey() {
+            return key;
+        }
+        public T getValue() {
+            return value;
+        }
+        @Override
+        public boolean apply(@Nullable Entity input) {
+            return (input != null) && Objects.equal(input.getConfig(key), value);
+        }
+        @Override
+        public String toString() {
+            return "configEqualTo("+key.getName()+", "+value+")";
+        }
+    }
+    
+    /** Matches entities with the given value for an attribute. */
+    public static class AttributeEqualTo<T> extends IndexablePredicate {
+        private final AttributeSensor<T> attribute;
+        private final T value;
+        
+        public AttributeEqualTo(AttributeSensor<T> attribute, @Nullable T value) {
+            this.attribute = checkNotNull(attribute, "attribute");
+            this.value = value;
+        }
+        public AttributeSensor<T> getAttribute() {
+            return attribute;
+        }
+        public T getValue() {
+            return value;
+        }
+        @Override
+        public boolean apply(@Nullable Entity input) {
+            return (input != null) && Objects.equal(input.getAttribute(attribute), value);
+        }
+        @Override
+        public String toString() {
+            return "attributeEqualTo("+attribute.getName()+", "+value+")";
+        }
+    }
+
+    public static Predicate<Entity> isInstanceOf(Class<?> type) {
+        return new InstanceOf(type);
+    }
+    
+    public static <T> Predicate<Entity> configEqualTo(ConfigKey<T> key, T val) {
+        return new ConfigEqualTo<T>(key, val);
+    }
+    
+    public static <T> Predicate<Entity> attributeEqualTo(AttributeSensor<T> attribute, T val) {
+        return new AttributeEqualTo<T>(attribute, val);
     }
     
     /**
@@ -1,5 +1,6 @@
 package brooklyn.entity.rebind;
 
+import java.util.Collection;
 import java.util.Map;
 
 import brooklyn.entity.Entity;
@@ -40,36 +41,53 @@ public class ImmediateDeltaChangeListener implements ChangeListener {
         }
     }
     
+    /** persists all the entities in a single delta */
+    @Override
+    public void onManagedAll(Collection<? extends Entity> entities) {
+        if (running && persister != null && !entities.isEmpty()) {
+            PersisterDeltaImpl delta = new PersisterDeltaImpl();
+            Map<String, LocationMemento> locations = Maps.newLinkedHashMap();
+            for (Entity entity : entities) {
+                addToDelta(entity, delta, locations);
+            }
+            delta.locations = locations.values();
+            persister.delta(delta);
+        }
+    }
+    
     @Override
     public void onChanged(Entity entity) {
         if (running && persister != null) {
             PersisterDeltaImpl delta = new PersisterDeltaImpl();
-            delta.entities.add(entity.getRebindSupport().getMemento());
-
-            // FIXME How to let the policy/location tell us about changes?
-            // Don't do this every time!
             Map<String, LocationMemento> locations = Maps.newLinkedHashMap();
-            for (Location location : entity.getLocations()) {
-                if (!locations.containsKey(location.getId())) {
-                    for (Location locationInHierarchy : TreeUtils.findLocationsInHierarchy(location)) {
-                        locations.put(locationInHierarchy.getId(), locationInHierarchy.getRebindSupport().getMemento());
-                    }
+            addToDelta(entity, delta, locations);
+            delta.locations = locations.values();
+            persister.delta(delta);
+        }
+    }
+    
+    private void addToDelta(Entity entity, PersisterDeltaImpl delta, Map<String, LocationMemento> locations) {
+        delta.entities.add(entity.getRebindSupport().getMemento());
+
+        // FIXME How to let the policy/location tell us about changes?
+        // Don't do this every time!
+        for (Location location : entity.getLocations()) {
+            if (!locations.containsKey(location.getId())) {
+                for (Location locationInHierarchy : TreeUtils.findLocationsInHierarchy(location)) {
+                    locations.put(locationInHierarchy.getId(), locationInHierarchy.getRebindSupport().getMemento());
                 }
             }
-            delta.locations = locations.values();
+        }
 
-            // FIXME Not including policies, because lots of places regiser anonymous inner class policies
-            // (e.g. AbstractController registering a AbstractMembershipTrackingPolicy)
-            // Also, the entity constructor often re-creates the policy.
-            // Also see MementosGenerator.newEntityMementoBuilder()
+        // FIXME Not including policies, because lots of places regiser anonymous inner class policies
+        // (e.g. AbstractController registering a AbstractMembershipTrackingPolicy)
+        // Also, the entity constructor often re-creates the policy.
+        // Also see MementosGenerator.newEntityMementoBuilder()
 //            List<PolicyMemento> policies = Lists.newArrayList();
 //            for (Policy policy : entity.getPolicies()) {
 //                policies.add(policy.getRebindSupport().getMemento());
 //            }
 //            delta.policies = policies;
-
-            persister.delta(delta);
-        }
     }
     
     @Override
@@ -81,6 +99,17 @@ public class ImmediateDeltaChangeListener implements ChangeListener {
         }
     }
 
+    @Override
+    public void onUnmanagedAll(Collection<? extends Entity> entities) {
+        if (running && persister != null && !entities.isEmpty()) {
+            PersisterDeltaImpl delta = new PersisterDeltaImpl();
+            for (Entity entity : entities) {
+                delta.removedEntityIds.add(entity.getId());
+            }
+            persister.delta(delta);
+        }
+    }
+
     @Override
     public void onUnmanaged(Location location) {
         if (running && persister != null) {
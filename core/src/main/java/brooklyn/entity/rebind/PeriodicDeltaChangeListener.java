@@ -1,5 +1,6 @@
 package brooklyn.entity.rebind;
 
+import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -207,6 +208,20 @@ public class PeriodicDeltaChangeListener implements ChangeListener {
         }
     }
 
+    @Override
+    public synchronized void onManagedAll(Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            onManaged(entity);
+        }
+    }
+    
+    @Override
+    public synchronized void onUnmanagedAll(Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            onUnmanaged(entity);
+        }
+    }
+
     @Override
     public synchronized void onUnmanaged(Location location) {
         if (isActive()) {
@@ -314,6 +314,24 @@ public class RebindManagerImpl implements RebindManager {
             }
         }
 
+        @Override
+        public void onManagedAll(Collection<? extends Entity> entities) {
+            try {
+                delegate.onManagedAll(entities);
+            } catch (Throwable t) {
+                LOG.error("Error persisting mememento onManagedAll("+entities.size()+" entities); continuing.", t);
+            }
+        }
+        
+        @Override
+        public void onUnmanagedAll(Collection<? extends Entity> entities) {
+            try {
+                delegate.onUnmanagedAll(entities);
+            } catch (Throwable t) {
+                LOG.error("Error persisting mememento onUnmanagedAll("+entities.size()+" entities); continuing.", t);
+            }
+        }
+
         @Override
         public void onManaged(Location location) {
             try {
@@ -5,9 +5,18 @@ import java.util.List;
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
+import brooklyn.entity.basic.Attributes
 import brooklyn.entity.basic.EntityLocal
+import brooklyn.entity.basic.Lifecycle
 import brooklyn.event.AttributeSensor
 import brooklyn.event.Sensor
+import brooklyn.event.SensorEvent
+import brooklyn.event.SensorEventListener
+import brooklyn.management.SubscriptionHandle
+import brooklyn.management.ManagementContext
+import brooklyn.management.internal.AbstractManagementContext
+import brooklyn.management.internal.PollScheduler
+import brooklyn.management.internal.PollScheduler.ScheduledPoll
 import brooklyn.util.task.BasicTask
 import brooklyn.util.task.ScheduledTask
 
@@ -19,6 +28,8 @@ public abstract class AbstractPollHelper {
     final Map<AttributeSensor, Closure> polledSensors = [:]
 
     final List<Closure> polledListeners = []
+    /** value last passed to each of the polledListeners, so that adaptive polling can tell whether it changed */
+    private final Map<Closure, Object> lastListenerValues = new IdentityHashMap<Closure, Object>()
 
     boolean lastWasSuccessful = false;
 
@@ -39,13 +50,29 @@ public abstract class AbstractPollHelper {
     }
 
     ScheduledTask schedule;
+    ScheduledPoll scheduledPoll;
+
+    /** period currently in effect, in milliseconds; varies between pollPeriod and maxPollPeriod if adaptive */
+    long currentPeriodMillis = -1;
+    /** set during evaluation if any sensor value changed (including, for a helper which evaluates on behalf of others, theirs) */
+    protected boolean valuesChanged = false;
+    private SubscriptionHandle lifecycleSubscription;
+    private Lifecycle lastLifecycle;
 
     protected activatePoll() {
         if (adapter.pollPeriod!=null && adapter.pollPeriod.toMilliseconds()>0) {
             if (log.isDebugEnabled()) log.debug "activating poll (period {}) for {} sensors {} (using {})", adapter.pollPeriod, adapter.entity, polledSensors.keySet(), this
-            Closure pollingTaskFactory = { new BasicTask(entity: entity, { executePoll() }); }
-            schedule = new ScheduledTask(period: adapter.pollPeriod, pollingTaskFactory);
-            entity.executionContext.submit schedule;
+            startAdaptivePeriod()
+            PollScheduler scheduler = getPollScheduler()
+            if (scheduler!=null) {
+                scheduledPoll = scheduler.schedule(entity, adapter.getClass().getSimpleName(), getTargetHost(),
+                        ""+entity.id+":"+adapter.getClass().getName()+":"+polledSensors.keySet().collect { it.name }.sort(),
+                        adapter.pollPeriod.toMilliseconds(), { executePoll() } as Runnable)
+            } else {
+                Closure pollingTaskFactory = { new BasicTask(entity: entity, { executePoll() }); }
+                schedule = new ScheduledTask(period: adapter.pollPeriod, pollingTaskFactory);
+                entity.executionContext.submit schedule;
+            }
         } else {
             if (log.isDebugEnabled()) log.debug "activating poll (but leaving off, as period {}) for {} sensors {} (using {})", adapter.pollPeriod, adapter.entity, polledSensors.keySet(), this
         }
@@ -53,8 +80,65 @@ public abstract class AbstractPollHelper {
     protected deactivatePoll() {
         if (log.isDebugEnabled()) log.debug "deactivating poll for {} sensors {} (using {})", adapter.entity, polledSensors.keySet(), this
         if (schedule) schedule.cancel();
+        if (scheduledPoll) scheduledPoll.cancel();
+        stopAdaptivePeriod()
+    }
+
+    /** starts at the adapter's pollPeriod and, if adaptive, resets it on lifecycle transitions of the entity */
+    protected void startAdaptivePeriod() {
+        currentPeriodMillis = adapter.pollPeriod.toMilliseconds()
+        if (isAdaptive()) {
+            lastLifecycle = entity.getAttribute(Attributes.SERVICE_STATE)
+            lifecycleSubscription = entity.subscribe(entity, Attributes.SERVICE_STATE,
+                    { SensorEvent<Lifecycle> event -> onLifecycleChanged(event.value) } as SensorEventListener)
+        }
     }
 
+    protected void stopAdaptivePeriod() {
+        if (lifecycleSubscription) {
+            entity.unsubscribe(entity, lifecycleSubscription);
+            lifecycleSubscription = null;
+        }
+    }
+
+    /** whether the poll period adapts between the adapter's pollPeriod and maxPollPeriod */
+    protected boolean isAdaptive() {
+        adapter.maxPollPeriod!=null && adapter.pollPeriod!=null &&
+                adapter.maxPollPeriod.toMilliseconds() > adapter.pollPeriod.toMilliseconds()
+    }
+
+    /** when adaptive, resets the period to the minimum if requested, otherwise backs it off towards the maximum */
+    protected void adjustPeriod(boolean reset) {
+        long min = adapter.pollPeriod.toMilliseconds()
+        long next = reset ? min : Math.min(adapter.maxPollPeriod.toMilliseconds(), (long) Math.ceil(currentPeriodMillis*adapter.pollPeriodBackoff))
+        if (next==currentPeriodMillis) return
+        if (log.isTraceEnabled()) log.trace "changing poll period for {} sensors {} from {}ms to {}ms (using {})", adapter.entity, polledSensors.keySet(), currentPeriodMillis, next, this
+        currentPeriodMillis = next
+        if (schedule) schedule.period(next)
+        if (scheduledPoll) scheduledPoll.setPeriod(next)
+    }
+
+    protected void onLifecycleChanged(Lifecycle state) {
+        if (state==lastLifecycle) return
+        lastLifecycle = state
+        if (!adapter.isActivated()) return
+        boolean wasBackedOff = currentPeriodMillis > adapter.pollPeriod.toMilliseconds()
+        adjustPeriod(true)
+        // the next scheduled poll may be a long way off, so poll now
+        if (wasBackedOff) entity.executionContext.submit(new BasicTask(entity: entity, { executePoll() }))
+    }
+
+    /** the management-wide poll scheduler, if enabled for the entity's management context; otherwise null */
+    protected PollScheduler getPollScheduler() {
+        ManagementContext mgmt = entity.getManagementContext()
+        if (mgmt instanceof AbstractManagementContext && mgmt.getConfig().getConfig(PollScheduler.ENABLED))
+            return ((AbstractManagementContext) mgmt).getPollScheduler()
+        return null
+    }
+
+    /** the host polled, for limiting concurrent polls against it when using the {@link PollScheduler}; null if not applicable */
+    protected String getTargetHost() { null }
+
     protected boolean isEmpty() {
         polledSensors.isEmpty() && polledListeners.isEmpty();
     }
@@ -79,7 +163,9 @@ public abstract class AbstractPollHelper {
             response = executePollOnError(e);
         }
         if (log.isTraceEnabled()) log.trace "poll for {} got: {}", adapter.entity, response
+        valuesChanged = false
         if (response!=null) evaluateSensorsOnResponse(response)
+        if (isAdaptive()) adjustPeriod(!lastWasSuccessful || response?.error!=null || valuesChanged)
     }
 
     /** method for implementations to supply to execute the poll call which drives the children */
@@ -93,10 +179,12 @@ public abstract class AbstractPollHelper {
 
     void evaluateSensorsOnResponse(AbstractSensorEvaluationContext response) {
         polledSensors.each { s, c -> evaluateSensorOnResponse(s, c, response) }
-        polledListeners.each {
+        polledListeners.each { Closure listener ->
             Object v = response.evaluate({it})
             if (v != AbstractSensorEvaluationContext.UNSET) {
-                it.call(v)
+                if (!lastListenerValues.containsKey(listener) || lastListenerValues.get(listener) != v) valuesChanged = true;
+                lastListenerValues.put(listener, v)
+                listener.call(v)
             }
         }
     }
@@ -106,6 +194,7 @@ public abstract class AbstractPollHelper {
             Object v = response.evaluate(entity, s, c)
             if (v!=AbstractSensorEvaluationContext.UNSET) {
                 v = v?.asType(s.getType());
+                if (entity.getAttribute(s) != v) valuesChanged = true;
                 entity.setAttribute(s, v);
                 return v
             }
@@ -135,7 +224,10 @@ public abstract class AbstractChainablePollHelper extends AbstractPollHelper {
     void evaluateSensorsOnResponse(AbstractSensorEvaluationContext response) {
         super.evaluateSensorsOnResponse(response)
         for (AbstractChainablePollHelper sub: subPollers) {
+            sub.valuesChanged = false
             sub.evaluateSensorsOnResponse(response);
+            // sub-pollers are not polled themselves, so their changes count towards this poller's period
+            if (sub.valuesChanged) valuesChanged = true
         }
     }
 
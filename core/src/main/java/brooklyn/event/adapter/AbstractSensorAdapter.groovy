@@ -26,6 +26,16 @@ public abstract class AbstractSensorAdapter {
 	@SetFromFlag("period")
 	TimeDuration pollPeriod = 5*SECONDS;
 	
+	/** if set (and greater than pollPeriod), polling is adaptive: the period backs off towards this while
+	 * polled values are unchanged, and snaps back to pollPeriod on a change, an error, or a lifecycle transition
+	 * of the entity; null (the default) means a fixed period */
+	@SetFromFlag("maxPeriod")
+	TimeDuration maxPollPeriod = null;
+	
+	/** factor by which an adaptive poll period grows after each poll with unchanged values */
+	@SetFromFlag("periodBackoff")
+	double pollPeriodBackoff = 2;
+	
 	SensorRegistry registry;
 	EntityLocal entity;
 	boolean activated;
@@ -0,0 +1,86 @@
+package brooklyn.event.adapter;
+
+import groovy.time.TimeDuration
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import brooklyn.util.crypto.SslTrustUtils
+
+import com.google.common.io.Closeables
+
+/**
+ * Shared client used by {@link HttpPollHelper} for issuing polls.
+ * <p>
+ * Connections are configured with bounded connect and read timeouts, and response (and error) bodies
+ * are always consumed and closed so that the JVM's HTTP keep-alive cache can reuse the underlying
+ * socket for the next poll of the same host. If a previous response carrying an {@code ETag} or
+ * {@code Last-Modified} header is supplied, the request is made conditional and on
+ * {@code 304 Not Modified} that previous response is returned (the same instance), letting callers
+ * skip re-evaluation.
+ */
+public class HttpPollClient {
+
+    public static final Logger log = LoggerFactory.getLogger(HttpPollClient.class);
+
+    private static final HttpPollClient INSTANCE = new HttpPollClient();
+
+    /** the instance shared by all http pollers on this management node */
+    public static HttpPollClient getInstance() { INSTANCE }
+
+    /** opens (but does not connect) a GET connection to the given url, with the given timeouts (null means the JVM default) */
+    public HttpURLConnection openConnection(String url, TimeDuration connectTimeout, TimeDuration readTimeout) {
+        HttpURLConnection connection = new URL(url).openConnection()
+        SslTrustUtils.trustAll(connection)
+        if (connectTimeout!=null) connection.setConnectTimeout((int) connectTimeout.toMilliseconds())
+        if (readTimeout!=null) connection.setReadTimeout((int) readTimeout.toMilliseconds())
+        connection.setUseCaches(false)
+        return connection
+    }
+
+    /**
+     * Performs a GET on the given url, conditional on the validators in {@code previous} if not null.
+     *
+     * @return a new response context, or {@code previous} if the server reported it not modified
+     */
+    public HttpResponseContext get(String url, TimeDuration connectTimeout, TimeDuration readTimeout, HttpResponseContext previous) {
+        HttpURLConnection connection = openConnection(url, connectTimeout, readTimeout)
+        String etag = previous?.getHeader("ETag")
+        String lastModified = previous?.getHeader("Last-Modified")
+        if (etag!=null) connection.setRequestProperty("If-None-Match", etag)
+        if (lastModified!=null) connection.setRequestProperty("If-Modified-Since", lastModified)
+        connection.connect()
+
+        if (previous!=null && connection.getResponseCode()==HttpURLConnection.HTTP_NOT_MODIFIED) {
+            consumeQuietly(connection)
+            if (log.isTraceEnabled()) log.trace("http poll of {} not modified since last poll", url)
+            return previous
+        }
+        return new HttpResponseContext(connection)
+    }
+
+    /** reads and discards any remaining body (normal or error) and closes the streams, so the connection can be reused */
+    static void consumeQuietly(HttpURLConnection connection) {
+        InputStream input = null
+        try {
+            input = connection.getInputStream()
+            drain(input)
+        } catch (IOException e) {
+            InputStream error = connection.getErrorStream()
+            try {
+                if (error!=null) drain(error)
+            } catch (IOException e2) {
+                if (log.isTraceEnabled()) log.trace("unable to consume error stream of "+connection, e2)
+            } finally {
+                Closeables.closeQuietly(error)
+            }
+        } finally {
+            Closeables.closeQuietly(input)
+        }
+    }
+
+    private static void drain(InputStream input) throws IOException {
+        byte[] buffer = new byte[4096]
+        while (input.read(buffer) >= 0) {}
+    }
+}
@@ -3,20 +3,30 @@ package brooklyn.event.adapter;
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
-import brooklyn.util.crypto.SslTrustUtils
 import brooklyn.util.text.StringEscapes
 
+/**
+ * Polls the url of a {@link HttpSensorAdapter} using the shared {@link HttpPollClient}.
+ * <p>
+ * If the adapter is {@link HttpSensorAdapter#conditionalGet conditional}, requests carry the validators
+ * of the last response and a {@code 304 Not Modified} skips re-evaluation of the sensors.
+ */
 protected class HttpPollHelper extends AbstractPollHelper {
     public static final Logger log = LoggerFactory.getLogger(HttpPollHelper.class);
 
     final HttpSensorAdapter adapter;
 
+    /** most recent response, used for conditional requests; null if not conditional or no validators were returned */
+    private HttpResponseContext lastResponse;
+    /** most recent response whose sensors were evaluated */
+    private AbstractSensorEvaluationContext lastEvaluatedResponse;
+
     public HttpPollHelper(HttpSensorAdapter adapter) {
         super(adapter);
         this.adapter = adapter;
     }
 
-    private HttpURLConnection getConnection() {
+    private String getUrl() {
         if (adapter.isPost) throw new UnsupportedOperationException("when you need POST please implement it here!")
         String url = adapter.baseUrl;
         if (adapter.urlVars) {
@@ -26,7 +36,16 @@ protected class HttpPollHelper extends AbstractPollHelper {
             }
             url += "?" + args.join("&")
         }
-        return new URL(url).openConnection();
+        return url;
+    }
+
+    @Override
+    protected String getTargetHost() {
+        try {
+            return new URL(adapter.baseUrl).getHost();
+        } catch (MalformedURLException e) {
+            return null;
+        }
     }
 
     @Override
@@ -37,22 +56,34 @@ protected class HttpPollHelper extends AbstractPollHelper {
     @Override
     AbstractSensorEvaluationContext executePollOnSuccess() {
         if (log.isTraceEnabled()) log.trace("http polling for {} sensors at {}", adapter.entity, adapter.baseUrl+" "+adapter.urlVars);
-        HttpURLConnection connection = getConnection();
-        SslTrustUtils.trustAll(connection);
-        connection.connect();
-        def result = new HttpResponseContext(connection);
+        HttpResponseContext result = HttpPollClient.instance.get(getUrl(), adapter.connectTimeout, adapter.readTimeout,
+                adapter.conditionalGet ? lastResponse : null);
+        if (adapter.conditionalGet && !result.is(lastResponse)) {
+            lastResponse = (result.getHeader("ETag")!=null || result.getHeader("Last-Modified")!=null) ? result : null;
+        }
         if (log.isTraceEnabled()) log.trace("http poll for {} returned status {}", adapter.entity, result.responseCode);
         return result;
     }
 
     @Override
     AbstractSensorEvaluationContext executePollOnError(Exception e) {
+        lastResponse = null;
         try {
-            HttpURLConnection connection = getConnection();
+            HttpURLConnection connection = HttpPollClient.instance.openConnection(getUrl(), adapter.connectTimeout, adapter.readTimeout);
             //don't attempt to connect
             return new HttpResponseContext(connection, e);
         } catch (Exception e2) {
             return null;
         }
     }
+
+    @Override
+    void evaluateSensorsOnResponse(AbstractSensorEvaluationContext response) {
+        if (adapter.conditionalGet && response.is(lastEvaluatedResponse)) {
+            if (log.isTraceEnabled()) log.trace("http poll for {} not modified; skipping evaluation", adapter.entity);
+            return;
+        }
+        lastEvaluatedResponse = response;
+        super.evaluateSensorsOnResponse(response);
+    }
 }
@@ -9,6 +9,8 @@ import javax.annotation.Nullable
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
+import com.google.common.io.Closeables
+
 
 /** context object for evaluating sensor closures with http data handy */
 public class HttpResponseContext extends AbstractSensorEvaluationContext {
@@ -45,16 +47,24 @@ public class HttpResponseContext extends AbstractSensorEvaluationContext {
 		this.error = error;
 	}
 
+    /** reads the content in a single pass, always closing the stream (and consuming any error body)
+     * so that the underlying connection can be reused by the JVM keep-alive cache */
     private static String getContentOrNull(HttpURLConnection conn) {
+        InputStream input = null;
         try {
-            return conn.getContent().readLines().join("\n");
+            input = conn.getInputStream();
+            return input.getText().readLines().join("\n");
         } catch (FileNotFoundException e) {
             // Happens a lot with things like 404, so just log at trace and let the rest of the response indicate what's wrong
             log.trace("Content not available for HTTP connection "+conn, e);
+            HttpPollClient.consumeQuietly(conn);
             return null;
         } catch (IOException e) {
             log.trace("Content not available for HTTP connection "+conn, e);
+            HttpPollClient.consumeQuietly(conn);
             return null;
+        } finally {
+            Closeables.closeQuietly(input);
         }
     } 
     
@@ -69,6 +79,11 @@ public class HttpResponseContext extends AbstractSensorEvaluationContext {
 		}
 		return headers
 	}
+	/** returns the value of the given header, matching the name case-insensitively; null if not present */
+	public String getHeader(String name) {
+		def entry = headerLists.find { k,v -> k!=null && k.equalsIgnoreCase(name) }
+		return entry?.value ? entry.value.get(0) : null
+	}
 	private transient Object json;
 	public synchronized Object getJson() {
 		if (json==null) {
@@ -1,16 +1,30 @@
 package brooklyn.event.adapter
 
+import static java.util.concurrent.TimeUnit.*
+import groovy.time.TimeDuration
+
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
 import brooklyn.event.Sensor
 import brooklyn.util.flags.FlagUtils
+import brooklyn.util.flags.SetFromFlag
 
 
 public class HttpSensorAdapter extends AbstractSensorAdapter {
 
 	public static final Logger log = LoggerFactory.getLogger(HttpSensorAdapter.class)
 
+	/** time allowed to establish a connection; defaults to 30s */
+	@SetFromFlag
+	TimeDuration connectTimeout
+	/** time allowed waiting for data on an established connection; defaults to 30s */
+	@SetFromFlag
+	TimeDuration readTimeout
+	/** whether to send If-None-Match/If-Modified-Since and skip evaluation when the server reports not modified; default false */
+	@SetFromFlag
+	boolean conditionalGet
+
 	protected String baseUrl
 	protected final HttpPollHelper poller = new HttpPollHelper(this)
 	protected final Map urlVars=[:]
@@ -18,6 +32,8 @@ public class HttpSensorAdapter extends AbstractSensorAdapter {
     public HttpSensorAdapter(Map flags=[:], String url) {
         super(flags)
         this.baseUrl = url
+        if (connectTimeout==null) connectTimeout = 30*SECONDS
+        if (readTimeout==null) readTimeout = 30*SECONDS
     }
 
 	protected boolean isPost = false;
@@ -6,7 +6,9 @@ import java.util.List
 import java.util.concurrent.Executors
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ThreadFactory
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
@@ -44,10 +46,30 @@ public class SensorRegistry {
     synchronized ScheduledExecutorService getExec() {
         if (_exec==null) {
             log.warn("using legacy executor service sensor model in $entity -- class should be updated to use adapters.");
-            _exec = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+            _exec = getSharedLegacyExec();
         }
         return _exec;
     }
+
+    /**
+     * Shared by all registries using the legacy model, rather than a thread pool per entity;
+     * each registry cancels its own futures on {@link #close()}.
+     * 
+     * @deprecated in 0.4. use new SensorAdapter model.
+     */
+    @Deprecated
+    private static ScheduledExecutorService sharedLegacyExec = null;
+    private static synchronized ScheduledExecutorService getSharedLegacyExec() {
+        if (sharedLegacyExec==null) {
+            AtomicInteger count = new AtomicInteger()
+            sharedLegacyExec = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), { Runnable r ->
+                Thread t = new Thread(r, "brooklyn-legacy-sensors-"+count.incrementAndGet())
+                t.setDaemon(true)
+                return t
+            } as ThreadFactory);
+        }
+        return sharedLegacyExec;
+    }
     
     /**
      * @deprecated in 0.4. use new SensorAdapter model.
@@ -100,8 +122,8 @@ public class SensorRegistry {
 	public void close() {
 		activated = false;
 		deactivateAdapters();
-		if (_exec) exec.shutdownNow()
 		scheduled.each { key, ScheduledFuture future -> future.cancel(true) }
+		scheduled.clear()
 	}
 
     /**
@@ -0,0 +1,194 @@
+package brooklyn.event.adapter;
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import brooklyn.location.basic.SshMachineLocation
+import brooklyn.util.task.BasicTask
+import brooklyn.util.task.ScheduledTask
+import brooklyn.util.text.Identifiers
+import brooklyn.util.text.StringEscapes.BashStringEscapes
+
+import com.google.common.annotations.VisibleForTesting
+import com.google.common.base.Charsets
+import com.google.common.base.Preconditions
+
+/**
+ * Merges the polls of all batched {@link SshSensorAdapter}s (see {@link SshSensorAdapter#batched})
+ * for the same {@link SshMachineLocation} into a single remote script per period,
+ * splitting the output back into one {@link SshResultContext} per poller.
+ * <p>
+ * The coordinator ticks at the shortest period of its registered pollers; longer periods are
+ * rounded up to a multiple of that so that all commands which are due go out together.
+ * A poller with an adaptive period is included according to its current period, so it backs off
+ * (and resets) just as it would if polling on its own schedule.
+ * The schedule is owned by the entity of the first registered poller, moving to another
+ * entity if that poller is deactivated.
+ */
+public class SshPollCoordinator {
+
+    public static final Logger log = LoggerFactory.getLogger(SshPollCoordinator.class);
+
+    private static final Map<SshMachineLocation, SshPollCoordinator> coordinators = [:]
+
+    /** returns the coordinator for the given location, creating it if necessary */
+    public static SshPollCoordinator forLocation(SshMachineLocation location) {
+        synchronized (coordinators) {
+            SshPollCoordinator result = coordinators.get(location)
+            if (result==null) {
+                result = new SshPollCoordinator(location)
+                coordinators.put(location, result)
+            }
+            return result
+        }
+    }
+
+    /** returns the coordinator for the given location, or null if there is none (without creating one) */
+    public static SshPollCoordinator forLocationIfPresent(SshMachineLocation location) {
+        synchronized (coordinators) {
+            return coordinators.get(location)
+        }
+    }
+
+    final SshMachineLocation location
+
+    /** random per-coordinator token delimiting the sections of output for each command */
+    final String marker = "BROOKLYN_SSH_POLL_"+Identifiers.makeRandomId(8)
+
+    /** number of remote invocations made by this coordinator, for monitoring */
+    final AtomicLong remoteInvocationCount = new AtomicLong()
+
+    private final Set<SshPollHelper> pollers = new LinkedHashSet<SshPollHelper>()
+
+    private long basePeriodMillis = -1
+    private long tick = 0
+    private SshPollHelper owner
+    private ScheduledTask schedule
+
+    protected SshPollCoordinator(SshMachineLocation location) {
+        this.location = Preconditions.checkNotNull(location, "location")
+    }
+
+    public synchronized void register(SshPollHelper poller) {
+        if (!pollers.add(poller)) return
+        reschedule()
+    }
+
+    public synchronized void unregister(SshPollHelper poller) {
+        boolean removed = pollers.remove(poller)
+        if (pollers.isEmpty()) {
+            if (schedule) schedule.cancel()
+            schedule = null
+            owner = null
+            basePeriodMillis = -1
+            synchronized (coordinators) {
+                if (coordinators.get(location)==this) coordinators.remove(location)
+            }
+        } else if (removed) {
+            reschedule()
+        }
+    }
+
+    public synchronized int getPollerCount() {
+        return pollers.size()
+    }
+
+    /** recomputes the base period, restarting the schedule if the period or owner has changed */
+    private void reschedule() {
+        long base = pollers.collect { it.adapter.pollPeriod.toMilliseconds() }.min()
+        if (schedule!=null && base==basePeriodMillis && pollers.contains(owner)) return
+
+        if (schedule) schedule.cancel()
+        basePeriodMillis = base
+        tick = 0
+        owner = pollers.iterator().next()
+        if (log.isDebugEnabled()) log.debug "scheduling batched ssh poll (period {}ms) for {} pollers at {} (owned by {})", base, pollers.size(), location, owner.entity
+        Closure pollingTaskFactory = { new BasicTask(entity: owner.entity, { executeBatch() }); }
+        schedule = new ScheduledTask(period: base, pollingTaskFactory)
+        owner.entity.executionContext.submit schedule
+    }
+
+    protected void executeBatch() {
+        List<SshPollHelper> due
+        synchronized (this) {
+            due = pollers.findAll { SshPollHelper p -> tick % strideOf(p) == 0 && p.adapter.isActivated() && !p.isEmpty() } as List
+            tick++
+        }
+        if (due.isEmpty()) return
+
+        List<String> script = buildScript(due)
+        if (log.isDebugEnabled()) log.debug "ssh polling for {} sensor adapters at {} in one invocation", due.size(), location
+        Map<SshPollHelper, SshResultContext> results
+        try {
+            ByteArrayOutputStream stdout = []
+            ByteArrayOutputStream stderr = []
+            remoteInvocationCount.incrementAndGet()
+            location.run(out:stdout, err:stderr, script, [:])
+            results = splitResults(due, stdout.toString(Charsets.UTF_8.name()), stderr.toString(Charsets.UTF_8.name()))
+        } catch (Exception e) {
+            due.each { it.executeBatchedPoll(null, e) }
+            return
+        }
+        due.each { SshPollHelper p ->
+            SshResultContext result = results.get(p)
+            if (result!=null) p.executeBatchedPoll(result, null)
+            else p.executeBatchedPoll(null, new IllegalStateException("no output for batched ssh poll of '${p.adapter.command}' at ${location}"))
+        }
+    }
+
+    /** the number of ticks between polls of the given poller, at its current period */
+    @VisibleForTesting
+    synchronized long strideOf(SshPollHelper poller) {
+        long period = poller.currentPeriodMillis>0 ? poller.currentPeriodMillis : poller.adapter.pollPeriod.toMilliseconds()
+        return Math.max(1L, (long) Math.ceil(period / (double) basePeriodMillis))
+    }
+
+    /** builds a script which runs each poller's command in its own subshell (with its own environment),
+     * delimiting the output of each on stdout and stderr, and recording the exit status on stdout */
+    @VisibleForTesting
+    List<String> buildScript(List<SshPollHelper> due) {
+        List<String> result = []
+        due.eachWithIndex { SshPollHelper p, int i ->
+            String begin = "${marker}:${i}:begin"
+            StringBuilder command = new StringBuilder("(\n")
+            p.adapter.env.each { k, v ->
+                command.append("export ").append(k).append("=").append(BashStringEscapes.wrapBash(""+v)).append("\n")
+            }
+            command.append(p.adapter.command).append("\n) </dev/null")
+            result << "echo ${begin} ; echo ${begin} >&2"
+            result << command.toString()
+            result << "echo ${marker}:${i}:end:\$? ; echo ${marker}:${i}:end: >&2"
+        }
+        return result
+    }
+
+    /** splits the combined output of a script from {@link #buildScript(List)} into a result per poller;
+     * pollers whose output is incomplete (e.g. if the script was killed) are omitted */
+    @VisibleForTesting
+    Map<SshPollHelper, SshResultContext> splitResults(List<SshPollHelper> due, String stdout, String stderr) {
+        Map<SshPollHelper, SshResultContext> result = [:]
+        due.eachWithIndex { SshPollHelper p, int i ->
+            String begin = "${marker}:${i}:begin\n"
+            String end = "${marker}:${i}:end:"
+            int outStart = stdout.indexOf(begin)
+            int outEnd = outStart>=0 ? stdout.indexOf(end, outStart) : -1
+            if (outEnd<0) return
+            int exitEnd = stdout.indexOf("\n", outEnd)
+            String exitText = stdout.substring(outEnd+end.length(), exitEnd>=0 ? exitEnd : stdout.length()).trim()
+            if (!exitText.isInteger()) return
+            String out = stdout.substring(outStart+begin.length(), outEnd)
+
+            String err = null
+            int errStart = stderr!=null ? stderr.indexOf(begin) : -1
+            int errEnd = errStart>=0 ? stderr.indexOf(end, errStart) : -1
+            if (errEnd>=0) err = stderr.substring(errStart+begin.length(), errEnd)
+
+            result.put(p, new SshResultContext(location, exitText.toInteger(), out, err))
+        }
+        return result
+    }
+
+    public String toString() { "SshPollCoordinator["+location+"]" }
+}
@@ -7,6 +7,11 @@ import com.google.common.base.Charsets;
 
 /**
  * Captures output and exit code for {@link SshSensorAdapter}.
+ * <p>
+ * If the adapter is {@link SshSensorAdapter#batched batched}, polls are driven by the
+ * {@link SshPollCoordinator} for the adapter's location rather than by a schedule per adapter;
+ * an adaptive period (see {@link AbstractSensorAdapter#maxPollPeriod}) is then applied by the
+ * coordinator, which includes this poller only in the batches due at its {@link #currentPeriodMillis}.
  *
  * @see SshSensorAdapter
  */
@@ -21,6 +26,49 @@ protected class SshPollHelper extends AbstractPollHelper {
         this.adapter = adapter;
     }
 
+    @Override
+    protected activatePoll() {
+        if (!adapter.batched) {
+            super.activatePoll()
+        } else if (adapter.pollPeriod!=null && adapter.pollPeriod.toMilliseconds()>0) {
+            if (log.isDebugEnabled()) log.debug "activating batched poll (period {}) for {} sensors {} (using {})", adapter.pollPeriod, adapter.entity, polledSensors.keySet(), this
+            startAdaptivePeriod()
+            SshPollCoordinator.forLocation(adapter.location).register(this)
+        }
+    }
+
+    @Override
+    protected deactivatePoll() {
+        if (!adapter.batched) {
+            super.deactivatePoll()
+        } else {
+            if (log.isDebugEnabled()) log.debug "deactivating batched poll for {} sensors {} (using {})", adapter.entity, polledSensors.keySet(), this
+            stopAdaptivePeriod()
+            SshPollCoordinator.forLocationIfPresent(adapter.location)?.unregister(this)
+        }
+    }
+
+    private SshResultContext batchedResult
+    private Exception batchedError
+
+    /** invoked by the {@link SshPollCoordinator} with this poller's share of a batched remote invocation,
+     * or the error if that invocation failed */
+    protected synchronized void executeBatchedPoll(SshResultContext result, Exception error) {
+        batchedResult = result
+        batchedError = error
+        try {
+            executePoll()
+        } finally {
+            batchedResult = null
+            batchedError = null
+        }
+    }
+
+    @Override
+    protected String getTargetHost() {
+        adapter.location.address?.hostName
+    }
+
     @Override
     protected String getOptionalContextForErrors(AbstractSensorEvaluationContext response) {
         response?.stdout
@@ -28,6 +76,8 @@ protected class SshPollHelper extends AbstractPollHelper {
 
     @Override
     AbstractSensorEvaluationContext executePollOnSuccess() {
+        if (batchedError!=null) throw batchedError
+        if (batchedResult!=null) return batchedResult
         if (log.isDebugEnabled()) log.debug "ssh polling for {} sensors using {}", adapter.entity, adapter.command
         ByteArrayOutputStream stdout = []
         ByteArrayOutputStream stderr = []
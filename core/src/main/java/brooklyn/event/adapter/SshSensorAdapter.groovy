@@ -24,6 +24,10 @@ public class SshSensorAdapter extends AbstractSensorAdapter {
 	Map env
 	@SetFromFlag
 	String command
+	/** whether to merge polls with other batched adapters on the same location into one remote invocation
+	 * (see {@link SshPollCoordinator}); default false */
+	@SetFromFlag
+	boolean batched
 
 	protected final SshPollHelper poller = new SshPollHelper(this)
 	protected final SshMachineLocation location;
@@ -2,6 +2,9 @@ package brooklyn.management.internal;
 
 import java.io.FileNotFoundException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -27,10 +30,12 @@ import brooklyn.entity.basic.EffectorUtils;
 import brooklyn.entity.basic.EntityReferences.EntityCollectionReference;
 import brooklyn.entity.drivers.BasicEntityDriverFactory;
 import brooklyn.entity.drivers.EntityDriverFactory;
+import brooklyn.entity.rebind.ChangeListener;
 import brooklyn.entity.rebind.RebindManager;
 import brooklyn.entity.rebind.RebindManagerImpl;
 import brooklyn.entity.trait.Startable;
 import brooklyn.event.basic.BasicConfigKey.StringConfigKey;
+import brooklyn.location.Location;
 import brooklyn.location.LocationRegistry;
 import brooklyn.location.basic.BasicLocationRegistry;
 import brooklyn.management.ExecutionContext;
@@ -72,6 +77,9 @@ public abstract class AbstractManagementContext implements ManagementContext  {
     
     protected volatile BrooklynGarbageCollector gc;
     
+    private PollScheduler pollScheduler;
+    private PolicyScheduler policyScheduler;
+    
     public AbstractManagementContext(BrooklynProperties brooklynProperties){
        this.configMap = brooklynProperties;
     }
@@ -98,6 +106,10 @@ public abstract class AbstractManagementContext implements ManagementContext  {
     public void terminate() {
         running = false;
         rebindManager.stop();
+        synchronized (this) {
+            if (pollScheduler != null) pollScheduler.shutdownNow();
+            if (policyScheduler != null) policyScheduler.shutdownNow();
+        }
         
         // Don't unmanage everything; different entities get given their events at different times 
         // so can cause problems (e.g. a group finds out that a member is unmanaged, before the
@@ -113,6 +125,26 @@ public abstract class AbstractManagementContext implements ManagementContext  {
         return rebindManager;
     }
 
+    /** the scheduler for sensor polls in this management context, if {@link PollScheduler#ENABLED enabled} */
+    public synchronized PollScheduler getPollScheduler() {
+        if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+        
+        if (pollScheduler == null) {
+            pollScheduler = new PollScheduler(getConfig(), getExecutionManager());
+        }
+        return pollScheduler;
+    }
+    
+    /** the scheduler for the delayed and periodic jobs of policies in this management context */
+    public synchronized PolicyScheduler getPolicyScheduler() {
+        if (!isRunning()) throw new IllegalStateException("Management context no longer running");
+        
+        if (policyScheduler == null) {
+            policyScheduler = new PolicyScheduler(getExecutionManager());
+        }
+        return policyScheduler;
+    }
+    
     public long getTotalEffectorInvocations() {
         return totalEffectorInvocationCount.get();
     }
@@ -132,6 +164,66 @@ public abstract class AbstractManagementContext implements ManagementContext  {
         return entityDriverFactory;
     }
     
+    /**
+     * Finds the entities by scanning {@link #getEntities()}; subclasses which index their entities should override.
+     */
+    @Override
+    public Collection<Entity> getEntitiesInApplication(String applicationId) {
+        List<Entity> result = new ArrayList<Entity>();
+        for (Entity e : getEntities()) {
+            if (applicationId.equals(e.getApplicationId())) result.add(e);
+        }
+        return result;
+    }
+
+    /** @see #getEntitiesInApplication(String) */
+    @Override
+    public <T> Collection<T> getEntitiesOfType(Class<T> type) {
+        List<T> result = new ArrayList<T>();
+        for (Entity e : getEntities()) {
+            if (type.isInstance(e)) result.add(type.cast(e));
+        }
+        return result;
+    }
+
+    /** @see #getEntitiesInApplication(String) */
+    @Override
+    public Collection<Entity> getEntitiesInLocation(Location location) {
+        List<Entity> result = new ArrayList<Entity>();
+        for (Entity e : getEntities()) {
+            for (Location l : e.getLocations()) {
+                if (isAncestorOrSelf(location, l)) {
+                    result.add(e);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /** @see #getEntitiesInApplication(String) */
+    @Override
+    public Collection<Entity> getEntitiesNamed(String displayName) {
+        List<Entity> result = new ArrayList<Entity>();
+        for (Entity e : getEntities()) {
+            if (displayName.equalsIgnoreCase(e.getDisplayName())) result.add(e);
+        }
+        return result;
+    }
+
+    /**
+     * Called when a managed entity's display name changes, for subclasses which index their entities by name.
+     */
+    protected void onDisplayNameChanged(Entity e) {
+    }
+
+    private static boolean isAncestorOrSelf(Location ancestor, Location location) {
+        for (Location l = location; l != null; l = l.getParentLocation()) {
+            if (l.equals(ancestor)) return true;
+        }
+        return false;
+    }
+    
     public boolean isManaged(Entity e) {
         return (running && getEntity(e.getId())!=null);
     }
@@ -141,6 +233,9 @@ public abstract class AbstractManagementContext implements ManagementContext  {
      *
      * depending on the implementation of the management context,
      * this might push it out to one or more remote management nodes.
+     * <p>
+     * Each entity is registered in turn (after its parent), but listeners are told about the whole
+     * subtree together: see {@link #onEntitiesManaged(Collection)} and {@link ChangeListener#onManagedAll(Collection)}.
      */
     public void manage(Entity e) {
         if (isManaged(e)) {
@@ -152,18 +247,24 @@ public abstract class AbstractManagementContext implements ManagementContext  {
         }
         
         final ManagementTransitionInfo info = new ManagementTransitionInfo(this, ManagementTransitionMode.NORMAL);
+        final List<Entity> newlyManaged = new ArrayList<Entity>();
         recursively(e, new Predicate<AbstractEntity>() { public boolean apply(AbstractEntity it) {
             preManageNonRecursive(it);
             it.getManagementSupport().onManagementStarting(info); 
-            return manageNonRecursive(it);
+            boolean result = manageNonRecursive(it);
+            if (result) newlyManaged.add(it);
+            return result;
         } });
+        onEntitiesManaged(newlyManaged);
         
+        final List<Entity> started = new ArrayList<Entity>();
         recursively(e, new Predicate<AbstractEntity>() { public boolean apply(AbstractEntity it) {
             it.getManagementSupport().onManagementStarted(info);
             it.setBeingManaged();
-            rebindManager.getChangeListener().onManaged(it);
+            started.add(it);
             return true; 
         } });
+        rebindManager.getChangeListener().onManagedAll(started);
     }
     
     protected void recursively(Entity e, Predicate<AbstractEntity> action) {
@@ -203,6 +304,8 @@ public abstract class AbstractManagementContext implements ManagementContext  {
     /**
      * Causes the given entity and its children, recursively, to be removed from the management plane
      * (for instance because the entity is no longer relevant)
+     * <p>
+     * As with {@link #manage(Entity)}, listeners are told about the whole subtree together.
      */
     public void unmanage(Entity e) {
         if (shouldSkipUnmanagement(e)) return;
@@ -214,14 +317,34 @@ public abstract class AbstractManagementContext implements ManagementContext  {
             return true;
         } });
         
+        final List<Entity> unmanaged = new ArrayList<Entity>();
+        final List<Entity> stopped = new ArrayList<Entity>();
         recursively(e, new Predicate<AbstractEntity>() { public boolean apply(AbstractEntity it) {
             if (shouldSkipUnmanagement(it)) return false;
             boolean result = unmanageNonRecursive(it);            
+            if (result) unmanaged.add(it);
             it.getManagementSupport().onManagementStopped(info);
-            rebindManager.getChangeListener().onUnmanaged(it);
+            stopped.add(it);
             if (gc != null) gc.onUnmanaged(it);
             return result; 
         } });
+        onEntitiesUnmanaged(unmanaged);
+        rebindManager.getChangeListener().onUnmanagedAll(stopped);
+    }
+    
+    /**
+     * Called once the given entities (a subtree, in depth-first order) have all been registered by
+     * {@link #manageNonRecursive(Entity)}, e.g. to notify entity-set listeners with a single batch.
+     * Does nothing by default.
+     */
+    protected void onEntitiesManaged(Collection<Entity> entities) {
+    }
+    
+    /**
+     * As {@link #onEntitiesManaged(Collection)}, called once the given entities have all been
+     * removed by {@link #unmanageNonRecursive(Entity)}.
+     */
+    protected void onEntitiesUnmanaged(Collection<Entity> entities) {
     }
     
     protected boolean shouldSkipUnmanagement(Entity e) {
@@ -342,6 +465,15 @@ public abstract class AbstractManagementContext implements ManagementContext  {
     public abstract void addEntitySetListener(CollectionChangeListener<Entity> listener);
 
     public abstract void removeEntitySetListener(CollectionChangeListener<Entity> listener);
+
+    /**
+     * Adds a listener which is only interested in entities matching the given filter, so need only be told about
+     * those (see {@link IndexedEntitySetListeners}); by default it is told about all entities.
+     * Remove with {@link #removeEntitySetListener(CollectionChangeListener)}.
+     */
+    public void addEntitySetListener(CollectionChangeListener<Entity> listener, Predicate<? super Entity> filter) {
+        addEntitySetListener(listener);
+    }
     
     @Override
     public StringConfigMap getConfig() {
@@ -2,6 +2,8 @@ package brooklyn.management.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,7 +13,11 @@ import brooklyn.util.exceptions.Exceptions;
 import brooklyn.util.task.BasicExecutionManager;
 import brooklyn.util.task.SingleThreadedScheduler;
 
-public class AsyncCollectionChangeAdapter<Item> implements CollectionChangeListener<Item> {
+/**
+ * Passes changes to the delegate in tasks, one at a time (in order). Changes to several items at once are passed in
+ * a single task, and to the delegate in one call if it is a {@link BatchCollectionChangeListener}.
+ */
+public class AsyncCollectionChangeAdapter<Item> implements BatchCollectionChangeListener<Item> {
 	
     protected static final Logger LOG = LoggerFactory.getLogger(AsyncCollectionChangeAdapter.class);
 
@@ -52,6 +58,55 @@ public class AsyncCollectionChangeAdapter<Item> implements CollectionChangeListe
     	});
     }
 
+    @Override
+    public void onItemsAdded(final Collection<? extends Item> items) {
+        executor.submit(MutableMap.of("tag", delegate), new Runnable() {
+            public void run() {
+                if (delegate instanceof BatchCollectionChangeListener) {
+                    try {
+                        ((BatchCollectionChangeListener<Item>) delegate).onItemsAdded(items);
+                    } catch (Throwable t) {
+                        LOG.warn("Error notifying listener of itemsAdded("+items.size()+" items)", t);
+                        Exceptions.propagate(t);
+                    }
+                } else {
+                    for (Item item : items) {
+                        try {
+                            delegate.onItemAdded(item);
+                        } catch (Throwable t) {
+                            // continue with other items, as would have done if notified separately
+                            LOG.warn("Error notifying listener of itemAdded("+item+")", t);
+                        }
+                    }
+                }
+            }
+        });
+    }
+    
+    @Override
+    public void onItemsRemoved(final Collection<? extends Item> items) {
+        executor.submit(MutableMap.of("tag", delegate), new Runnable() {
+            public void run() {
+                if (delegate instanceof BatchCollectionChangeListener) {
+                    try {
+                        ((BatchCollectionChangeListener<Item>) delegate).onItemsRemoved(items);
+                    } catch (Throwable t) {
+                        LOG.warn("Error notifying listener of itemsRemoved("+items.size()+" items)", t);
+                        Exceptions.propagate(t);
+                    }
+                } else {
+                    for (Item item : items) {
+                        try {
+                            delegate.onItemRemoved(item);
+                        } catch (Throwable t) {
+                            LOG.warn("Error notifying listener of itemRemoved("+item+")", t);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public int hashCode() {
         return delegate.hashCode();
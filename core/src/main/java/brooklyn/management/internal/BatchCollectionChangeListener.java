@@ -0,0 +1,12 @@
+package brooklyn.management.internal;
+
+import java.util.Collection;
+
+/**
+ * A {@link CollectionChangeListener} which can be told about several items at once, e.g. all the entities
+ * in a subtree being managed or unmanaged together.
+ */
+public interface BatchCollectionChangeListener<Item> extends CollectionChangeListener<Item> {
+    void onItemsAdded(Collection<? extends Item> items);
+    void onItemsRemoved(Collection<? extends Item> items);
+}
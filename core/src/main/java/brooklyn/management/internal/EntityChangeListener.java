@@ -1,5 +1,6 @@
 package brooklyn.management.internal;
 
+import brooklyn.config.ConfigKey;
 import brooklyn.entity.Effector;
 import brooklyn.event.AttributeSensor;
 
@@ -7,6 +8,8 @@ public interface EntityChangeListener {
 
     public static final EntityChangeListener NOOP = new EntityChangeListener() {
         @Override public void onAttributeChanged(AttributeSensor<?> attribute) {}
+        @Override public void onConfigChanged(ConfigKey<?> key) {}
+        @Override public void onDisplayNameChanged() {}
         @Override public void onLocationsChanged() {}
         @Override public void onMembersChanged() {}
         @Override public void onChildrenChanged() {}
@@ -17,6 +20,10 @@ public interface EntityChangeListener {
     
     void onAttributeChanged(AttributeSensor<?> attribute);
 
+    void onConfigChanged(ConfigKey<?> key);
+
+    void onDisplayNameChanged();
+
     void onLocationsChanged();
 
     void onMembersChanged();
@@ -1,10 +1,12 @@
 package brooklyn.management.internal;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import brooklyn.config.ConfigKey;
 import brooklyn.entity.Application;
 import brooklyn.entity.Effector;
 import brooklyn.entity.Entity;
@@ -58,6 +60,8 @@ public class EntityManagementSupport {
     
     private volatile EntityChangeListener entityChangeListener = EntityChangeListener.NOOP;
 
+    private final AtomicLong modificationCount = new AtomicLong();
+
     public boolean isDeployed() { return currentlyDeployed.get(); }
     public boolean isNoLongerManaged() {
         return wasDeployed() && !isDeployed();
@@ -257,33 +261,56 @@ public class EntityManagementSupport {
         return entityChangeListener;
     }
     
+    /**
+     * A count of the changes to the entity (attributes, config, name, children, members, policies, locations, and effectors
+     * having been invoked) while it has been managed; it only ever increases, so can be used to tell whether anything
+     * derived from the entity (such as a summary given to a client) could be out of date.
+     */
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+    
     private class EntityChangeListenerImpl implements EntityChangeListener {
         @Override
         public void onChildrenChanged() {
-            getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
+            onChanged();
         }
         @Override
         public void onLocationsChanged() {
-            getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
+            onChanged();
         }
         @Override
         public void onMembersChanged() {
-            getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
+            onChanged();
         }
         @Override
         public void onPoliciesChanged() {
-            getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
+            onChanged();
         }
         @Override
         public void onAttributeChanged(AttributeSensor<?> attribute) {
-            getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
+            onChanged();
+        }
+        @Override
+        public void onConfigChanged(ConfigKey<?> key) {
+            onChanged();
+        }
+        @Override
+        public void onDisplayNameChanged() {
+            ManagementContext mgmt = getManagementContext(false);
+            if (mgmt instanceof AbstractManagementContext) ((AbstractManagementContext) mgmt).onDisplayNameChanged(entity);
+            onChanged();
         }
         @Override
         public void onEffectorStarting(Effector<?> effector) {
-            // ignore
+            modificationCount.incrementAndGet();
         }
         @Override
         public void onEffectorCompleted(Effector<?> effector) {
+            onChanged();
+        }
+        private void onChanged() {
+            modificationCount.incrementAndGet();
             getManagementContext(false).getRebindManager().getChangeListener().onChanged(entity);
         }
     }
@@ -0,0 +1,216 @@
+package brooklyn.management.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import brooklyn.entity.Application;
+import brooklyn.entity.Entity;
+import brooklyn.location.Location;
+
+/**
+ * The entities known to a management context, indexed by id and also by application, by type
+ * (every class and interface the entity implements) and by display name (ignoring case).
+ * <p>
+ * Reads are lock-free, and return entities in the order they were registered; modifications are
+ * synchronized. Returned collections are snapshots.
+ */
+public class EntityRegistry {
+
+    private static class Registration {
+        final long sequence;
+        final Entity entity;
+        final String applicationId;
+        final Set<Class<?>> types;
+        // guarded by the registry; changes when the entity is renamed
+        String nameKey;
+
+        Registration(long sequence, Entity entity, String applicationId, Set<Class<?>> types) {
+            this.sequence = sequence;
+            this.entity = entity;
+            this.applicationId = applicationId;
+            this.types = types;
+        }
+    }
+
+    private final ConcurrentMap<String, Registration> byId = new ConcurrentHashMap<String, Registration>();
+    private final ConcurrentNavigableMap<Long, Entity> all = new ConcurrentSkipListMap<Long, Entity>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, Entity>> byApplicationId = new ConcurrentHashMap<String, ConcurrentNavigableMap<Long, Entity>>();
+    private final ConcurrentMap<Class<?>, ConcurrentNavigableMap<Long, Entity>> byType = new ConcurrentHashMap<Class<?>, ConcurrentNavigableMap<Long, Entity>>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, Entity>> byName = new ConcurrentHashMap<String, ConcurrentNavigableMap<Long, Entity>>();
+
+    // guarded by this
+    private long nextSequence;
+
+    /**
+     * Adds the entity, unless there is already an entity with that id.
+     * @return the entity previously registered with that id, or null if this entity has been added
+     */
+    public synchronized Entity register(Entity entity) {
+        Registration old = byId.get(entity.getId());
+        if (old != null) return old.entity;
+
+        Registration r = new Registration(nextSequence++, entity, entity.getApplicationId(), getTypes(entity.getClass()));
+        all.put(r.sequence, entity);
+        if (r.applicationId != null) index(byApplicationId, r.applicationId).put(r.sequence, entity);
+        for (Class<?> type : r.types) {
+            index(byType, type).put(r.sequence, entity);
+        }
+        r.nameKey = nameKey(entity.getDisplayName());
+        if (r.nameKey != null) index(byName, r.nameKey).put(r.sequence, entity);
+        // add to the id map last, so the entity is in all indexes once it is visible as registered
+        byId.put(entity.getId(), r);
+        return null;
+    }
+
+    /**
+     * Removes the entity with the given id.
+     * @return the entity removed, or null if none was registered with that id
+     */
+    public synchronized Entity unregister(String id) {
+        Registration r = byId.remove(id);
+        if (r == null) return null;
+
+        all.remove(r.sequence);
+        if (r.applicationId != null) {
+            ConcurrentNavigableMap<Long, Entity> members = byApplicationId.get(r.applicationId);
+            if (members != null) {
+                members.remove(r.sequence);
+                if (members.isEmpty()) byApplicationId.remove(r.applicationId);
+            }
+        }
+        for (Class<?> type : r.types) {
+            ConcurrentNavigableMap<Long, Entity> members = byType.get(type);
+            if (members != null) members.remove(r.sequence);
+        }
+        removeFromNameIndex(r);
+        return r.entity;
+    }
+
+    /**
+     * Re-indexes the entity under its current display name, e.g. after it has been renamed;
+     * does nothing if the entity is not registered.
+     */
+    public synchronized void updateName(Entity entity) {
+        Registration r = byId.get(entity.getId());
+        if (r == null || r.entity != entity) return;
+        String newKey = nameKey(entity.getDisplayName());
+        if (newKey == null ? r.nameKey == null : newKey.equals(r.nameKey)) return;
+
+        removeFromNameIndex(r);
+        r.nameKey = newKey;
+        if (newKey != null) index(byName, newKey).put(r.sequence, entity);
+    }
+
+    public Entity get(String id) {
+        Registration r = byId.get(id);
+        return (r != null) ? r.entity : null;
+    }
+
+    public boolean contains(String id) {
+        return byId.containsKey(id);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Collection<Entity> getEntities() {
+        return new ArrayList<Entity>(all.values());
+    }
+
+    public Collection<Application> getApplications() {
+        return getEntitiesOfType(Application.class);
+    }
+
+    /** the entities whose application has the given id (including the application itself) */
+    public Collection<Entity> getEntitiesInApplication(String applicationId) {
+        ConcurrentNavigableMap<Long, Entity> members = byApplicationId.get(applicationId);
+        return (members != null) ? new ArrayList<Entity>(members.values()) : Collections.<Entity>emptyList();
+    }
+
+    /** the entities which are instances of the given class or interface */
+    @SuppressWarnings("unchecked")
+    public <T> Collection<T> getEntitiesOfType(Class<T> type) {
+        ConcurrentNavigableMap<Long, Entity> members = byType.get(type);
+        return (members != null) ? new ArrayList<T>((Collection<T>) members.values()) : Collections.<T>emptyList();
+    }
+
+    /** the entities whose display name is the given name, ignoring case */
+    public Collection<Entity> getEntitiesNamed(String displayName) {
+        if (displayName == null) return Collections.emptyList();
+        ConcurrentNavigableMap<Long, Entity> members = byName.get(nameKey(displayName));
+        return (members != null) ? new ArrayList<Entity>(members.values()) : Collections.<Entity>emptyList();
+    }
+
+    /**
+     * The entities in the given location, or in any of its descendants (e.g. the machines
+     * obtained from a provisioning location).
+     * <p>
+     * Entities' locations change during their lifecycle without the registry being told,
+     * so this is computed on demand (without locking) rather than from an index.
+     */
+    public Collection<Entity> getEntitiesInLocation(Location location) {
+        List<Entity> result = new ArrayList<Entity>();
+        for (Entity entity : all.values()) {
+            if (isInLocation(entity, location)) result.add(entity);
+        }
+        return result;
+    }
+
+    private static boolean isInLocation(Entity entity, Location location) {
+        for (Location l : entity.getLocations()) {
+            for (Location ancestor = l; ancestor != null; ancestor = ancestor.getParentLocation()) {
+                if (ancestor.equals(location)) return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeFromNameIndex(Registration r) {
+        if (r.nameKey == null) return;
+        ConcurrentNavigableMap<Long, Entity> members = byName.get(r.nameKey);
+        if (members != null) {
+            members.remove(r.sequence);
+            if (members.isEmpty()) byName.remove(r.nameKey);
+        }
+    }
+
+    private static String nameKey(String displayName) {
+        return (displayName != null) ? displayName.toLowerCase(Locale.ENGLISH) : null;
+    }
+
+    private static <K> ConcurrentNavigableMap<Long, Entity> index(ConcurrentMap<K, ConcurrentNavigableMap<Long, Entity>> indexes, K key) {
+        ConcurrentNavigableMap<Long, Entity> result = indexes.get(key);
+        if (result == null) {
+            result = new ConcurrentSkipListMap<Long, Entity>();
+            ConcurrentNavigableMap<Long, Entity> old = indexes.putIfAbsent(key, result);
+            if (old != null) result = old;
+        }
+        return result;
+    }
+
+    /** the class and all its superclasses and interfaces */
+    private static Set<Class<?>> getTypes(Class<?> clazz) {
+        Set<Class<?>> result = new LinkedHashSet<Class<?>>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            addWithInterfaces(c, result);
+        }
+        return result;
+    }
+
+    private static void addWithInterfaces(Class<?> type, Set<Class<?>> result) {
+        if (!result.add(type)) return;
+        for (Class<?> i : type.getInterfaces()) {
+            addWithInterfaces(i, result);
+        }
+    }
+}
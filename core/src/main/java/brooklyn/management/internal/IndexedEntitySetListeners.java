@@ -0,0 +1,254 @@
+package brooklyn.management.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.EntityPredicates.AttributeEqualTo;
+import brooklyn.entity.basic.EntityPredicates.ConfigEqualTo;
+import brooklyn.entity.basic.EntityPredicates.InstanceOf;
+import brooklyn.event.AttributeSensor;
+import brooklyn.management.ExecutionManager;
+import brooklyn.util.MutableMap;
+import brooklyn.util.task.BasicExecutionManager;
+import brooklyn.util.task.SingleThreadedScheduler;
+
+import com.google.common.base.Predicate;
+
+/**
+ * Entity-set listeners which are only interested in entities matching a filter, such as those of
+ * {@link brooklyn.entity.basic.DynamicGroup}s.
+ * <p>
+ * Where the filter is one of the indexable {@link brooklyn.entity.basic.EntityPredicates}, listeners are indexed by
+ * the type, config value or attribute value they match, so that each entity added or removed is only passed to the
+ * listeners which could match it. Listeners with any other filter are told about every entity.
+ * <p>
+ * Each batch of changes (e.g. a subtree being managed) is routed in a single task (in order), and passed to each
+ * matching listener in a task of its own, as done by {@link AsyncCollectionChangeAdapter}.
+ * <p>
+ * Attribute values can change after an entity is added, so every listener indexed by attribute is told of all removals.
+ */
+public class IndexedEntitySetListeners {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexedEntitySetListeners.class);
+
+    private static final Object NULL_VALUE = new Object();
+
+    private final ExecutionManager executor;
+
+    // guarded by this
+    private final Map<CollectionChangeListener<Entity>, AsyncCollectionChangeAdapter<Entity>> adapters = new LinkedHashMap<CollectionChangeListener<Entity>, AsyncCollectionChangeAdapter<Entity>>();
+    private final Map<CollectionChangeListener<Entity>, Predicate<? super Entity>> filters = new LinkedHashMap<CollectionChangeListener<Entity>, Predicate<? super Entity>>();
+    private final Set<CollectionChangeListener<Entity>> unindexed = new LinkedHashSet<CollectionChangeListener<Entity>>();
+    private final Map<Class<?>, Set<CollectionChangeListener<Entity>>> byType = new LinkedHashMap<Class<?>, Set<CollectionChangeListener<Entity>>>();
+    private final Map<String, ConfigKey<?>> configKeys = new LinkedHashMap<String, ConfigKey<?>>();
+    private final Map<String, Map<Object, Set<CollectionChangeListener<Entity>>>> byConfig = new LinkedHashMap<String, Map<Object, Set<CollectionChangeListener<Entity>>>>();
+    private final Map<String, AttributeSensor<?>> attributes = new LinkedHashMap<String, AttributeSensor<?>>();
+    private final Map<String, Map<Object, Set<CollectionChangeListener<Entity>>>> byAttribute = new LinkedHashMap<String, Map<Object, Set<CollectionChangeListener<Entity>>>>();
+
+    public IndexedEntitySetListeners(ExecutionManager executor) {
+        this.executor = checkNotNull(executor, "executor");
+        ((BasicExecutionManager) executor).setTaskSchedulerForTag(this, SingleThreadedScheduler.class);
+    }
+
+    /** adds the listener, replacing any previous registration (and filter) of it */
+    public synchronized void add(CollectionChangeListener<Entity> listener, Predicate<? super Entity> filter) {
+        remove(listener);
+
+        adapters.put(listener, new AsyncCollectionChangeAdapter<Entity>(executor, listener));
+        filters.put(listener, filter);
+        if (filter instanceof InstanceOf) {
+            index(byType, ((InstanceOf) filter).getType()).add(listener);
+        } else if (filter instanceof ConfigEqualTo) {
+            ConfigKey<?> key = ((ConfigEqualTo<?>) filter).getKey();
+            configKeys.put(key.getName(), key);
+            index(subIndex(byConfig, key.getName()), valueKey(((ConfigEqualTo<?>) filter).getValue())).add(listener);
+        } else if (filter instanceof AttributeEqualTo) {
+            AttributeSensor<?> attribute = ((AttributeEqualTo<?>) filter).getAttribute();
+            attributes.put(attribute.getName(), attribute);
+            index(subIndex(byAttribute, attribute.getName()), valueKey(((AttributeEqualTo<?>) filter).getValue())).add(listener);
+        } else {
+            unindexed.add(listener);
+        }
+    }
+
+    public synchronized void remove(CollectionChangeListener<Entity> listener) {
+        Predicate<? super Entity> filter = filters.remove(listener);
+        if (adapters.remove(listener) == null) return;
+
+        if (filter instanceof InstanceOf) {
+            unindex(byType, ((InstanceOf) filter).getType(), listener);
+        } else if (filter instanceof ConfigEqualTo) {
+            String name = ((ConfigEqualTo<?>) filter).getKey().getName();
+            Map<Object, Set<CollectionChangeListener<Entity>>> byValue = byConfig.get(name);
+            unindex(byValue, valueKey(((ConfigEqualTo<?>) filter).getValue()), listener);
+            if (byValue != null && byValue.isEmpty()) {
+                byConfig.remove(name);
+                configKeys.remove(name);
+            }
+        } else if (filter instanceof AttributeEqualTo) {
+            String name = ((AttributeEqualTo<?>) filter).getAttribute().getName();
+            Map<Object, Set<CollectionChangeListener<Entity>>> byValue = byAttribute.get(name);
+            unindex(byValue, valueKey(((AttributeEqualTo<?>) filter).getValue()), listener);
+            if (byValue != null && byValue.isEmpty()) {
+                byAttribute.remove(name);
+                attributes.remove(name);
+            }
+        } else {
+            unindexed.remove(listener);
+        }
+    }
+
+    public synchronized int size() {
+        return adapters.size();
+    }
+
+    /** tells each listener about all the added entities it could match, in one call */
+    public void onItemsAdded(final Collection<? extends Entity> items) {
+        executor.submit(MutableMap.of("tag", this), new Runnable() {
+            public void run() {
+                for (Map.Entry<AsyncCollectionChangeAdapter<Entity>, List<Entity>> entry : getListenersFor(items, false).entrySet()) {
+                    entry.getKey().onItemsAdded(entry.getValue());
+                }
+            }});
+    }
+
+    /** tells each listener about all the removed entities it could have matched, in one call */
+    public void onItemsRemoved(final Collection<? extends Entity> items) {
+        executor.submit(MutableMap.of("tag", this), new Runnable() {
+            public void run() {
+                for (Map.Entry<AsyncCollectionChangeAdapter<Entity>, List<Entity>> entry : getListenersFor(items, true).entrySet()) {
+                    entry.getKey().onItemsRemoved(entry.getValue());
+                }
+            }});
+    }
+
+    private Map<AsyncCollectionChangeAdapter<Entity>, List<Entity>> getListenersFor(Collection<? extends Entity> items, boolean removed) {
+        Map<AsyncCollectionChangeAdapter<Entity>, List<Entity>> result = new LinkedHashMap<AsyncCollectionChangeAdapter<Entity>, List<Entity>>();
+        for (Entity item : items) {
+            for (AsyncCollectionChangeAdapter<Entity> listener : getListenersFor(item, removed)) {
+                List<Entity> itemsForListener = result.get(listener);
+                if (itemsForListener == null) {
+                    itemsForListener = new ArrayList<Entity>();
+                    result.put(listener, itemsForListener);
+                }
+                itemsForListener.add(item);
+            }
+        }
+        return result;
+    }
+
+    /** the (asynchronous adapters of the) listeners to tell about a change to the given entity */
+    private List<AsyncCollectionChangeAdapter<Entity>> getListenersFor(Entity item, boolean removed) {
+        Map<String, ConfigKey<?>> configKeysCopy;
+        Map<String, AttributeSensor<?>> attributesCopy;
+        synchronized (this) {
+            configKeysCopy = new LinkedHashMap<String, ConfigKey<?>>(configKeys);
+            attributesCopy = new LinkedHashMap<String, AttributeSensor<?>>(attributes);
+        }
+
+        // look up the item's values outside of the lock (config values may need resolving)
+        Map<String, Object> configValues = new LinkedHashMap<String, Object>();
+        Set<String> unknownConfigValues = new LinkedHashSet<String>();
+        for (ConfigKey<?> key : configKeysCopy.values()) {
+            try {
+                configValues.put(key.getName(), valueKey(item.getConfig(key)));
+            } catch (Exception e) {
+                // tell all listeners indexed on that key, rather than risk missing one
+                LOG.warn("Error getting "+key+" of "+item+" for routing change to entity-set listeners (continuing)", e);
+                unknownConfigValues.add(key.getName());
+            }
+        }
+        Map<String, Object> attributeValues = new LinkedHashMap<String, Object>();
+        if (!removed) {
+            for (AttributeSensor<?> attribute : attributesCopy.values()) {
+                attributeValues.put(attribute.getName(), valueKey(item.getAttribute(attribute)));
+            }
+        }
+
+        Set<CollectionChangeListener<Entity>> matches = new LinkedHashSet<CollectionChangeListener<Entity>>();
+        synchronized (this) {
+            matches.addAll(unindexed);
+            for (Map.Entry<Class<?>, Set<CollectionChangeListener<Entity>>> entry : byType.entrySet()) {
+                if (entry.getKey().isInstance(item)) matches.addAll(entry.getValue());
+            }
+            addMatches(byConfig, configValues, matches);
+            for (String name : unknownConfigValues) {
+                addAll(byConfig.get(name), matches);
+            }
+            if (removed) {
+                for (Map<Object, Set<CollectionChangeListener<Entity>>> byValue : byAttribute.values()) {
+                    addAll(byValue, matches);
+                }
+            } else {
+                addMatches(byAttribute, attributeValues, matches);
+            }
+
+            List<AsyncCollectionChangeAdapter<Entity>> result = new ArrayList<AsyncCollectionChangeAdapter<Entity>>(matches.size());
+            for (CollectionChangeListener<Entity> listener : matches) {
+                AsyncCollectionChangeAdapter<Entity> adapter = adapters.get(listener);
+                if (adapter != null) result.add(adapter);
+            }
+            if (LOG.isTraceEnabled()) LOG.trace("Routing {} of {} to {} of {} entity-set listeners",
+                    new Object[] {(removed ? "removal" : "addition"), item, result.size(), adapters.size()});
+            return result;
+        }
+    }
+
+    private static void addMatches(Map<String, Map<Object, Set<CollectionChangeListener<Entity>>>> index, Map<String, Object> values,
+            Collection<CollectionChangeListener<Entity>> matches) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            Map<Object, Set<CollectionChangeListener<Entity>>> byValue = index.get(entry.getKey());
+            Set<CollectionChangeListener<Entity>> listeners = (byValue != null) ? byValue.get(entry.getValue()) : null;
+            if (listeners != null) matches.addAll(listeners);
+        }
+    }
+
+    private static void addAll(Map<Object, Set<CollectionChangeListener<Entity>>> byValue, Collection<CollectionChangeListener<Entity>> matches) {
+        if (byValue == null) return;
+        for (Set<CollectionChangeListener<Entity>> listeners : byValue.values()) {
+            matches.addAll(listeners);
+        }
+    }
+
+    private static Object valueKey(Object value) {
+        return (value != null) ? value : NULL_VALUE;
+    }
+
+    private static <K,V> Set<V> index(Map<K, Set<V>> index, K key) {
+        Set<V> result = index.get(key);
+        if (result == null) {
+            result = new LinkedHashSet<V>();
+            index.put(key, result);
+        }
+        return result;
+    }
+
+    private static <K1,K2,V> Map<K2, Set<V>> subIndex(Map<K1, Map<K2, Set<V>>> index, K1 key) {
+        Map<K2, Set<V>> result = index.get(key);
+        if (result == null) {
+            result = new LinkedHashMap<K2, Set<V>>();
+            index.put(key, result);
+        }
+        return result;
+    }
+
+    private static <K,V> void unindex(Map<K, Set<V>> index, K key, V value) {
+        Set<V> values = (index != null) ? index.get(key) : null;
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) index.remove(key);
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package brooklyn.management.internal;
 
 import static brooklyn.util.GroovyJavaMethods.elvis;
-import groovy.util.ObservableList;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +16,7 @@ import brooklyn.config.BrooklynProperties;
 import brooklyn.entity.Application;
 import brooklyn.entity.Entity;
 import brooklyn.entity.basic.AbstractEntity;
+import brooklyn.location.Location;
 import brooklyn.management.ExecutionManager;
 import brooklyn.management.ManagementContext;
 import brooklyn.management.SubscriptionManager;
@@ -24,8 +24,7 @@ import brooklyn.management.Task;
 import brooklyn.util.task.BasicExecutionManager;
 import brooklyn.util.text.Identifiers;
 
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import com.google.common.base.Predicate;
 
 /**
  * A local implementation of the {@link ManagementContext} API.
@@ -39,9 +38,10 @@ public class LocalManagementContext extends AbstractManagementContext {
     private SubscriptionManager subscriptions;
 
     protected final Map<String,Entity> preManagedEntitiesById = new WeakHashMap<String, Entity>();
-    protected final Map<String,Entity> entitiesById = Maps.newLinkedHashMap();
-    protected final ObservableList entities = new ObservableList();
-    protected final Set<Application> applications = Sets.newLinkedHashSet();
+    /** managed entities; read without locking, modified only while holding this context's monitor */
+    protected final EntityRegistry entityRegistry = new EntityRegistry();
+    private final List<AsyncCollectionChangeAdapter<Entity>> entitySetListeners = new CopyOnWriteArrayList<AsyncCollectionChangeAdapter<Entity>>();
+    private volatile IndexedEntitySetListeners filteredEntitySetListeners;
 
     private final String tostring = "LocalManagementContext("+Identifiers.getBase64IdFromValue(System.identityHashCode(this), 5)+")";
 
@@ -86,7 +86,7 @@ public class LocalManagementContext extends AbstractManagementContext {
     @Override
     protected synchronized boolean manageNonRecursive(Entity e) {
         ((AbstractEntity)e).managementData = MANAGED_LOCALLY;
-        Object old = entitiesById.put(e.getId(), e);
+        Object old = entityRegistry.register(e);
         if (old!=null) {
             if (old == e) {
                 log.warn("{} redundant call to start management of entity {}", this, e);
@@ -97,10 +97,6 @@ public class LocalManagementContext extends AbstractManagementContext {
         } else {
             if (log.isDebugEnabled()) log.debug("{} starting management of entity {}", this, e);
             preManagedEntitiesById.remove(e.getId());
-            if (e instanceof Application) {
-                applications.add((Application)e);
-            }
-            entities.add(e);
             return true;
         }
     }
@@ -109,9 +105,7 @@ public class LocalManagementContext extends AbstractManagementContext {
     protected synchronized boolean unmanageNonRecursive(Entity e) {
         ((AbstractEntity)e).managementData = null;
         e.clearOwner();
-        if (e instanceof Application) applications.remove(e);
-        entities.remove(e);
-        Object old = entitiesById.remove(e.getId());
+        Object old = entityRegistry.unregister(e.getId());
         if (old==null) {
             log.warn("{} call to stop management of unknown entity (already unmanaged?) {}", this, e);
             return false;
@@ -126,20 +120,63 @@ public class LocalManagementContext extends AbstractManagementContext {
     }
 
     @Override
-    public synchronized Collection<Application> getApplications() {
-        return new ArrayList<Application>(applications);
+    protected synchronized void onEntitiesManaged(Collection<Entity> managed) {
+        if (managed.isEmpty()) return;
+        for (AsyncCollectionChangeAdapter<Entity> listener : entitySetListeners) {
+            listener.onItemsAdded(managed);
+        }
+        if (filteredEntitySetListeners != null) filteredEntitySetListeners.onItemsAdded(managed);
+    }
+
+    @Override
+    protected synchronized void onEntitiesUnmanaged(Collection<Entity> unmanaged) {
+        if (unmanaged.isEmpty()) return;
+        for (AsyncCollectionChangeAdapter<Entity> listener : entitySetListeners) {
+            listener.onItemsRemoved(unmanaged);
+        }
+        if (filteredEntitySetListeners != null) filteredEntitySetListeners.onItemsRemoved(unmanaged);
+    }
+
+    @Override
+    public Collection<Application> getApplications() {
+        return entityRegistry.getApplications();
     }
     
     @Override
-    public synchronized Collection<Entity> getEntities() {
-        return new ArrayList<Entity>(entitiesById.values());
+    public Collection<Entity> getEntities() {
+        return entityRegistry.getEntities();
     }
     
     @Override
     public Entity getEntity(String id) {
-        return entitiesById.get(id);
+        return entityRegistry.get(id);
 	}
     
+    @Override
+    public Collection<Entity> getEntitiesInApplication(String applicationId) {
+        return entityRegistry.getEntitiesInApplication(applicationId);
+    }
+    
+    @Override
+    public <T> Collection<T> getEntitiesOfType(Class<T> type) {
+        return entityRegistry.getEntitiesOfType(type);
+    }
+    
+    @Override
+    public Collection<Entity> getEntitiesInLocation(Location location) {
+        return entityRegistry.getEntitiesInLocation(location);
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesNamed(String displayName) {
+        return entityRegistry.getEntitiesNamed(displayName);
+    }
+
+    @Override
+    protected void onDisplayNameChanged(Entity e) {
+        entityRegistry.updateName(e);
+    }
+    
     @Override
     public synchronized  SubscriptionManager getSubscriptionManager() {
         if (!isRunning()) throw new IllegalStateException("Management context no longer running");
@@ -188,13 +225,26 @@ public class LocalManagementContext extends AbstractManagementContext {
     public void addEntitySetListener(CollectionChangeListener<Entity> listener) {
     	//must notify listener in a different thread to avoid deadlock (issue #378)
     	AsyncCollectionChangeAdapter<Entity> wrappedListener = new AsyncCollectionChangeAdapter<Entity>(getExecutionManager(), listener);
-        entities.addPropertyChangeListener(new GroovyObservablesPropertyChangeToCollectionChangeAdapter(wrappedListener));
+        entitySetListeners.add(wrappedListener);
     }
 
     @Override
     public void removeEntitySetListener(CollectionChangeListener<Entity> listener) {
     	AsyncCollectionChangeAdapter<Entity> wrappedListener = new AsyncCollectionChangeAdapter<Entity>(getExecutionManager(), listener);
-        entities.removePropertyChangeListener(new GroovyObservablesPropertyChangeToCollectionChangeAdapter(wrappedListener));
+        entitySetListeners.remove(wrappedListener);
+        if (filteredEntitySetListeners != null) filteredEntitySetListeners.remove(listener);
+    }
+    
+    /**
+     * The listener is told only about entities which could match the filter, where it is one of the
+     * indexable {@link brooklyn.entity.basic.EntityPredicates}; see {@link IndexedEntitySetListeners}.
+     */
+    @Override
+    public synchronized void addEntitySetListener(CollectionChangeListener<Entity> listener, Predicate<? super Entity> filter) {
+        if (filteredEntitySetListeners == null) {
+            filteredEntitySetListeners = new IndexedEntitySetListeners(getExecutionManager());
+        }
+        filteredEntitySetListeners.add(listener, filter);
     }
     
     @Override
@@ -12,6 +12,7 @@ import brooklyn.entity.Entity;
 import brooklyn.entity.basic.AbstractEntity;
 import brooklyn.entity.drivers.EntityDriverFactory;
 import brooklyn.entity.rebind.RebindManager;
+import brooklyn.location.Location;
 import brooklyn.location.LocationRegistry;
 import brooklyn.management.ExecutionContext;
 import brooklyn.management.ExecutionManager;
@@ -73,6 +74,26 @@ public class NonDeploymentManagementContext implements ManagementContext {
         return null;
     }
 
+    @Override
+    public Collection<Entity> getEntitiesInApplication(String applicationId) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public <T> Collection<T> getEntitiesOfType(Class<T> type) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesInLocation(Location location) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<Entity> getEntitiesNamed(String displayName) {
+        return Collections.emptyList();
+    }
+
     @Override
     public boolean isManaged(Entity entity) {
         return false;
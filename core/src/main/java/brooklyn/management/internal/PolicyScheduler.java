@@ -0,0 +1,360 @@
+package brooklyn.management.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.AbstractEntity;
+import brooklyn.management.ExecutionManager;
+import brooklyn.management.ManagementContext;
+import brooklyn.util.MutableList;
+import brooklyn.util.MutableMap;
+import brooklyn.util.task.BasicTask;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Runs the delayed and periodic jobs of policies (and of entities with similar housekeeping,
+ * e.g. rebalancing or debounced resizing), so that they share a single timer thread per
+ * management context rather than each holding its own single-threaded executor.
+ * <p>
+ * Jobs are keyed (typically by policy id); jobs with the same key run one at a time, in the order in
+ * which they became due, preserving the semantics of a per-policy single-threaded executor.
+ * This holds across {@link #cancel(String)}: jobs scheduled again for the key (e.g. when a policy is resumed)
+ * do not start until a job still running from before the cancel has completed.
+ * When due, jobs are run in a task submitted to the {@link ExecutionManager}, tagged with the entity.
+ * Execution times are recorded per key, see {@link #getStats(String)}.
+ * <p>
+ * Entities which are not (yet) managed use a scheduler shared across the JVM,
+ * see {@link #forEntity(Entity)}.
+ */
+public class PolicyScheduler {
+
+    protected static final Logger LOG = LoggerFactory.getLogger(PolicyScheduler.class);
+
+    private static PolicyScheduler unmanagedInstance;
+
+    /**
+     * Returns the scheduler for jobs concerning the given entity: that of its management context if it
+     * is managed, otherwise one shared by all unmanaged entities.
+     */
+    public static PolicyScheduler forEntity(Entity entity) {
+        if (entity instanceof AbstractEntity) {
+            EntityManagementSupport support = ((AbstractEntity)entity).getManagementSupport();
+            if (support.isManagementContextReal()) {
+                ManagementContext mgmt = support.getManagementContext(false);
+                if (mgmt instanceof AbstractManagementContext && ((AbstractManagementContext)mgmt).isRunning()) {
+                    return ((AbstractManagementContext)mgmt).getPolicyScheduler();
+                }
+            }
+        }
+        return getUnmanagedInstance();
+    }
+
+    /** the scheduler used for entities not attached to a management context */
+    public static synchronized PolicyScheduler getUnmanagedInstance() {
+        if (unmanagedInstance == null) {
+            final ExecutorService runner = Executors.newCachedThreadPool(newDaemonThreadFactory("brooklyn-policy-runner"));
+            unmanagedInstance = new PolicyScheduler(new Executor() {
+                    @Override public void execute(Runnable command) {
+                        runner.execute(command);
+                    }});
+        }
+        return unmanagedInstance;
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }};
+    }
+
+    private final ExecutionManager executionManager;
+    private final Executor fallbackExecutor;
+    private final ScheduledExecutorService timer;
+
+    private final ConcurrentMap<String, JobQueue> queues = new ConcurrentHashMap<String, JobQueue>();
+    private final ConcurrentMap<String, PolicyStats> stats = new ConcurrentHashMap<String, PolicyStats>();
+    /** cancelled queues whose drain was still running when cancelled, by key */
+    private final ConcurrentMap<String, JobQueue> draining = new ConcurrentHashMap<String, JobQueue>();
+
+    public PolicyScheduler(ExecutionManager executionManager) {
+        this(Preconditions.checkNotNull(executionManager, "executionManager"), null);
+    }
+
+    private PolicyScheduler(Executor executor) {
+        this(null, executor);
+    }
+
+    private PolicyScheduler(ExecutionManager executionManager, Executor fallbackExecutor) {
+        this.executionManager = executionManager;
+        this.fallbackExecutor = fallbackExecutor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("brooklyn-policy-scheduler"));
+    }
+
+    public void shutdownNow() {
+        timer.shutdownNow();
+        for (JobQueue queue : queues.values()) {
+            queue.cancel();
+        }
+        queues.clear();
+        draining.clear();
+    }
+
+    /**
+     * Runs the given job once, after the given delay.
+     *
+     * @param key     jobs with the same key run one at a time (typically the policy id); also the key for statistics
+     * @param entity  the entity the job concerns; its task is tagged with this entity
+     */
+    public void schedule(String key, Entity entity, long delayMs, Runnable job) {
+        getQueue(key, entity).schedule(job, delayMs, -1);
+    }
+
+    /**
+     * Runs the given job repeatedly, first after {@code initialDelayMs} and then {@code periodMs} after
+     * each run completes, until {@link #cancel(String) cancelled}.
+     *
+     * @see #schedule(String, Entity, long, Runnable)
+     */
+    public void scheduleWithFixedDelay(String key, Entity entity, long initialDelayMs, long periodMs, Runnable job) {
+        Preconditions.checkArgument(periodMs > 0, "period must be positive");
+        getQueue(key, entity).schedule(job, initialDelayMs, periodMs);
+    }
+
+    /**
+     * Cancels all pending jobs with the given key, and discards its statistics.
+     * A job already running is allowed to complete; jobs scheduled for the key afterwards wait for it.
+     */
+    public void cancel(String key) {
+        JobQueue queue = queues.remove(key);
+        if (queue != null) queue.cancel();
+        stats.remove(key);
+    }
+
+    /** execution time statistics for the jobs with the given key, or null if none have run */
+    public PolicyStats getStats(String key) {
+        return stats.get(key);
+    }
+
+    /** execution time statistics, keyed by job key */
+    public Map<String, PolicyStats> getStats() {
+        return ImmutableMap.copyOf(stats);
+    }
+
+    private JobQueue getQueue(String key, Entity entity) {
+        Preconditions.checkNotNull(key, "key");
+        JobQueue result = queues.get(key);
+        if (result == null) {
+            JobQueue candidate = new JobQueue(key, entity);
+            result = queues.putIfAbsent(key, candidate);
+            if (result == null) result = candidate;
+        }
+        return result;
+    }
+
+    private PolicyStats getStatsFor(String key) {
+        PolicyStats result = stats.get(key);
+        if (result == null) {
+            PolicyStats candidate = new PolicyStats();
+            result = stats.putIfAbsent(key, candidate);
+            if (result == null) result = candidate;
+        }
+        return result;
+    }
+
+    /** the pending and due jobs for one key; due jobs are run one at a time */
+    private class JobQueue {
+        final String key;
+        final Entity entity;
+        final Set<ScheduledFuture<?>> timers = new CopyOnWriteArraySet<ScheduledFuture<?>>();
+        final Deque<Runnable> due = new ArrayDeque<Runnable>();
+        boolean running;
+        volatile boolean cancelled;
+        /** the queue which replaced this one after it was cancelled, waiting for this one's drain to finish */
+        JobQueue successor;
+
+        JobQueue(String key, Entity entity) {
+            this.key = key;
+            this.entity = entity;
+        }
+
+        void schedule(final Runnable job, long delayMs, final long periodMs) {
+            if (cancelled) {
+                // raced with cancel; start a fresh queue for this key
+                getQueue(key, entity).schedule(job, delayMs, periodMs);
+                return;
+            }
+            final FutureHolder holder = new FutureHolder();
+            ScheduledFuture<?> timerFuture = timer.schedule(new Runnable() {
+                    @Override public void run() {
+                        timers.remove(holder.future);
+                        onDue(job, periodMs);
+                    }},
+                    Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            holder.future = timerFuture;
+            timers.add(timerFuture);
+            if (timerFuture.isDone()) timers.remove(timerFuture);
+        }
+
+        void onDue(Runnable job, final long periodMs) {
+            boolean dispatch;
+            final Runnable toQueue = (periodMs <= 0) ? job : new PeriodicJob(job, periodMs);
+            synchronized (this) {
+                if (cancelled) return;
+                due.addLast(toQueue);
+                dispatch = !running;
+                running = true;
+            }
+            if (dispatch) {
+                JobQueue predecessor = draining.get(key);
+                if (predecessor != null && predecessor != this && predecessor.handOver(this)) return;
+                dispatch();
+            }
+        }
+
+        /** if still draining, takes the given queue to dispatch once done and returns true; otherwise returns false */
+        synchronized boolean handOver(JobQueue next) {
+            if (!running) return false;
+            successor = next;
+            return true;
+        }
+
+        private void dispatch() {
+            Runnable drain = new Runnable() {
+                @Override public void run() {
+                    drain();
+                }};
+            try {
+                if (executionManager != null) {
+                    executionManager.submit(MutableMap.of(), new BasicTask<Void>(
+                            MutableMap.of("displayName", "scheduled "+key, "tags", MutableList.of(entity)), drain));
+                } else {
+                    fallbackExecutor.execute(drain);
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    running = false;
+                }
+                LOG.warn("Unable to submit scheduled job for "+key+" ("+entity+")", e);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Runnable next;
+                JobQueue waiting = null;
+                synchronized (this) {
+                    next = cancelled ? null : due.pollFirst();
+                    if (next == null) {
+                        running = false;
+                        waiting = successor;
+                        successor = null;
+                    }
+                }
+                if (next == null) {
+                    if (cancelled) draining.remove(key, this);
+                    if (waiting != null) waiting.dispatch();
+                    return;
+                }
+                PolicyStats jobStats = getStatsFor(key);
+                long start = System.currentTimeMillis();
+                boolean failed = false;
+                try {
+                    next.run();
+                } catch (Throwable t) {
+                    failed = true;
+                    LOG.warn("Error executing scheduled job for "+key+" ("+entity+")", t);
+                } finally {
+                    jobStats.record(System.currentTimeMillis() - start, failed);
+                }
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            for (Iterator<ScheduledFuture<?>> it = timers.iterator(); it.hasNext();) {
+                it.next().cancel(false);
+            }
+            timers.clear();
+            synchronized (this) {
+                due.clear();
+                if (running) draining.put(key, this);
+            }
+        }
+
+        /** runs the job, then schedules it again after its period */
+        private class PeriodicJob implements Runnable {
+            final Runnable job;
+            final long periodMs;
+
+            PeriodicJob(Runnable job, long periodMs) {
+                this.job = job;
+                this.periodMs = periodMs;
+            }
+
+            @Override public void run() {
+                try {
+                    job.run();
+                } finally {
+                    if (!cancelled) JobQueue.this.schedule(job, periodMs, periodMs);
+                }
+            }
+        }
+    }
+
+    private static class FutureHolder {
+        volatile ScheduledFuture<?> future;
+    }
+
+    /** execution counts and times for the jobs of one key */
+    public static class PolicyStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong totalTime = new AtomicLong();
+        final AtomicLong maxTime = new AtomicLong();
+        volatile long lastTime;
+
+        void record(long timeMs, boolean failed) {
+            count.incrementAndGet();
+            if (failed) failures.incrementAndGet();
+            totalTime.addAndGet(timeMs);
+            lastTime = timeMs;
+            long max;
+            while (timeMs > (max = maxTime.get()) && !maxTime.compareAndSet(max, timeMs)) {}
+        }
+
+        public long getCount() { return count.get(); }
+        public long getFailures() { return failures.get(); }
+        public long getTotalTime() { return totalTime.get(); }
+        public long getMaxTime() { return maxTime.get(); }
+        public long getLastTime() { return lastTime; }
+        public double getMeanTime() { long c = count.get(); return c==0 ? 0 : ((double)totalTime.get())/c; }
+
+        @Override
+        public String toString() {
+            return "PolicyStats[count="+getCount()+"; failures="+getFailures()+"; meanTime="+getMeanTime()+"ms; maxTime="+getMaxTime()+"ms]";
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package brooklyn.management.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
+import brooklyn.entity.Entity;
+import brooklyn.event.basic.BasicConfigKey;
+import brooklyn.management.ExecutionManager;
+import brooklyn.management.Task;
+import brooklyn.util.MutableList;
+import brooklyn.util.MutableMap;
+import brooklyn.util.exceptions.Exceptions;
+import brooklyn.util.task.BasicTask;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Owns the schedules of all sensor polls in a management context, so that they
+ * are driven from a single thread rather than a scheduled task per adapter per entity.
+ * <p>
+ * Schedules are held in a hashed timing wheel, ticking every {@link #TICK_PERIOD} ms.
+ * Each poll is given a deterministic offset within its period (derived from the key it is
+ * scheduled with), so that polls with the same period do not all fire in lock-step.
+ * When due, a poll is submitted as a task to the {@link ExecutionManager}, tagged with its entity.
+ * A poll is only rescheduled once its run completes, so runs of the same poll never overlap;
+ * a run taking longer than the period counts as an overrun.
+ * At most {@link #MAX_CONCURRENT_PER_HOST} polls run at once against any one target host;
+ * a poll which cannot get a slot is deferred to the next tick, counting once as a deferral
+ * however many ticks it waits.
+ * <p>
+ * Latency, overrun and deferral statistics are kept per poll type (typically the adapter type),
+ * see {@link #getStats()}.
+ * <p>
+ * Disabled by default; set {@link #ENABLED} to route sensor adapter polls through it.
+ */
+public class PollScheduler {
+
+    protected static final Logger LOG = LoggerFactory.getLogger(PollScheduler.class);
+
+    public static final ConfigKey<Boolean> ENABLED = new BasicConfigKey<Boolean>(
+            Boolean.class, "brooklyn.poll.scheduler.enabled",
+            "whether sensor adapter polls should be scheduled by the management-wide poll scheduler", false);
+
+    public static final ConfigKey<Long> TICK_PERIOD = new BasicConfigKey<Long>(
+            Long.class, "brooklyn.poll.scheduler.tick", "the resolution, in milliseconds, of the poll scheduler", 50L);
+
+    public static final ConfigKey<Integer> WHEEL_SIZE = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.poll.scheduler.wheelSize", "the number of buckets in the poll scheduler's timing wheel", 512);
+
+    public static final ConfigKey<Integer> MAX_CONCURRENT_PER_HOST = new BasicConfigKey<Integer>(
+            Integer.class, "brooklyn.poll.scheduler.maxConcurrentPerHost",
+            "the maximum number of polls which may run at once against a single target host", 4);
+
+    /** upper bounds (in ms) of the latency histogram buckets; the last bucket is unbounded */
+    public static final long[] LATENCY_BUCKETS = new long[] { 10, 50, 100, 500, 1000, 5000, 10000 };
+
+    private final ExecutionManager executionManager;
+    private final ScheduledExecutorService executor;
+    private final long tickMs;
+    private final int maxConcurrentPerHost;
+
+    private final List<ScheduledPoll>[] wheel;
+    private long tickCount = 0;
+    private final Object wheelLock = new Object();
+
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<String, Semaphore>();
+    private final ConcurrentMap<String, PollStats> stats = new ConcurrentHashMap<String, PollStats>();
+
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public PollScheduler(StringConfigMap config, ExecutionManager executionManager) {
+        this.executionManager = Preconditions.checkNotNull(executionManager, "executionManager");
+        this.tickMs = config.getConfig(TICK_PERIOD);
+        this.maxConcurrentPerHost = config.getConfig(MAX_CONCURRENT_PER_HOST);
+        int wheelSize = config.getConfig(WHEEL_SIZE);
+        this.wheel = new List[wheelSize];
+        for (int i=0; i<wheelSize; i++) wheel[i] = new LinkedList<ScheduledPoll>();
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "brooklyn-poll-scheduler");
+                    t.setDaemon(true);
+                    return t;
+                }});
+        executor.scheduleAtFixedRate(
+            new Runnable() {
+                @Override public void run() {
+                    try {
+                        tick();
+                    } catch (Throwable t) {
+                        LOG.warn("Error in poll scheduler tick", t);
+                    }
+                }
+            },
+            tickMs,
+            tickMs,
+            TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdownNow() {
+        running = false;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Schedules the given job to be run every {@code periodMs} against the given entity.
+     *
+     * @param entity  entity the poll is for; polls run in tasks tagged with this entity
+     * @param type    type of poll, for statistics (e.g. the adapter class name)
+     * @param host    target host for concurrency limiting, or null if not limited
+     * @param jitterKey  key from which the offset of the poll within its period is derived;
+     *                   should be stable for a given poll (e.g. entity id and sensor names)
+     * @param periodMs   period between polls; may be changed subsequently with {@link ScheduledPoll#setPeriod(long)}
+     * @param job     the poll to run
+     */
+    public ScheduledPoll schedule(Entity entity, String type, String host, String jitterKey, long periodMs, Runnable job) {
+        Preconditions.checkArgument(periodMs > 0, "period must be positive");
+        ScheduledPoll result = new ScheduledPoll(entity, type, host, periodMs, job);
+        long offset = (jitterKey.hashCode() & Integer.MAX_VALUE) % periodMs;
+        insert(result, offset);
+        if (LOG.isDebugEnabled()) LOG.debug("{} scheduled poll {} (period {}ms, offset {}ms)", new Object[] {this, result, periodMs, offset});
+        return result;
+    }
+
+    /** returns statistics for each type of poll; the map is live */
+    public Map<String, PollStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    public PollStats getStats(String type) {
+        PollStats result = stats.get(type);
+        if (result==null) {
+            stats.putIfAbsent(type, new PollStats());
+            result = stats.get(type);
+        }
+        return result;
+    }
+
+    private void insert(ScheduledPoll poll, long delayMs) {
+        long ticks = Math.max(1, (delayMs + tickMs - 1) / tickMs);
+        synchronized (wheelLock) {
+            long target = tickCount + ticks;
+            poll.rounds = (ticks - 1) / wheel.length;
+            wheel[(int)(target % wheel.length)].add(poll);
+        }
+    }
+
+    /** advances the wheel one slot, dispatching every poll in that slot which is due */
+    protected void tick() {
+        if (!running) return;
+        List<ScheduledPoll> due = new ArrayList<ScheduledPoll>();
+        synchronized (wheelLock) {
+            tickCount++;
+            Iterator<ScheduledPoll> bucket = wheel[(int)(tickCount % wheel.length)].iterator();
+            while (bucket.hasNext()) {
+                ScheduledPoll poll = bucket.next();
+                if (poll.cancelled) {
+                    bucket.remove();
+                } else if (poll.rounds > 0) {
+                    poll.rounds--;
+                } else {
+                    bucket.remove();
+                    due.add(poll);
+                }
+            }
+        }
+        for (ScheduledPoll poll : due) {
+            dispatch(poll);
+        }
+    }
+
+    private void dispatch(final ScheduledPoll poll) {
+        if (poll.cancelled) return;
+        final PollStats pollStats = getStats(poll.type);
+        final Semaphore permits = (poll.host != null) ? getHostPermits(poll.host) : null;
+        if (permits != null && !permits.tryAcquire()) {
+            // host is saturated; try again shortly, counting the deferral only once for this period
+            if (!poll.deferred) {
+                poll.deferred = true;
+                pollStats.deferrals.incrementAndGet();
+            }
+            insert(poll, tickMs);
+            return;
+        }
+        poll.deferred = false;
+        final long scheduledTime = System.currentTimeMillis();
+        try {
+            Task<?> task = new BasicTask<Void>(MutableMap.of("displayName", "poll "+poll.type, "tags", MutableList.of(poll.entity)),
+                    new Runnable() {
+                        @Override public void run() {
+                            try {
+                                poll.job.run();
+                            } finally {
+                                long elapsed = System.currentTimeMillis() - scheduledTime;
+                                pollStats.record(elapsed);
+                                if (elapsed > poll.periodMs) pollStats.overruns.incrementAndGet();
+                                if (permits != null) permits.release();
+                                if (!poll.cancelled && running) insert(poll, Math.max(tickMs, poll.periodMs - elapsed));
+                            }
+                        }});
+            executionManager.submit(MutableMap.of(), task);
+        } catch (Exception e) {
+            if (permits != null) permits.release();
+            if (running) {
+                LOG.warn("Unable to submit poll "+poll+"; will retry next period", e);
+                insert(poll, poll.periodMs);
+            } else {
+                throw Exceptions.propagate(e);
+            }
+        }
+    }
+
+    private Semaphore getHostPermits(String host) {
+        Semaphore result = hostPermits.get(host);
+        if (result==null) {
+            hostPermits.putIfAbsent(host, new Semaphore(maxConcurrentPerHost));
+            result = hostPermits.get(host);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PollScheduler";
+    }
+
+    /** handle on a poll scheduled with {@link PollScheduler#schedule(Entity, String, String, String, long, Runnable)} */
+    public static class ScheduledPoll {
+        final Entity entity;
+        final String type;
+        final String host;
+        final Runnable job;
+        volatile long periodMs;
+        volatile boolean cancelled = false;
+        // only accessed by the scheduler thread
+        boolean deferred = false;
+        // guarded by the wheel lock
+        long rounds;
+
+        ScheduledPoll(Entity entity, String type, String host, long periodMs, Runnable job) {
+            this.entity = entity;
+            this.type = type;
+            this.host = host;
+            this.periodMs = periodMs;
+            this.job = job;
+        }
+
+        public long getPeriod() {
+            return periodMs;
+        }
+
+        /** changes the period; takes effect after the next run */
+        public void setPeriod(long periodMs) {
+            Preconditions.checkArgument(periodMs > 0, "period must be positive");
+            this.periodMs = periodMs;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public String toString() {
+            return "ScheduledPoll["+type+"@"+entity+(host!=null ? "->"+host : "")+"]";
+        }
+    }
+
+    /** latency histogram, overrun and deferral counts for one type of poll */
+    public static class PollStats {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong overruns = new AtomicLong();
+        final AtomicLong deferrals = new AtomicLong();
+        final AtomicLong totalLatency = new AtomicLong();
+        final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS.length+1);
+
+        void record(long latencyMs) {
+            count.incrementAndGet();
+            totalLatency.addAndGet(latencyMs);
+            int i = 0;
+            while (i < LATENCY_BUCKETS.length && latencyMs > LATENCY_BUCKETS[i]) i++;
+            latencyBuckets.incrementAndGet(i);
+        }
+
+        public long getCount() { return count.get(); }
+        /** number of runs which took longer than the poll's period */
+        public long getOverruns() { return overruns.get(); }
+        /** number of periods in which a run was delayed because its target host was saturated */
+        public long getDeferrals() { return deferrals.get(); }
+        public double getMeanLatency() { long c = count.get(); return c==0 ? 0 : ((double)totalLatency.get())/c; }
+
+        /** counts per latency bucket, keyed by the upper bound (in ms) of each bucket, with the last keyed by {@link Long#MAX_VALUE} */
+        public Map<Long, Long> getLatencyHistogram() {
+            ImmutableMap.Builder<Long, Long> result = ImmutableMap.builder();
+            for (int i=0; i<LATENCY_BUCKETS.length; i++) result.put(LATENCY_BUCKETS[i], latencyBuckets.get(i));
+            result.put(Long.MAX_VALUE, latencyBuckets.get(LATENCY_BUCKETS.length));
+            return result.build();
+        }
+
+        @Override
+        public String toString() {
+            return "PollStats[count="+getCount()+"; overruns="+getOverruns()+"; deferrals="+getDeferrals()+"; meanLatency="+getMeanLatency()+"ms]";
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import brooklyn.entity.rebind.BasicPolicyRebindSupport;
 import brooklyn.entity.rebind.RebindSupport;
 import brooklyn.management.ExecutionContext;
+import brooklyn.management.internal.PolicyScheduler;
 import brooklyn.mementos.PolicyMemento;
 import brooklyn.policy.Policy;
 import brooklyn.util.flags.FlagUtils;
@@ -33,6 +34,9 @@ public abstract class AbstractPolicy extends AbstractEntityAdjunct implements Po
 
     protected transient ExecutionContext execution;
 
+    // the scheduler last used for this policy's jobs (that of the management context once the entity is managed)
+    private transient volatile PolicyScheduler usedScheduler;
+
     public AbstractPolicy() {
         this(Collections.emptyMap());
     }
@@ -68,6 +72,7 @@ public abstract class AbstractPolicy extends AbstractEntityAdjunct implements Po
     
     public void suspend() {
         suspended.set(true);
+        cancelScheduled();
     }
 
     public void resume() {
@@ -89,6 +94,28 @@ public abstract class AbstractPolicy extends AbstractEntityAdjunct implements Po
         return !isSuspended() && !isDestroyed();
     }
 
+    /**
+     * Runs the given job after the given delay, on the {@link PolicyScheduler} for this policy's entity.
+     * Jobs scheduled by a policy run one at a time; they are cancelled when the policy is suspended.
+     */
+    protected void schedule(Runnable job, long delayMs) {
+        PolicyScheduler scheduler = PolicyScheduler.forEntity(entity);
+        usedScheduler = scheduler;
+        scheduler.schedule(getId(), entity, delayMs, job);
+    }
+
+    /** cancels jobs pending from {@link #schedule(Runnable, long)} */
+    protected void cancelScheduled() {
+        PolicyScheduler scheduler = usedScheduler;
+        if (scheduler != null) scheduler.cancel(getId());
+    }
+
+    /** execution statistics for this policy's scheduled jobs, or null if none have run */
+    public PolicyScheduler.PolicyStats getScheduledJobStats() {
+        PolicyScheduler scheduler = usedScheduler;
+        return (scheduler != null) ? scheduler.getStats(getId()) : null;
+    }
+
     @Override
     public RebindSupport<PolicyMemento> getRebindSupport() {
         return new BasicPolicyRebindSupport(this);
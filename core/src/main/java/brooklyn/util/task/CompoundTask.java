@@ -5,7 +5,9 @@ import groovy.lang.Closure;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
@@ -47,7 +49,17 @@ public abstract class CompoundTask<T> extends BasicTask<List<T>> {
      * @throws IllegalArgumentException if any of the passed child jobs is not one of the above types 
      */
     public CompoundTask(Collection<?> jobs) {
-        super( MutableMap.of("tag", "compound"));
+        this(MutableMap.of("tag", "compound"), jobs);
+    }
+    
+    /**
+     * Constructs a new compound task containing the specified units of work, with the given flags
+     * (as for {@link BasicTask}, e.g. displayName and tags; it is always also tagged "compound").
+     * 
+     * @see #CompoundTask(Collection)
+     */
+    public CompoundTask(Map<String,?> flags, Collection<?> jobs) {
+        super(compoundFlags(flags));
         super.job = new Callable<List<T>>() {
             @Override public List<T> call() throws Exception {
                 return runJobs();
@@ -67,23 +79,39 @@ public abstract class CompoundTask<T> extends BasicTask<List<T>> {
         }
     }
 
+    private static Map<String,Object> compoundFlags(Map<String,?> flags) {
+        Map<String,Object> result = new LinkedHashMap<String,Object>(flags);
+        List<Object> tags = new ArrayList<Object>();
+        Object ftags = result.get("tags");
+        if (ftags instanceof Collection) tags.addAll((Collection<?>) ftags);
+        else if (ftags != null) tags.add(ftags);
+        if (!"compound".equals(result.get("tag"))) tags.add("compound");
+        result.put("tags", tags);
+        return result;
+    }
+
     /** return value needs to be specified by subclass; subclass should also setBlockingDetails 
      * @throws ExecutionException 
      * @throws InterruptedException */    
     protected abstract List<T> runJobs() throws InterruptedException, ExecutionException;
     
-    @SuppressWarnings("deprecation")
     protected void submitIfNecessary(Task<?> task) {
+        submitIfNecessary(new LinkedHashMap<String,Object>(), task);
+    }
+    
+    /** as {@link #submitIfNecessary(Task)}, with flags for the submission (e.g. newTaskEndCallback) */
+    @SuppressWarnings("deprecation")
+    protected void submitIfNecessary(Map<String,?> flags, Task<?> task) {
         if (!task.isSubmitted()) {
             if (BasicExecutionContext.getCurrentExecutionContext() == null) {
                 if (em!=null) {
                     log.warn("Discouraged submission of compound task ({}) from {} without execution context; using execution manager", task, this);
-                    em.submit(task);
+                    em.submit(flags, task);
                 } else {
                     throw new IllegalStateException("Compound task ("+task+") launched from "+this+" missing required execution context");
                 }
             } else {
-                BasicExecutionContext.getCurrentExecutionContext().submit(task);
+                BasicExecutionContext.getCurrentExecutionContext().submit(flags, task);
             }
         }
     }
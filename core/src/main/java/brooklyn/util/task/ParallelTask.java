@@ -3,11 +3,19 @@ package brooklyn.util.task;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import brooklyn.management.Task;
+import brooklyn.util.MutableMap;
 
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 
 /**
  * Runs {@link Task}s in parallel.
@@ -17,16 +25,39 @@ import com.google.common.collect.ImmutableList;
  * order they were passed as arguments.
  */
 public class ParallelTask<T> extends CompoundTask<T> {
+    /** how often to check for children which ended without notifying us (e.g. cancelled before starting) */
+    private static final long SLOT_CHECK_PERIOD_MILLIS = 1000;
+    
+    private int maxConcurrency = 0;
+
     public ParallelTask(Object... tasks) { super(tasks); }
     public ParallelTask(Collection<? extends Object> tasks) { super(tasks); }
     public ParallelTask(Iterable<? extends Object> tasks) { super(ImmutableList.copyOf(tasks)); }
 
+    /**
+     * As {@link #ParallelTask(Collection)}, with flags as for {@link BasicTask} (e.g. displayName and tags), and also:
+     * <ul>
+     * <li>maxConcurrency - the maximum number of tasks to run at once (default unlimited);
+     *     tasks are then started in order, each as soon as any running task has ended
+     * </ul>
+     */
+    public ParallelTask(Map<String,?> flags, Collection<? extends Object> tasks) {
+        super(flags, tasks);
+        Object max = flags.get("maxConcurrency");
+        if (max != null) maxConcurrency = Integer.parseInt(max.toString());
+    }
+
     protected List<T> runJobs() throws InterruptedException, ExecutionException {
+        boolean limited = maxConcurrency > 0 && maxConcurrency < children.size();
         setBlockingDetails("Executing "+
                 (children.size()==1 ? "1 child task" :
-                children.size()+" children tasks in parallel") );
-        for (Task<? extends T> task : children) {
-            submitIfNecessary(task);
+                children.size()+" children tasks in parallel"+(limited ? " (at most "+maxConcurrency+" at once)" : "")) );
+        if (limited) {
+            submitWithinWindow();
+        } else {
+            for (Task<? extends T> task : children) {
+                submitIfNecessary(task);
+            }
         }
 
         List<T> result = new ArrayList<T>();
@@ -35,4 +66,26 @@ public class ParallelTask<T> extends CompoundTask<T> {
         }
         return result;
     }
+
+    /** submits the children in order, keeping at most maxConcurrency of them running at once */
+    private void submitWithinWindow() throws InterruptedException {
+        final Semaphore slots = new Semaphore(maxConcurrency);
+        // children holding a slot; whoever removes a child from here releases its slot
+        final Set<Task<?>> holding = Sets.newSetFromMap(new ConcurrentHashMap<Task<?>, Boolean>());
+        Function<Object, Void> onChildEnded = new Function<Object, Void>() {
+            public Void apply(Object task) {
+                if (holding.remove(task)) slots.release();
+                return null;
+            }};
+        for (Task<? extends T> task : children) {
+            if (task.isSubmitted()) continue; // already running outside our control
+            while (!slots.tryAcquire(SLOT_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS)) {
+                for (Task<?> t : holding) {
+                    if (t.isDone()) onChildEnded.apply(t);
+                }
+            }
+            holding.add(task);
+            submitIfNecessary(MutableMap.of("newTaskEndCallback", onChildEnded), task);
+        }
+    }
 }
@@ -155,6 +155,42 @@ public class DynamicGroupTest {
         }
     }
     
+    @Test
+    public void testGroupWithIndexedTypeFilterDetectsManagedAndUnmanagedEntities() {
+        group.setEntityFilter(EntityPredicates.isInstanceOf(TestEntity))
+        assertEquals(group.getMembers() as Set, [e1, e2] as Set)
+        
+        TestEntity e3 = new TestEntity(owner:app)
+        app.manage(e3)
+        executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertEquals(group.getMembers() as Set, [e1, e2, e3] as Set)
+        }
+        
+        app.getManagementContext().unmanage(e3)
+        executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertEquals(group.getMembers() as Set, [e1, e2] as Set)
+        }
+    }
+    
+    @Test
+    public void testGroupWithIndexedConfigFilterOnlyAddsEntitiesWithThatValue() {
+        group.setEntityFilter(EntityPredicates.configEqualTo(TestEntity.CONF_NAME, "special"))
+        assertEquals(group.getMembers(), [])
+        
+        TestEntity e3 = new TestEntity()
+        e3.setConfig(TestEntity.CONF_NAME, "special")
+        e3.setOwner(app)
+        TestEntity e4 = new TestEntity(owner:app)
+        app.manage(e3)
+        app.manage(e4)
+        executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertEquals(group.getMembers(), [e3])
+        }
+        assertSucceedsContinually(timeout:VERY_SHORT_WAIT_MS) {
+            assertEquals(group.getMembers(), [e3])
+        }
+    }
+    
     @Test
     public void testStoppedGroupIgnoresComingAndGoingsOfEntities() {
         Entity e3 = new AbstractEntity() {}
@@ -1,6 +1,8 @@
 package brooklyn.event.adapter;
 
 import static org.testng.Assert.assertEquals
+import static org.testng.Assert.assertFalse
+import static org.testng.Assert.assertTrue
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test
@@ -105,6 +107,37 @@ public class FunctionSensorAdapterTest {
         assertEquals(entity.getAttribute(EXTRA_NAME), "81");
     }
 
+    @Test
+    public void testChangesInChainedFunctionsAndListenersCountForAdaptivePeriod() {
+        adapter = new FunctionSensorAdapter(period: 100*TimeUnit.MILLISECONDS, maxPeriod: 400*TimeUnit.MILLISECONDS);
+        entityRegistry.register(adapter);
+        adapter.then({ 2*it }).then({ "try${it}" }).poll(TestEntity.NAME);
+        assertTrue(adapter.poller.isAdaptive());
+        
+        adapter.poller.evaluateSensorsOnResponse(new SingleValueResponseContext(value: 1));
+        assertTrue(adapter.poller.valuesChanged);
+        assertEquals(entity.getAttribute(TestEntity.NAME), "try2");
+        
+        adapter.poller.valuesChanged = false;
+        adapter.poller.evaluateSensorsOnResponse(new SingleValueResponseContext(value: 1));
+        assertFalse(adapter.poller.valuesChanged);
+        
+        adapter.poller.evaluateSensorsOnResponse(new SingleValueResponseContext(value: 2));
+        assertTrue(adapter.poller.valuesChanged);
+        assertEquals(entity.getAttribute(TestEntity.NAME), "try4");
+        
+        List received = []
+        adapter.poller.addListener({ received << it });
+        adapter.poller.valuesChanged = false;
+        adapter.poller.evaluateSensorsOnResponse(new SingleValueResponseContext(value: 2));
+        assertTrue(adapter.poller.valuesChanged);
+        
+        adapter.poller.valuesChanged = false;
+        adapter.poller.evaluateSensorsOnResponse(new SingleValueResponseContext(value: 2));
+        assertFalse(adapter.poller.valuesChanged);
+        assertEquals(received, [2, 2]);
+    }
+
     Map takeSample() {
         Map result = [:]
         result.seq = inc();
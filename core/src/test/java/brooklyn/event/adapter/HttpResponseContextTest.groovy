@@ -30,6 +30,12 @@ public class HttpResponseContextTest {
 		assertEquals(SIMPLE_RESPONSE.evaluate({ headers.foo }), "1");
 	}
 
+	@Test
+	public void testHeaderCaseInsensitive() {
+		assertEquals(SIMPLE_RESPONSE.getHeader("FOO"), "1");
+		assertEquals(SIMPLE_RESPONSE.getHeader("baz"), null);
+	}
+
 	@Test
 	public void testHeaderNoneSuch() {
 		assertEquals(SIMPLE_RESPONSE.evaluate({ headers.baz }), null);
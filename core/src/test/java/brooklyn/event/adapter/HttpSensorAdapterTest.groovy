@@ -4,6 +4,10 @@ import static brooklyn.event.adapter.HttpResponseContextTest.*
 import static org.codehaus.groovy.runtime.DefaultGroovyMethods.with
 import static org.testng.Assert.*
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
+
 import org.testng.annotations.AfterMethod
 import org.testng.annotations.BeforeMethod
 import org.testng.annotations.Test
@@ -15,6 +19,10 @@ import brooklyn.test.TestUtils
 import brooklyn.test.entity.TestApplication
 import brooklyn.test.entity.TestEntity
 
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+
 public class HttpSensorAdapterTest {
 
 	final static BasicAttributeSensor SENSOR_STRING = [String.class, "aString", ""];
@@ -68,6 +76,83 @@ public class HttpSensorAdapterTest {
 		//string in header should be be automatically converted to long
 		assertEquals entity.getAttribute(SENSOR_LONG), 8
 	}
+
+	@Test
+	public void testConditionalSkipsReevaluationOfSameResponse() {
+		HttpSensorAdapter conditional = registry.register(new HttpSensorAdapter("http://bogus.url.is.definitely.wrong.efaege3", conditionalGet:true))
+		conditional.poll(SENSOR_STRING) { content }
+		conditional.poller.evaluateSensorsOnResponse(SIMPLE_RESPONSE);
+		assertEquals entity.getAttribute(SENSOR_STRING), "A TEST"
+
+		entity.setAttribute(SENSOR_STRING, "changed")
+		conditional.poller.evaluateSensorsOnResponse(SIMPLE_RESPONSE);
+		assertEquals entity.getAttribute(SENSOR_STRING), "changed"
+
+		conditional.poller.evaluateSensorsOnResponse(JSON_RESPONSE);
+		assertEquals entity.getAttribute(SENSOR_STRING), JSON_RESPONSE.content
+	}
+
+	@Test
+	public void testConditionalGetSendsValidatorsAndReusesResponseWhenNotModified() {
+		final String lastModified = "Mon, 01 Oct 2012 00:00:00 GMT"
+		AtomicReference<String> etag = new AtomicReference<String>('"v1"')
+		List<List<String>> validatorsReceived = new CopyOnWriteArrayList<List<String>>()
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+		server.createContext("/", { HttpExchange exchange ->
+			String ifNoneMatch = exchange.requestHeaders.getFirst("If-None-Match")
+			validatorsReceived.add([ifNoneMatch, exchange.requestHeaders.getFirst("If-Modified-Since")])
+			if (etag.get().equals(ifNoneMatch)) {
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1)
+			} else {
+				byte[] body = ("content "+etag.get()).getBytes()
+				exchange.responseHeaders.add("ETag", etag.get())
+				exchange.responseHeaders.add("Last-Modified", lastModified)
+				exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, body.length)
+				exchange.responseBody.write(body)
+			}
+			exchange.close()
+		} as HttpHandler)
+		server.start()
+		try {
+			String url = "http://localhost:"+server.address.port+"/"
+			HttpPollClient client = HttpPollClient.getInstance()
+
+			HttpResponseContext first = client.get(url, null, null, null)
+			assertEquals first.responseCode, 200
+			assertEquals first.content, 'content "v1"'
+			assertEquals validatorsReceived.get(0), [null, null]
+
+			HttpResponseContext second = client.get(url, null, null, first)
+			assertSame second, first
+			assertEquals validatorsReceived.get(1), ['"v1"', lastModified]
+
+			etag.set('"v2"')
+			HttpResponseContext third = client.get(url, null, null, first)
+			assertNotSame third, first
+			assertEquals third.responseCode, 200
+			assertEquals third.content, 'content "v2"'
+		} finally {
+			server.stop(0)
+		}
+	}
+
+	@Test
+	public void testAdaptivePeriodBacksOffAndResets() {
+		HttpSensorAdapter adaptive = registry.register(new HttpSensorAdapter("http://bogus.url.is.definitely.wrong.efaege3",
+				period:100*TimeUnit.MILLISECONDS, maxPeriod:400*TimeUnit.MILLISECONDS))
+		assertTrue(adaptive.poller.isAdaptive())
+		adaptive.poller.currentPeriodMillis = 100
+
+		adaptive.poller.adjustPeriod(false)
+		assertEquals adaptive.poller.currentPeriodMillis, 200
+		adaptive.poller.adjustPeriod(false)
+		adaptive.poller.adjustPeriod(false)
+		assertEquals adaptive.poller.currentPeriodMillis, 400
+		adaptive.poller.adjustPeriod(true)
+		assertEquals adaptive.poller.currentPeriodMillis, 100
+
+		assertFalse(adapter.poller.isAdaptive())
+	}
     
 	// Relies on URL above being bogus
     @Test(groups="Integration")
@@ -0,0 +1,73 @@
+package brooklyn.event.adapter
+
+import static org.testng.Assert.*
+
+import java.util.concurrent.TimeUnit
+
+import org.testng.annotations.Test
+
+import brooklyn.location.basic.LocalhostMachineProvisioningLocation
+import brooklyn.location.basic.SshMachineLocation
+
+public class SshPollCoordinatorTest {
+
+    final static LocalhostMachineProvisioningLocation location = [ count:1 ]
+    final static SshMachineLocation machine = location.obtain()
+
+    final SshPollCoordinator coordinator = new SshPollCoordinator(machine)
+    final SshSensorAdapter adapter1 = new SshSensorAdapter(machine, command:"date", batched:true)
+    final SshSensorAdapter adapter2 = new SshSensorAdapter(machine, command:"df -k", env:[FOO:"bar baz"], batched:true)
+
+    @Test
+    public void testScriptDelimitsEachCommand() {
+        List<String> script = coordinator.buildScript([adapter1.poller, adapter2.poller])
+        assertEquals(script.size(), 6)
+        assertTrue(script[0].contains(coordinator.marker+":0:begin"))
+        assertTrue(script[1].contains("date"))
+        assertTrue(script[2].contains(coordinator.marker+":0:end:\$?"))
+        assertTrue(script[4].contains("export FOO="))
+        assertTrue(script[4].contains("df -k"))
+    }
+
+    @Test
+    public void testSplitResults() {
+        String m = coordinator.marker
+        String stdout = "${m}:0:begin\nMon Jan 1\n${m}:0:end:0\n${m}:1:begin\nno newline${m}:1:end:3\n"
+        String stderr = "${m}:0:begin\n${m}:0:end:\n${m}:1:begin\noops\n${m}:1:end:\n"
+        Map<SshPollHelper, SshResultContext> results = coordinator.splitResults([adapter1.poller, adapter2.poller], stdout, stderr)
+
+        assertEquals(results.get(adapter1.poller).stdout, "Mon Jan 1\n")
+        assertEquals(results.get(adapter1.poller).stderr, "")
+        assertEquals(results.get(adapter1.poller).exitStatus, 0)
+        assertEquals(results.get(adapter2.poller).stdout, "no newline")
+        assertEquals(results.get(adapter2.poller).stderr, "oops\n")
+        assertEquals(results.get(adapter2.poller).exitStatus, 3)
+    }
+
+    @Test
+    public void testSplitResultsOmitsIncompleteOutput() {
+        String m = coordinator.marker
+        String stdout = "${m}:0:begin\nok\n${m}:0:end:0\n${m}:1:begin\npartial"
+        Map<SshPollHelper, SshResultContext> results = coordinator.splitResults([adapter1.poller, adapter2.poller], stdout, "")
+
+        assertEquals(results.get(adapter1.poller).stdout, "ok\n")
+        assertNull(results.get(adapter1.poller).stderr)
+        assertFalse(results.containsKey(adapter2.poller))
+    }
+
+    @Test
+    public void testStrideFollowsCurrentPeriodOfAdaptivePoller() {
+        SshSensorAdapter adaptive = new SshSensorAdapter(machine, command:"date", batched:true, period:100*TimeUnit.MILLISECONDS, maxPeriod:400*TimeUnit.MILLISECONDS)
+        coordinator.basePeriodMillis = 100
+
+        // not yet activated, so at its configured period
+        assertEquals(coordinator.strideOf(adaptive.poller), 1)
+        adaptive.poller.currentPeriodMillis = 100
+        adaptive.poller.adjustPeriod(false)
+        assertEquals(coordinator.strideOf(adaptive.poller), 2)
+        adaptive.poller.adjustPeriod(false)
+        assertEquals(coordinator.strideOf(adaptive.poller), 4)
+        adaptive.poller.adjustPeriod(true)
+        assertEquals(coordinator.strideOf(adaptive.poller), 1)
+    }
+}
@@ -0,0 +1,76 @@
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.location.basic.SimulatedLocation;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+
+import com.google.common.collect.ImmutableList;
+
+public class EntityManagementSupportTest {
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity entity;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        managementContext = new LocalManagementContext();
+        app = new TestApplication();
+        entity = new TestEntity(app);
+        managementContext.manage(app);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testModificationCountIncreasesOnEachChange() {
+        EntityManagementSupport support = entity.getManagementSupport();
+        long count = support.getModificationCount();
+
+        entity.setAttribute(TestEntity.SEQUENCE, 1);
+        assertTrue(support.getModificationCount() > count);
+        count = support.getModificationCount();
+
+        entity.setConfigEvenIfOwned(TestEntity.CONF_NAME, "changed");
+        assertTrue(support.getModificationCount() > count);
+        count = support.getModificationCount();
+
+        entity.addLocations(ImmutableList.of(new SimulatedLocation()));
+        assertTrue(support.getModificationCount() > count);
+        count = support.getModificationCount();
+
+        new TestEntity(entity);
+        assertTrue(support.getModificationCount() > count);
+    }
+
+    @Test
+    public void testModificationCountUnchangedWhenNothingChanges() {
+        EntityManagementSupport support = entity.getManagementSupport();
+        entity.setAttribute(TestEntity.SEQUENCE, 1);
+        long count = support.getModificationCount();
+
+        entity.getAttribute(TestEntity.SEQUENCE);
+        entity.getConfig(TestEntity.CONF_NAME);
+        entity.setAttribute(TestEntity.SEQUENCE, 1);
+        assertEquals(support.getModificationCount(), count);
+    }
+
+    @Test
+    public void testModificationCountUnaffectedByOtherEntities() {
+        EntityManagementSupport support = entity.getManagementSupport();
+        long count = support.getModificationCount();
+
+        app.setAttribute(TestEntity.SEQUENCE, 1);
+        assertEquals(support.getModificationCount(), count);
+    }
+}
@@ -0,0 +1,102 @@
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.Application;
+import brooklyn.entity.Entity;
+import brooklyn.entity.trait.Startable;
+import brooklyn.location.basic.SimulatedLocation;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+import brooklyn.util.MutableMap;
+
+import com.google.common.collect.ImmutableList;
+
+public class EntityRegistryTest {
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity entity;
+    private TestEntity entity2;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        managementContext = new LocalManagementContext();
+        app = new TestApplication();
+        entity = new TestEntity(app);
+        entity2 = new TestEntity(entity);
+        managementContext.manage(app);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testQueriesReturnEntitiesInOrderOfManagement() {
+        assertEquals(ImmutableList.copyOf(managementContext.getEntities()), ImmutableList.of(app, entity, entity2));
+        assertEquals(ImmutableList.copyOf(managementContext.getApplications()), ImmutableList.of(app));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesInApplication(app.getId())), ImmutableList.of(app, entity, entity2));
+        assertSame(managementContext.getEntity(entity.getId()), entity);
+    }
+
+    @Test
+    public void testGetEntitiesOfTypeIncludesInterfacesAndSuperclasses() {
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesOfType(TestEntity.class)), ImmutableList.of(entity, entity2));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesOfType(Startable.class)), ImmutableList.of(app, entity, entity2));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesOfType(Application.class)), ImmutableList.of(app));
+        assertEquals(managementContext.getEntitiesOfType(Entity.class).size(), 3);
+    }
+
+    @Test
+    public void testUnmanageRemovesFromIndexes() {
+        managementContext.unmanage(entity);
+
+        assertNull(managementContext.getEntity(entity.getId()));
+        assertNull(managementContext.getEntity(entity2.getId()));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntities()), ImmutableList.of(app));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesInApplication(app.getId())), ImmutableList.of(app));
+        assertTrue(managementContext.getEntitiesOfType(TestEntity.class).isEmpty());
+
+        managementContext.unmanage(app);
+        assertTrue(managementContext.getEntitiesInApplication(app.getId()).isEmpty());
+        assertTrue(managementContext.getApplications().isEmpty());
+    }
+
+    @Test
+    public void testGetEntitiesNamedFollowsRenamesAndIgnoresCase() {
+        entity.setDisplayName("web");
+        entity2.setDisplayName("Web");
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesNamed("WEB")), ImmutableList.of(entity, entity2));
+
+        entity.setDisplayName("db");
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesNamed("web")), ImmutableList.of(entity2));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesNamed("db")), ImmutableList.of(entity));
+
+        managementContext.unmanage(entity);
+        assertTrue(managementContext.getEntitiesNamed("db").isEmpty());
+        assertTrue(managementContext.getEntitiesNamed("web").isEmpty());
+    }
+
+    @Test
+    public void testGetEntitiesInLocationIncludesDescendantLocations() {
+        SimulatedLocation parent = new SimulatedLocation();
+        SimulatedLocation child = new SimulatedLocation(MutableMap.of("parentLocation", parent));
+        entity.getLocations().add(child);
+
+        Collection<Entity> inParent = managementContext.getEntitiesInLocation(parent);
+        assertEquals(ImmutableList.copyOf(inParent), ImmutableList.<Entity>of(entity));
+        assertEquals(ImmutableList.copyOf(managementContext.getEntitiesInLocation(child)), ImmutableList.<Entity>of(entity));
+        assertTrue(managementContext.getEntitiesInLocation(new SimulatedLocation()).isEmpty());
+    }
+}
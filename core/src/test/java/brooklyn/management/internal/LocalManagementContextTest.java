@@ -0,0 +1,94 @@
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.entity.Entity;
+import brooklyn.test.TestUtils;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+
+import com.google.common.collect.ImmutableList;
+
+public class LocalManagementContextTest {
+
+    private static final int NUM_CHILDREN = 10;
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private List<List<Entity>> addedBatches;
+    private List<List<Entity>> removedBatches;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        managementContext = new LocalManagementContext();
+        app = new TestApplication();
+        for (int i = 0; i < NUM_CHILDREN; i++) {
+            new TestEntity(app);
+        }
+        addedBatches = new CopyOnWriteArrayList<List<Entity>>();
+        removedBatches = new CopyOnWriteArrayList<List<Entity>>();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testManagingSubtreeNotifiesEntitySetListenerWithSingleBatch() {
+        managementContext.addEntitySetListener(new BatchCollectionChangeListener<Entity>() {
+            @Override public void onItemAdded(Entity item) {
+                addedBatches.add(ImmutableList.of(item));
+            }
+            @Override public void onItemRemoved(Entity item) {
+                removedBatches.add(ImmutableList.of(item));
+            }
+            @Override public void onItemsAdded(Collection<? extends Entity> items) {
+                addedBatches.add(ImmutableList.copyOf(items));
+            }
+            @Override public void onItemsRemoved(Collection<? extends Entity> items) {
+                removedBatches.add(ImmutableList.copyOf(items));
+            }});
+
+        managementContext.manage(app);
+        TestUtils.assertEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(addedBatches.size(), 1);
+                assertEquals(addedBatches.get(0).size(), NUM_CHILDREN+1);
+                assertEquals(addedBatches.get(0).get(0), app);
+            }});
+
+        managementContext.unmanage(app);
+        TestUtils.assertEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(removedBatches.size(), 1);
+                assertEquals(removedBatches.get(0).size(), NUM_CHILDREN+1);
+            }});
+        assertEquals(addedBatches.size(), 1);
+    }
+
+    @Test
+    public void testNonBatchListenerIsToldOfEachEntity() {
+        managementContext.addEntitySetListener(new CollectionChangeListener<Entity>() {
+            @Override public void onItemAdded(Entity item) {
+                addedBatches.add(ImmutableList.of(item));
+            }
+            @Override public void onItemRemoved(Entity item) {
+                removedBatches.add(ImmutableList.of(item));
+            }});
+
+        managementContext.manage(app);
+        TestUtils.assertEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(addedBatches.size(), NUM_CHILDREN+1);
+            }});
+    }
+}
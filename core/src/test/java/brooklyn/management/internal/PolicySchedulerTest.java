@@ -0,0 +1,145 @@
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.test.TestUtils;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+
+public class PolicySchedulerTest {
+
+    private static final int TIMEOUT_MS = 5000;
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity entity;
+    private PolicyScheduler scheduler;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        managementContext = new LocalManagementContext();
+        app = new TestApplication();
+        entity = new TestEntity(app);
+        managementContext.manage(app);
+        scheduler = managementContext.getPolicyScheduler();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testForEntityUsesManagementContextScheduler() {
+        assertSame(PolicyScheduler.forEntity(entity), scheduler);
+        assertSame(PolicyScheduler.forEntity(new TestEntity()), PolicyScheduler.getUnmanagedInstance());
+    }
+
+    @Test
+    public void testRunsJobAfterDelayAndRecordsStats() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        long start = System.currentTimeMillis();
+        scheduler.schedule("p1", entity, 50, new Runnable() {
+                @Override public void run() {
+                    latch.countDown();
+                }});
+        assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 50);
+
+        TestUtils.assertEventually(new Runnable() {
+                @Override public void run() {
+                    assertEquals(scheduler.getStats("p1").getCount(), 1);
+                }});
+    }
+
+    @Test
+    public void testJobsWithSameKeyRunOneAtATime() throws Exception {
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        Runnable job = new Runnable() {
+                @Override public void run() {
+                    int c = concurrent.incrementAndGet();
+                    synchronized (maxConcurrent) { if (c > maxConcurrent.get()) maxConcurrent.set(c); }
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrent.decrementAndGet();
+                        latch.countDown();
+                    }
+                }};
+        for (int i = 0; i < 5; i++) {
+            scheduler.schedule("p2", entity, 0, job);
+        }
+        assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(maxConcurrent.get(), 1);
+    }
+
+    @Test
+    public void testCancelStopsPeriodicJob() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        scheduler.scheduleWithFixedDelay("p3", entity, 0, 10, new Runnable() {
+                @Override public void run() {
+                    count.incrementAndGet();
+                }});
+        TestUtils.assertEventually(new Runnable() {
+                @Override public void run() {
+                    assertTrue(count.get() > 1);
+                }});
+        scheduler.cancel("p3");
+        Thread.sleep(50);
+        int countAfterCancel = count.get();
+        Thread.sleep(100);
+        assertEquals(count.get(), countAfterCancel);
+    }
+
+    @Test
+    public void testJobScheduledAfterCancelWaitsForRunningJob() throws Exception {
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        final CountDownLatch firstFinish = new CountDownLatch(1);
+        final CountDownLatch secondRan = new CountDownLatch(1);
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        scheduler.schedule("p4", entity, 0, new Runnable() {
+                @Override public void run() {
+                    concurrent.incrementAndGet();
+                    firstStarted.countDown();
+                    try {
+                        firstFinish.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrent.decrementAndGet();
+                    }
+                }});
+        assertTrue(firstStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        
+        // as when a policy is suspended then resumed
+        scheduler.cancel("p4");
+        assertNull(scheduler.getStats("p4"));
+        scheduler.schedule("p4", entity, 0, new Runnable() {
+                @Override public void run() {
+                    maxConcurrent.set(concurrent.get() + 1);
+                    secondRan.countDown();
+                }});
+        assertFalse(secondRan.await(100, TimeUnit.MILLISECONDS));
+        
+        firstFinish.countDown();
+        assertTrue(secondRan.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(maxConcurrent.get(), 1);
+    }
+}
@@ -0,0 +1,126 @@
+package brooklyn.management.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.config.BrooklynProperties;
+import brooklyn.management.internal.PollScheduler.PollStats;
+import brooklyn.management.internal.PollScheduler.ScheduledPoll;
+import brooklyn.test.TestUtils;
+import brooklyn.test.entity.TestApplication;
+import brooklyn.test.entity.TestEntity;
+
+public class PollSchedulerTest {
+
+    private static final int TIMEOUT_MS = 5000;
+
+    private LocalManagementContext managementContext;
+    private TestApplication app;
+    private TestEntity entity;
+    private PollScheduler scheduler;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        props.put(PollScheduler.TICK_PERIOD, 10L);
+        props.put(PollScheduler.WHEEL_SIZE, 8);
+        props.put(PollScheduler.MAX_CONCURRENT_PER_HOST, 1);
+        managementContext = new LocalManagementContext(props);
+        app = new TestApplication();
+        entity = new TestEntity(app);
+        managementContext.manage(app);
+        scheduler = managementContext.getPollScheduler();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (managementContext != null) managementContext.terminate();
+    }
+
+    @Test
+    public void testRunsRepeatedlyAndRecordsStats() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        ScheduledPoll poll = scheduler.schedule(entity, "test", null, "k1", 20, new Runnable() {
+                @Override public void run() {
+                    latch.countDown();
+                }});
+        assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        poll.cancel();
+
+        PollStats stats = scheduler.getStats("test");
+        assertTrue(stats.getCount() >= 2, "stats="+stats);
+    }
+
+    @Test
+    public void testPeriodLongerThanWheel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        // 8 slots of 10ms; period of 200ms needs several rounds of the wheel
+        long start = System.currentTimeMillis();
+        ScheduledPoll poll = scheduler.schedule(entity, "test", null, "k2", 200, new Runnable() {
+                @Override public void run() {
+                    latch.countDown();
+                }});
+        assertTrue(latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        poll.cancel();
+        assertTrue(System.currentTimeMillis() - start >= 200);
+    }
+
+    @Test
+    public void testCancelStopsPolling() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        ScheduledPoll poll = scheduler.schedule(entity, "test", null, "k3", 10, new Runnable() {
+                @Override public void run() {
+                    count.incrementAndGet();
+                }});
+        TestUtils.assertEventually(new Runnable() {
+                @Override public void run() {
+                    assertTrue(count.get() > 0);
+                }});
+        poll.cancel();
+        Thread.sleep(50);
+        int countAfterCancel = count.get();
+        Thread.sleep(100);
+        assertEquals(count.get(), countAfterCancel);
+    }
+
+    @Test
+    public void testLimitsConcurrencyPerHost() throws Exception {
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final Semaphore runs = new Semaphore(0);
+        Runnable job = new Runnable() {
+                @Override public void run() {
+                    int c = concurrent.incrementAndGet();
+                    synchronized (maxConcurrent) { if (c > maxConcurrent.get()) maxConcurrent.set(c); }
+                    try {
+                        Thread.sleep(30);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        concurrent.decrementAndGet();
+                        runs.release();
+                    }
+                }};
+        ScheduledPoll poll1 = scheduler.schedule(entity, "limited", "host1", "a", 10, job);
+        ScheduledPoll poll2 = scheduler.schedule(entity, "limited", "host1", "b", 10, job);
+        assertTrue(runs.tryAcquire(6, TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        poll1.cancel();
+        poll2.cancel();
+
+        assertEquals(maxConcurrent.get(), 1);
+        PollStats stats = scheduler.getStats("limited");
+        // each run takes longer than the period, and holds up the other poll for several ticks
+        assertTrue(stats.getOverruns() > 0, "stats="+stats);
+        assertTrue(stats.getDeferrals() > 0, "stats="+stats);
+        assertTrue(stats.getDeferrals() <= stats.getCount() + 2, "stats="+stats);
+    }
+}
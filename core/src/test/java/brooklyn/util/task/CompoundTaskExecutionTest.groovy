@@ -6,6 +6,7 @@ import java.util.Map
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
@@ -119,6 +120,44 @@ public class CompoundTaskExecutionTest {
         locker.acquire();
     }
 
+    @Test
+    public void runParallelTaskWithMaxConcurrency() {
+        AtomicInteger running = new AtomicInteger()
+        AtomicInteger maxRunning = new AtomicInteger()
+        List<BasicTask> tasks = (1..6).collect { int i ->
+            new BasicTask({
+                int now = running.incrementAndGet()
+                synchronized (maxRunning) { if (now > maxRunning.get()) maxRunning.set(now) }
+                Thread.sleep(20)
+                running.decrementAndGet()
+                return i
+            })
+        }
+
+        Task tParallel = ec.submit tag:"A", new ParallelTask([displayName:"limited", maxConcurrency:2], tasks)
+
+        assertEquals(tParallel.get(), [1, 2, 3, 4, 5, 6])
+        assertEquals(tParallel.getDisplayName(), "limited")
+        assertTrue(tParallel.getTags().contains("compound"))
+        assertTrue(maxRunning.get() <= 2, "maxRunning="+maxRunning.get())
+    }
+
+    @Test
+    public void runParallelTaskWithMaxConcurrencyNotStalledBySlowTask() {
+        Semaphore slow = new Semaphore(0)
+        List<BasicTask> tasks = [ new BasicTask({ slow.acquire(); return 1 }) ]
+        tasks += (2..5).collect { int i -> new BasicTask({ return i }) }
+
+        Task tParallel = ec.submit tag:"A", new ParallelTask([maxConcurrency:2], tasks)
+
+        // the others run through the one free slot while the first is still running
+        tasks.subList(1, tasks.size()).each { it.get(5, TimeUnit.SECONDS) }
+        assertFalse(tParallel.isDone())
+        
+        slow.release()
+        assertEquals(tParallel.get(), [1, 2, 3, 4, 5])
+    }
+
     @Test
     public void testAlexsComplex() {
         List vals = Collections.synchronizedList([] as List)
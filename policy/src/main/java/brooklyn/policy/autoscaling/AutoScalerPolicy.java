@@ -7,9 +7,6 @@ import groovy.lang.Closure;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -23,6 +20,7 @@ import brooklyn.event.AttributeSensor;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.event.basic.BasicNotificationSensor;
 import brooklyn.policy.basic.AbstractPolicy;
 import brooklyn.policy.loadbalancing.LoadBalancingPolicy;
@@ -42,6 +40,15 @@ import com.google.common.base.Throwables;
  * emitted <code>POOL_COLD</code> and <code>POOL_HOT</code> events. (This policy does not itself determine whether
  * the pool is hot or cold, but instead relies on these events being emitted by the monitored entity itself, or
  * by another policy that is attached to it; see, for example, {@link LoadBalancingPolicy}.)
+ * <p>
+ * If a <code>metric</code> is given, the policy also resizes the entity when that metric goes outside its bounds.
+ * In <code>predictive</code> mode, it tracks the trend of the metric and resizes when the value projected
+ * <code>predictionLookahead</code> ms ahead (by default, the time recent resizes have taken to grow the pool)
+ * would breach the upper bound, so new members are ready in time; the forecast is published as
+ * {@link #METRIC_FORECAST}.
+ * <p>
+ * Pools which share limited capacity (e.g. a cloud account's quota) can be given the same {@link ScalingCoordinator},
+ * which batches their grows and allocates the capacity between them by <code>scalingPriority</code>.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class AutoScalerPolicy extends AbstractPolicy {
@@ -68,6 +75,12 @@ public class AutoScalerPolicy extends AbstractPolicy {
         private BasicNotificationSensor<?> poolHotSensor;
         private BasicNotificationSensor<?> poolColdSensor;
         private BasicNotificationSensor<?> poolOkSensor;
+        private boolean predictive;
+        private long predictionLookahead;
+        private Double predictionLevelSmoothing;
+        private Double predictionTrendSmoothing;
+        private ScalingCoordinator scalingCoordinator;
+        private int scalingPriority;
 
         public Builder id(String val) {
             this.id = val; return this;
@@ -124,6 +137,23 @@ public class AutoScalerPolicy extends AbstractPolicy {
         public Builder poolOkSensor(BasicNotificationSensor<?> val) {
             this.poolOkSensor = val; return this;
         }
+        public Builder predictive(boolean val) {
+            this.predictive = val; return this;
+        }
+        public Builder predictionLookahead(long val) {
+            this.predictionLookahead = val; return this;
+        }
+        public Builder predictionSmoothing(double level, double trend) {
+            this.predictionLevelSmoothing = level;
+            this.predictionTrendSmoothing = trend;
+            return this;
+        }
+        public Builder scalingCoordinator(ScalingCoordinator val) {
+            this.scalingCoordinator = val; return this;
+        }
+        public Builder scalingPriority(int val) {
+            this.scalingPriority = val; return this;
+        }
         public AutoScalerPolicy build() {
             return new AutoScalerPolicy(toFlags());
         }
@@ -144,6 +174,12 @@ public class AutoScalerPolicy extends AbstractPolicy {
                     .put("poolHotSensor", poolHotSensor)
                     .put("poolColdSensor", poolColdSensor)
                     .put("poolOkSensor", poolOkSensor)
+                    .put("predictive", predictive)
+                    .put("predictionLookahead", predictionLookahead)
+                    .putIfNotNull("predictionLevelSmoothing", predictionLevelSmoothing)
+                    .putIfNotNull("predictionTrendSmoothing", predictionTrendSmoothing)
+                    .putIfNotNull("scalingCoordinator", scalingCoordinator)
+                    .put("scalingPriority", scalingPriority)
                     .build();
         }
     }
@@ -176,6 +212,9 @@ public class AutoScalerPolicy extends AbstractPolicy {
     public static final String POOL_LOW_THRESHOLD_KEY = "pool.low.threshold";
     public static final String POOL_CURRENT_WORKRATE_KEY = "pool.current.workrate";
     
+    public static final BasicAttributeSensor<Double> METRIC_FORECAST = new BasicAttributeSensor<Double>(
+            Double.class, "autoscaler.metric.forecast", "Forecast value of the metric (at the current size) after the prediction lookahead");
+    
     @SetFromFlag
     private AttributeSensor<? extends Number> metric;
     
@@ -215,14 +254,62 @@ public class AutoScalerPolicy extends AbstractPolicy {
     @SetFromFlag
     private BasicNotificationSensor<? extends Map> poolOkSensor;
     
+    /** if set, grows are requested from this coordinator (shared with other pools) rather than made directly */
+    @SetFromFlag
+    private ScalingCoordinator scalingCoordinator;
+    
+    /** the priority of this pool's grows, when using a {@link ScalingCoordinator}; higher is granted capacity first */
+    @SetFromFlag
+    private int scalingPriority;
+    
+    /** whether to also resize ahead of the metric's projected breach of its bounds (based on its recent trend) */
+    @SetFromFlag(defaultVal="false")
+    private boolean predictive;
+    
+    /** how far ahead (in ms) to project the metric; 0 to use the observed time taken to grow the pool */
+    @SetFromFlag
+    private long predictionLookahead;
+    
+    /** smoothing factor (0..1) for the level of the metric, when predictive; higher follows recent values more closely */
+    @SetFromFlag(defaultVal="0.5")
+    private double predictionLevelSmoothing;
+    
+    /** smoothing factor (0..1) for the trend of the metric, when predictive */
+    @SetFromFlag(defaultVal="0.3")
+    private double predictionTrendSmoothing;
+    
     private Entity poolEntity;
     
-    private volatile ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean executorQueued = new AtomicBoolean(false);
     private volatile long executorTime = 0;
     
     private final TimeWindowedList<Number> recentDesiredResizes;
     
+    private final ScalingCoordinator.GrowCallback growCallback = new ScalingCoordinator.GrowCallback() {
+        @Override public void grow(final int grantedSize) {
+            // run on this policy's own queue, so it is serialized with its other resizes
+            schedule(new Runnable() {
+                @Override public void run() {
+                    try {
+                        if (isRunning()) {
+                            resizeNow(currentSizeOperator.apply(poolEntity), toBoundedDesiredPoolSize(grantedSize));
+                        }
+                    } catch (Exception e) {
+                        LOG.error("Error resizing: "+e, e);
+                    } finally {
+                        // releases whatever of the grant was not used
+                        scalingCoordinator.onGrowCompleted(getId(), currentSizeOperator.apply(poolEntity));
+                    }
+                }}, 
+                0);
+        }
+    };
+    
+    private final TrendEstimator trendEstimator;
+    
+    // Smoothed time taken by resizes which grew the pool; the default prediction lookahead
+    private volatile long observedGrowTime = 0;
+    
     private final ResizeOperator defaultResizeOperator = new ResizeOperator() {
         public Integer resize(Entity entity, Integer desiredSize) {
             return ((Resizable)entity).resize(desiredSize);
@@ -273,6 +360,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
         
         long maxResizeStabilizationDelay = Math.max(resizeUpStabilizationDelay, resizeDownStabilizationDelay);
         recentDesiredResizes = new TimeWindowedList<Number>(MutableMap.of("timePeriod", maxResizeStabilizationDelay, "minExpiredVals", 1));
+        trendEstimator = new TrendEstimator(predictionLevelSmoothing, predictionTrendSmoothing);
     }
 
     public void setMetricLowerBound(Number val) {
@@ -305,6 +393,16 @@ public class AutoScalerPolicy extends AbstractPolicy {
         this.minPoolSize = val;
     }
     
+    public void setPredictionLookahead(long val) {
+        if (LOG.isInfoEnabled()) LOG.info("{} changing predictionLookahead from {} to {}", new Object[] {this, predictionLookahead, val});
+        this.predictionLookahead = val;
+    }
+    
+    /** the time (in ms) ahead that the metric is projected, when predictive */
+    public long getEffectivePredictionLookahead() {
+        return (predictionLookahead > 0) ? predictionLookahead : observedGrowTime;
+    }
+    
     public void setMaxPoolSize(int val) {
         if (LOG.isInfoEnabled()) LOG.info("{} changing maxPoolSize from {} to {}", new Object[] {this, maxPoolSize, val});
         this.maxPoolSize = val;
@@ -314,13 +412,18 @@ public class AutoScalerPolicy extends AbstractPolicy {
     public void suspend() {
         super.suspend();
         // TODO unsubscribe from everything? And resubscribe on resume?
-        if (executor != null) executor.shutdownNow();
+        executorQueued.set(false);
+        if (scalingCoordinator != null) {
+            // any granted grow job was cancelled with the other scheduled jobs, so will not release its grant
+            if (poolEntity != null) scalingCoordinator.release(getId(), currentSizeOperator.apply(poolEntity));
+            else scalingCoordinator.withdraw(getId());
+        }
     }
     
     @Override
-    public void resume() {
-        super.resume();
-        executor = Executors.newSingleThreadScheduledExecutor();
+    public void destroy() {
+        super.destroy();
+        if (scalingCoordinator != null) scalingCoordinator.unregister(getId());
     }
     
     @Override
@@ -337,6 +440,9 @@ public class AutoScalerPolicy extends AbstractPolicy {
         subscribe(poolEntity, poolColdSensor, utilizationEventHandler);
         subscribe(poolEntity, poolHotSensor, utilizationEventHandler);
         subscribe(poolEntity, poolOkSensor, utilizationEventHandler);
+        
+        // so that the machines the pool already holds count against the coordinator's budget
+        if (scalingCoordinator != null) scalingCoordinator.register(getId(), currentSizeOperator.apply(poolEntity));
     }
     
     private void onMetricChanged(Number val) {
@@ -349,6 +455,23 @@ public class AutoScalerPolicy extends AbstractPolicy {
         double currentTotalActivity = currentSize * currentMetricD;
         int desiredSize;
         
+        if (predictive) {
+            /* Track the trend of the total activity (rather than of the metric, which changes with the pool size),
+             * and act on whichever is higher of the current and forecast values: so we scale out before the 
+             * forecast breach, and only scale back if that would not be undone by the forecast activity.
+             */
+            double forecastTotalActivity = trendEstimator.update(System.currentTimeMillis(), currentTotalActivity, getEffectivePredictionLookahead());
+            if (currentSize > 0) {
+                double forecastMetricD = forecastTotalActivity / currentSize;
+                entity.setAttribute(METRIC_FORECAST, forecastMetricD);
+                if (forecastMetricD > currentMetricD) {
+                    if (LOG.isTraceEnabled()) LOG.trace("{} using forecast metric {} for pool {} (current {})", new Object[] {this, forecastMetricD, poolEntity, currentMetricD});
+                    currentMetricD = forecastMetricD;
+                    currentTotalActivity = forecastTotalActivity;
+                }
+            }
+        }
+        
         /* We always scale out (modulo stabilization delay) if:
          *   currentTotalActivity > currentSize*metricUpperBound
          * With newDesiredSize the smallest n such that   n*metricUpperBound >= currentTotalActivity
@@ -488,7 +611,7 @@ public class AutoScalerPolicy extends AbstractPolicy {
             long delay = Math.max(0, (executorTime + minPeriodBetweenExecs) - now);
             if (LOG.isTraceEnabled()) LOG.trace("{} scheduling resize in {}ms", this, delay);
             
-            executor.schedule(new Runnable() {
+            schedule(new Runnable() {
                 @Override public void run() {
                     try {
                         executorTime = System.currentTimeMillis();
@@ -512,14 +635,22 @@ public class AutoScalerPolicy extends AbstractPolicy {
                         if (currentPoolSize == desiredPoolSize) {
                             if (LOG.isTraceEnabled()) LOG.trace("{} not resizing pool {} from {} to {}", 
                                     new Object[] {this, poolEntity, currentPoolSize, desiredPoolSize});
+                            if (scalingCoordinator != null) scalingCoordinator.withdraw(getId());
                             return;
                         }
                         
-                        if (LOG.isDebugEnabled()) LOG.debug("{} requesting resize to {}; current {}, min {}, max {}", 
-                                new Object[] {this, desiredPoolSize, currentPoolSize, minPoolSize, maxPoolSize});
+                        if (scalingCoordinator != null && desiredPoolSize > currentPoolSize) {
+                            // grows are subject to the coordinator's budget; it calls back when capacity is granted
+                            if (LOG.isDebugEnabled()) LOG.debug("{} requesting grow to {} from {}; current {}", 
+                                    new Object[] {this, desiredPoolSize, scalingCoordinator, currentPoolSize});
+                            scalingCoordinator.requestGrow(getId(), poolEntity, (int) currentPoolSize, (int) desiredPoolSize, 
+                                    scalingPriority, growCallback);
+                            return;
+                        }
+                        if (scalingCoordinator != null) scalingCoordinator.withdraw(getId());
                         
                         // TODO Should we use int throughout, rather than casting here?
-                        resizeOperator.resize(poolEntity, (int) desiredPoolSize);
+                        resizeNow(currentPoolSize, (int) desiredPoolSize);
                         
                     } catch (Exception e) {
                         if (isRunning()) {
@@ -532,11 +663,29 @@ public class AutoScalerPolicy extends AbstractPolicy {
                         throw Throwables.propagate(t);
                     }
                 }},
-                delay,
-                TimeUnit.MILLISECONDS);
+                delay);
+        }
+    }
+    
+    private void resizeNow(long currentPoolSize, int desiredPoolSize) {
+        if (LOG.isDebugEnabled()) LOG.debug("{} requesting resize to {}; current {}, min {}, max {}", 
+                new Object[] {this, desiredPoolSize, currentPoolSize, minPoolSize, maxPoolSize});
+        
+        long resizeStartTime = System.currentTimeMillis();
+        try {
+            resizeOperator.resize(poolEntity, desiredPoolSize);
+            if (desiredPoolSize > currentPoolSize) {
+                recordGrowTime(System.currentTimeMillis() - resizeStartTime);
+            }
+        } finally {
+            if (scalingCoordinator != null) scalingCoordinator.onResized(getId(), currentSizeOperator.apply(poolEntity));
         }
     }
     
+    private void recordGrowTime(long duration) {
+        observedGrowTime = (observedGrowTime == 0) ? duration : (observedGrowTime + duration) / 2;
+    }
+    
     /**
      * Complicated logic for stabilization-delay...
      * Only grow if we have consistently been asked to grow for the resizeUpStabilizationDelay period;
@@ -584,6 +733,49 @@ public class AutoScalerPolicy extends AbstractPolicy {
         return new CalculatedDesiredPoolSize(desiredPoolSize, stable);
     }
     
+    /**
+     * Holt's linear (double exponential) smoothing over irregularly-timed values: tracks a smoothed level 
+     * and trend (per ms), from which values are projected ahead.
+     */
+    static class TrendEstimator {
+        private final double levelSmoothing;
+        private final double trendSmoothing;
+        private double level;
+        private double trend;
+        private long lastTime = -1;
+        
+        TrendEstimator(double levelSmoothing, double trendSmoothing) {
+            Preconditions.checkArgument(levelSmoothing > 0 && levelSmoothing <= 1, "levelSmoothing must be in (0,1], was %s", levelSmoothing);
+            Preconditions.checkArgument(trendSmoothing > 0 && trendSmoothing <= 1, "trendSmoothing must be in (0,1], was %s", trendSmoothing);
+            this.levelSmoothing = levelSmoothing;
+            this.trendSmoothing = trendSmoothing;
+        }
+        
+        /** records the value, returning the forecast value {@code lookahead} ms after the given time */
+        synchronized double update(long time, double value, long lookahead) {
+            if (lastTime < 0) {
+                level = value;
+                trend = 0;
+            } else {
+                long elapsed = time - lastTime;
+                if (elapsed <= 0) {
+                    // same instant; revise the level only
+                    level = levelSmoothing*value + (1-levelSmoothing)*level;
+                    return forecast(lookahead);
+                }
+                double previousLevel = level;
+                level = levelSmoothing*value + (1-levelSmoothing)*(level + trend*elapsed);
+                trend = trendSmoothing*(level - previousLevel)/elapsed + (1-trendSmoothing)*trend;
+            }
+            lastTime = time;
+            return forecast(lookahead);
+        }
+        
+        synchronized double forecast(long lookahead) {
+            return level + trend*lookahead;
+        }
+    }
+    
     private static class CalculatedDesiredPoolSize {
         final long size;
         final boolean stable;
@@ -0,0 +1,303 @@
+package brooklyn.policy.autoscaling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Entity;
+import brooklyn.management.internal.PolicyScheduler;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Coordinates the growth of several pools which draw on the same limited capacity, such as the machine
+ * quota of a cloud location, so that when many of them need to grow at once they do not all race to
+ * provision (and mostly fail against the quota).
+ * <p>
+ * Participants (typically {@link AutoScalerPolicy} instances configured with the same coordinator)
+ * {@link #requestGrow(String, Entity, int, int, int, GrowCallback) request} to grow; requests are collected
+ * for {@code batchWindow} ms and then the capacity remaining in the machine budget is allocated between them:
+ * to higher priority requests first, and shared fairly (one machine at a time) between requests of equal
+ * priority. The granted grows are then issued together. Requests which could not be (fully) satisfied
+ * remain pending, and are reconsidered when participants {@link #onResized(String, int) shrink}.
+ * <p>
+ * Participants must {@link #register(String, int) register} their size when they join, so that the machines
+ * they already hold count against the budget before they ask to grow. They must report their size after each
+ * resize, and {@link #onGrowCompleted(String, int)} once they have acted on a granted grow (whether or not it
+ * succeeded), or {@link #release(String, int)} if they will no longer act on it (e.g. when suspended),
+ * and {@link #unregister(String)} when done.
+ * Until then the granted size stays reserved, even if the participant reports a smaller size in the meantime,
+ * so that capacity granted but not yet provisioned is not granted again.
+ */
+public class ScalingCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScalingCoordinator.class);
+
+    public static final long DEFAULT_BATCH_WINDOW = 500;
+
+    /** called (by the coordinator's thread; implementations should not block) to grow a pool to the granted size */
+    public interface GrowCallback {
+        void grow(int newSize);
+    }
+
+    private final String name;
+    private final int machineBudget;
+    private final long batchWindow;
+
+    // guarded by this
+    private final Map<String, Integer> sizes = new LinkedHashMap<String, Integer>();
+    private final Map<String, Request> pending = new LinkedHashMap<String, Request>();
+    /** sizes granted to participants which they have not yet reported reaching */
+    private final Map<String, Integer> reserved = new LinkedHashMap<String, Integer>();
+    private boolean flushScheduled;
+    private long requestCount;
+    private long grantedMachines;
+
+    /**
+     * @param machineBudget  the maximum total size of the participating pools; 0 for no limit (requests are then just batched)
+     * @param batchWindow    how long (in ms) to collect requests before allocating capacity between them
+     */
+    public ScalingCoordinator(String name, int machineBudget, long batchWindow) {
+        Preconditions.checkArgument(machineBudget >= 0, "machineBudget must not be negative");
+        this.name = Preconditions.checkNotNull(name, "name");
+        this.machineBudget = machineBudget;
+        this.batchWindow = batchWindow;
+    }
+
+    public ScalingCoordinator(String name, int machineBudget) {
+        this(name, machineBudget, DEFAULT_BATCH_WINDOW);
+    }
+
+    private static class Request {
+        final String key;
+        final Entity entity;
+        final int desiredSize;
+        final int priority;
+        final GrowCallback callback;
+        final long sequence;
+        int granted;
+        int grantedSize;
+
+        Request(String key, Entity entity, int desiredSize, int priority, GrowCallback callback, long sequence) {
+            this.key = key;
+            this.entity = entity;
+            this.desiredSize = desiredSize;
+            this.priority = priority;
+            this.callback = callback;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Requests that the participant with the given key grow to the desired size; replaces any pending
+     * request from that participant.
+     *
+     * @param entity       the entity being resized (used to run the allocation in its management context)
+     * @param currentSize  the participant's current size (any size granted but not yet reached still counts)
+     * @param priority     higher priority requests are satisfied first
+     */
+    public void requestGrow(String key, Entity entity, int currentSize, int desiredSize, int priority, GrowCallback callback) {
+        boolean schedule;
+        synchronized (this) {
+            recordSize(key, currentSize);
+            if (desiredSize <= getSize(key)) {
+                pending.remove(key);
+                return;
+            }
+            pending.put(key, new Request(key, entity, desiredSize, priority, callback, requestCount++));
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (schedule) scheduleFlush(entity);
+    }
+
+    /** records the current size of a participant joining the coordinator */
+    public void register(String key, int currentSize) {
+        resized(key, currentSize, false);
+    }
+
+    /** discards any pending request from the given participant */
+    public synchronized void withdraw(String key) {
+        pending.remove(key);
+    }
+
+    /**
+     * discards any pending request from the given participant and any capacity granted to it but not yet used,
+     * recording its current size; for when it will not act on a grant (e.g. it has been suspended)
+     */
+    public void release(String key, int currentSize) {
+        withdraw(key);
+        resized(key, currentSize, true);
+    }
+
+    /**
+     * records the participant's current size (after any resize), releasing capacity if it has shrunk;
+     * capacity granted to it but not yet reached stays reserved
+     */
+    public void onResized(String key, int currentSize) {
+        resized(key, currentSize, false);
+    }
+
+    /**
+     * records that the participant has acted on its granted grow, and its size afterwards; any of the
+     * granted capacity it did not use (e.g. because the grow failed) is released
+     */
+    public void onGrowCompleted(String key, int currentSize) {
+        resized(key, currentSize, true);
+    }
+
+    /** removes the participant, releasing its capacity from the budget */
+    public void unregister(String key) {
+        synchronized (this) {
+            pending.remove(key);
+            sizes.remove(key);
+            reserved.remove(key);
+        }
+    }
+
+    private void resized(String key, int currentSize, boolean releaseReservation) {
+        Entity waiting = null;
+        synchronized (this) {
+            if (releaseReservation) reserved.remove(key);
+            Integer previous = recordSize(key, currentSize);
+            if (previous != null && getSize(key) < previous && !pending.isEmpty() && !flushScheduled) {
+                flushScheduled = true;
+                waiting = pending.values().iterator().next().entity;
+            }
+        }
+        if (waiting != null) scheduleFlush(waiting);
+    }
+
+    /**
+     * records the participant's size, or the size reserved for it if that is larger (the reservation is
+     * dropped once the participant reaches it)
+     * @return the size previously recorded
+     */
+    private synchronized Integer recordSize(String key, int currentSize) {
+        int size = currentSize;
+        Integer reservedSize = reserved.get(key);
+        if (reservedSize != null) {
+            if (currentSize >= reservedSize) reserved.remove(key);
+            else size = reservedSize;
+        }
+        return sizes.put(key, size);
+    }
+
+    private void scheduleFlush(Entity entity) {
+        PolicyScheduler.forEntity(entity).schedule("scaling-coordinator-"+name, entity, batchWindow, new Runnable() {
+            @Override public void run() {
+                flush();
+            }});
+    }
+
+    /** allocates the available capacity between the pending requests, and issues the granted grows */
+    void flush() {
+        List<Request> grants = new ArrayList<Request>();
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+
+            long available = (machineBudget > 0) ? machineBudget - getUsedMachinesUnsynchronized() : Long.MAX_VALUE;
+
+            List<Request> requests = new ArrayList<Request>(pending.values());
+            Collections.sort(requests, new Comparator<Request>() {
+                @Override public int compare(Request r1, Request r2) {
+                    if (r1.priority != r2.priority) return (r1.priority > r2.priority) ? -1 : 1;
+                    return (r1.sequence < r2.sequence) ? -1 : (r1.sequence == r2.sequence ? 0 : 1);
+                }});
+            for (Request r : requests) {
+                r.granted = 0;
+            }
+
+            // for each priority in turn, share out machines one at a time between its requests
+            int i = 0;
+            while (i < requests.size() && available > 0) {
+                int j = i;
+                while (j < requests.size() && requests.get(j).priority == requests.get(i).priority) j++;
+                List<Request> samePriority = requests.subList(i, j);
+                boolean wanting = true;
+                while (wanting && available > 0) {
+                    wanting = false;
+                    for (Request r : samePriority) {
+                        if (available <= 0) break;
+                        if (getSize(r.key) + r.granted < r.desiredSize) {
+                            r.granted++;
+                            available--;
+                            wanting = true;
+                        }
+                    }
+                }
+                i = j;
+            }
+
+            for (Request r : requests) {
+                if (r.granted <= 0) continue;
+                int newSize = getSize(r.key) + r.granted;
+                r.grantedSize = newSize;
+                sizes.put(r.key, newSize);
+                reserved.put(r.key, newSize);
+                grantedMachines += r.granted;
+                if (newSize >= r.desiredSize) pending.remove(r.key);
+                grants.add(r);
+            }
+            if (LOG.isDebugEnabled()) LOG.debug("{} granted {} of {} grow requests; {} still pending",
+                    new Object[] {this, grants.size(), requests.size(), pending.size()});
+        }
+
+        for (Request r : grants) {
+            try {
+                r.callback.grow(r.grantedSize);
+            } catch (Exception e) {
+                LOG.warn("Error growing "+r.entity+" on behalf of "+this+": "+e, e);
+            }
+        }
+    }
+
+    private synchronized int getSize(String key) {
+        Integer result = sizes.get(key);
+        return (result != null) ? result : 0;
+    }
+
+    private long getUsedMachinesUnsynchronized() {
+        long result = 0;
+        for (Integer size : sizes.values()) {
+            result += size;
+        }
+        return result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMachineBudget() {
+        return machineBudget;
+    }
+
+    /** the total size of the participating pools (including grows granted but not yet reported as done) */
+    public synchronized long getUsedMachines() {
+        return getUsedMachinesUnsynchronized();
+    }
+
+    /** the number of participants with a request waiting for capacity */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /** the total number of machines granted to participants */
+    public synchronized long getGrantedMachines() {
+        return grantedMachines;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("name", name).add("budget", machineBudget).toString();
+    }
+}
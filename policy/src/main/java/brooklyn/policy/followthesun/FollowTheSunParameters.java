@@ -37,6 +37,14 @@ public class FollowTheSunParameters {
     /** as corresponding majority and total fields, with x_A-x_B on the LHS of inequality */
     public double triggerAbsoluteMajority = 4;
     
+    /** the maximum number of items a container may be given by the policy (counting those already there);
+     * 0 for no limit */
+    public int maxItemsPerContainer = 0;
+    
+    /** the time (in ms) for which an item moved by the policy will not be moved back to the location it came from,
+     * to avoid items ping-ponging between locations (e.g. two items which talk to each other); 0 to disable */
+    public long minPeriodBeforeMovingBack = 0;
+    
     /** a list of excluded locations */
     public Set<Location> excludedLocations = new LinkedHashSet<Location>();
 
@@ -72,7 +80,8 @@ public class FollowTheSunParameters {
     public String toString() {
         return "Inter-geography policy params: percentTotal="+triggerPercentTotal+"; deltaAbovePercentTotal="+triggerDeltaAbovePercentTotal+
                 "; absoluteTotal="+triggerAbsoluteTotal+"; percentMajority="+triggerPercentMajority+
-                "; deltaAbovePercentMajority="+triggerDeltaAbovePercentMajority+"; absoluteMajority="+triggerAbsoluteMajority;
+                "; deltaAbovePercentMajority="+triggerDeltaAbovePercentMajority+"; absoluteMajority="+triggerAbsoluteMajority+
+                "; maxItemsPerContainer="+maxItemsPerContainer+"; minPeriodBeforeMovingBack="+minPeriodBeforeMovingBack;
 
     }
 }
@@ -6,9 +6,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -51,7 +48,6 @@ public class FollowTheSunPolicy extends AbstractPolicy {
     
     private FollowTheSunPool poolEntity;
     
-    private volatile ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean executorQueued = new AtomicBoolean(false);
     private volatile long executorTime = 0;
     private boolean loggedConstraintsIgnored = false;
@@ -139,14 +135,12 @@ public class FollowTheSunPolicy extends AbstractPolicy {
     public void suspend() {
         // TODO unsubscribe from everything? And resubscribe on resume?
         super.suspend();
-        if (executor != null) executor.shutdownNow();
         executorQueued.set(false);
     }
     
     @Override
     public void resume() {
         super.resume();
-        executor = Executors.newSingleThreadScheduledExecutor();
         executorTime = 0;
         executorQueued.set(false);
     }
@@ -156,7 +150,7 @@ public class FollowTheSunPolicy extends AbstractPolicy {
             long now = System.currentTimeMillis();
             long delay = Math.max(0, (executorTime + minPeriodBetweenExecs) - now);
             
-            executor.schedule(new Runnable() {
+            schedule(new Runnable() {
                 public void run() {
                     try {
                         executorTime = System.currentTimeMillis();
@@ -173,8 +167,7 @@ public class FollowTheSunPolicy extends AbstractPolicy {
                         }
                     }
                 }},
-                delay,
-                TimeUnit.MILLISECONDS);
+                delay);
         }
     }
     
@@ -3,6 +3,8 @@ package brooklyn.policy.followthesun;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,8 +16,6 @@ import brooklyn.entity.Entity;
 import brooklyn.location.Location;
 import brooklyn.policy.loadbalancing.Movable;
 
-import com.google.common.collect.Iterables;
-
 // TODO: extract interface
 public class FollowTheSunStrategy<ContainerType extends Entity, ItemType extends Movable> {
     
@@ -29,6 +29,9 @@ public class FollowTheSunStrategy<ContainerType extends Entity, ItemType extends
     private final FollowTheSunModel<ContainerType,ItemType> model;
     private final String name;
     
+    // Where items moved by this policy came from, to avoid moving them straight back; only touched by rebalance()
+    private final Map<ItemType, RecentMove> recentMoves = new HashMap<ItemType, RecentMove>();
+    
     public FollowTheSunStrategy(FollowTheSunModel<ContainerType,ItemType> model, FollowTheSunParameters parameters) {
         this.model = model;
         this.parameters = parameters;
@@ -39,105 +42,221 @@ public class FollowTheSunStrategy<ContainerType extends Entity, ItemType extends
         try {
             Set<ItemType> items = model.getItems();
             Map<ItemType, Map<Location, Double>> directSendsToItemByLocation = model.getDirectSendsToItemByLocation();
+            long now = System.currentTimeMillis();
+            expireRecentMoves(items, now);
             
+            // The number of items on each container (including immovable ones); updated as items are moved
+            Map<ContainerType, Integer> containerLoads = new HashMap<ContainerType, Integer>();
             for (ItemType item : items) {
-                String itemName = model.getName(item);
-                Location activeLocation = model.getItemLocation(item);
-                ContainerType activeContainer = model.getItemContainer(item);
-                Map<Location, Double> sendsByLocation = directSendsToItemByLocation.get(item);
-                if (sendsByLocation == null) sendsByLocation = Collections.emptyMap();
-                
-                if (parameters.excludedLocations.contains(activeLocation)) {
-                    if (LOG.isTraceEnabled()) LOG.trace("Ignoring segment {} as it is in {}", itemName, activeLocation);
-                    continue;
-                }
-                if (!model.isItemMoveable(item)) {
-                    if (LOG.isDebugEnabled()) LOG.debug("POLICY {} skipping any migration of {}, it is not moveable", name, itemName);
-                    continue;
-                }
-                if (model.hasActiveMigration(item)) {
-                    LOG.info("POLICY {} skipping any migration of {}, it is involved in an active migration already", name, itemName);
-                    continue;
-                }
-                
-                double total = DefaultFollowTheSunModel.sum(sendsByLocation.values());
+                ContainerType container = model.getItemContainer(item);
+                if (container != null) adjustLoad(containerLoads, container, 1);
+            }
+            
+            // Evaluate all items first, then place those with most to gain first so they get the least loaded containers
+            List<Candidate> candidates = new ArrayList<Candidate>();
+            for (ItemType item : items) {
+                Candidate candidate = evaluate(item, directSendsToItemByLocation.get(item), now);
+                if (candidate != null) candidates.add(candidate);
+            }
+            Collections.sort(candidates);
+            
+            for (Candidate candidate : candidates) {
+                place(candidate, containerLoads, now);
+            }
+        } catch (Exception e) {
+            LOG.warn("Error in policy "+name+" (ignoring): "+e, e);
+        }
+    }
+    
+    /**
+     * Returns the item's candidate locations (those with more demand than its current location), 
+     * or null if it should not or cannot be moved.
+     */
+    private Candidate evaluate(ItemType item, Map<Location, Double> sendsByLocation, long now) {
+        String itemName = model.getName(item);
+        Location activeLocation = model.getItemLocation(item);
+        if (sendsByLocation == null) sendsByLocation = Collections.emptyMap();
+        
+        if (parameters.excludedLocations.contains(activeLocation)) {
+            if (LOG.isTraceEnabled()) LOG.trace("Ignoring segment {} as it is in {}", itemName, activeLocation);
+            return null;
+        }
+        if (!model.isItemMoveable(item)) {
+            if (LOG.isDebugEnabled()) LOG.debug("POLICY {} skipping any migration of {}, it is not moveable", name, itemName);
+            return null;
+        }
+        if (model.hasActiveMigration(item)) {
+            LOG.info("POLICY {} skipping any migration of {}, it is involved in an active migration already", name, itemName);
+            return null;
+        }
+        
+        double total = DefaultFollowTheSunModel.sum(sendsByLocation.values());
 
-                if (LOG.isTraceEnabled()) LOG.trace("POLICY {} detected {} msgs/sec in {}, split up as: {}", new Object[] {name, total, itemName, sendsByLocation});
-                
-                Double current = sendsByLocation.get(activeLocation);
-                if (current == null) current=0d;
-                List<WeightedObject<Location>> locationsWtd = new ArrayList<WeightedObject<Location>>();
-                if (total > 0) {
-                    for (Map.Entry<Location, Double> entry : sendsByLocation.entrySet()) {
-                        Location l = entry.getKey();
-                        Double d = entry.getValue();
-                        if (d > current) locationsWtd.add(new WeightedObject<Location>(l, d));
-                    }
-                }
-                Collections.sort(locationsWtd);
-                Collections.reverse(locationsWtd);
-                
-                double highestMsgRate = -1;
-                Location highestLocation = null;
-                ContainerType optimalContainerInHighest = null;
-                while (!locationsWtd.isEmpty()) {
-                    WeightedObject<Location> weightedObject = locationsWtd.remove(0);
-                    highestMsgRate = weightedObject.getWeight();
-                    highestLocation = weightedObject.getObject();
-                    optimalContainerInHighest = findOptimal(model.getAvailableContainersFor(item, highestLocation));
-                    if (optimalContainerInHighest != null) {
-                        break;
-                    }
-                }
-                if (optimalContainerInHighest == null) {
-                    if (LOG.isDebugEnabled()) LOG.debug("POLICY {} detected {} is already in optimal permitted location ({} of {} msgs/sec)", new Object[] {name, itemName, highestMsgRate, total});
-                    continue;                   
-                }
-                
-                double nextHighestMsgRate = -1;
-                ContainerType optimalContainerInNextHighest = null;
-                while (!locationsWtd.isEmpty()) {
-                    WeightedObject<Location> weightedObject = locationsWtd.remove(0);
-                    nextHighestMsgRate = weightedObject.getWeight();
-                    Location nextHighestLocation = weightedObject.getObject();
-                    optimalContainerInNextHighest = findOptimal(model.getAvailableContainersFor(item, nextHighestLocation));
-                    if (optimalContainerInNextHighest != null) {
-                        break;
-                    }
-                }
-                if (optimalContainerInNextHighest == null) {
-                    nextHighestMsgRate = current;
+        if (LOG.isTraceEnabled()) LOG.trace("POLICY {} detected {} msgs/sec in {}, split up as: {}", new Object[] {name, total, itemName, sendsByLocation});
+        
+        Double current = sendsByLocation.get(activeLocation);
+        if (current == null) current=0d;
+        Location recentlyLeft = getRecentlyLeftLocation(item, now);
+        List<WeightedObject<Location>> locationsWtd = new ArrayList<WeightedObject<Location>>();
+        if (total > 0) {
+            for (Map.Entry<Location, Double> entry : sendsByLocation.entrySet()) {
+                Location l = entry.getKey();
+                Double d = entry.getValue();
+                if (d <= current) continue;
+                if (l.equals(recentlyLeft)) {
+                    if (LOG.isDebugEnabled()) LOG.debug("POLICY {} not considering moving {} back to {} so soon after leaving it", new Object[] {name, itemName, l});
+                    continue;
                 }
-                
-                if (parameters.isTriggered(highestMsgRate, total, nextHighestMsgRate, current)) {
-                    LOG.info("POLICY "+name+" detected "+itemName+" should be in location "+highestLocation+" on "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec), migrating");
-                    try {
-                        if (activeContainer.equals(optimalContainerInHighest)) {
-                            //shouldn't happen
-                            LOG.warn("POLICY "+name+" detected "+itemName+" should move to "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec) but it is already there with "+current+" msgs/sec");
-                        } else {
-                            item.move(optimalContainerInHighest);
-                            model.onItemMoved(item, optimalContainerInHighest);
-                        }
-                    } catch (Exception e) {
-                        LOG.warn("POLICY "+name+" detected "+itemName+" should be on "+optimalContainerInHighest+", but can't move it: "+e, e);
-                    }
+                locationsWtd.add(new WeightedObject<Location>(l, d));
+            }
+        }
+        if (locationsWtd.isEmpty()) {
+            if (LOG.isDebugEnabled()) LOG.debug("POLICY {} detected {} is already in optimal permitted location ({} msgs/sec)", new Object[] {name, itemName, total});
+            return null;
+        }
+        return new Candidate(item, total, current, locationsWtd);
+    }
+    
+    private void place(Candidate candidate, Map<ContainerType, Integer> containerLoads, long now) {
+        ItemType item = candidate.item;
+        String itemName = model.getName(item);
+        ContainerType activeContainer = model.getItemContainer(item);
+        Location activeLocation = model.getItemLocation(item);
+        double total = candidate.total;
+        double current = candidate.current;
+        List<WeightedObject<Location>> locationsWtd = candidate.locations;
+        
+        double highestMsgRate = -1;
+        Location highestLocation = null;
+        ContainerType optimalContainerInHighest = null;
+        while (!locationsWtd.isEmpty()) {
+            WeightedObject<Location> weightedObject = removeHighest(locationsWtd);
+            highestMsgRate = weightedObject.getWeight();
+            highestLocation = weightedObject.getObject();
+            optimalContainerInHighest = findOptimal(model.getAvailableContainersFor(item, highestLocation), containerLoads);
+            if (optimalContainerInHighest != null) {
+                break;
+            }
+        }
+        if (optimalContainerInHighest == null) {
+            if (LOG.isDebugEnabled()) LOG.debug("POLICY {} detected {} is already in optimal permitted location ({} of {} msgs/sec)", new Object[] {name, itemName, highestMsgRate, total});
+            return;
+        }
+        
+        double nextHighestMsgRate = -1;
+        ContainerType optimalContainerInNextHighest = null;
+        while (!locationsWtd.isEmpty()) {
+            WeightedObject<Location> weightedObject = removeHighest(locationsWtd);
+            nextHighestMsgRate = weightedObject.getWeight();
+            Location nextHighestLocation = weightedObject.getObject();
+            optimalContainerInNextHighest = findOptimal(model.getAvailableContainersFor(item, nextHighestLocation), containerLoads);
+            if (optimalContainerInNextHighest != null) {
+                break;
+            }
+        }
+        if (optimalContainerInNextHighest == null) {
+            nextHighestMsgRate = current;
+        }
+        
+        if (parameters.isTriggered(highestMsgRate, total, nextHighestMsgRate, current)) {
+            LOG.info("POLICY "+name+" detected "+itemName+" should be in location "+highestLocation+" on "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec), migrating");
+            try {
+                if (activeContainer != null && activeContainer.equals(optimalContainerInHighest)) {
+                    //shouldn't happen
+                    LOG.warn("POLICY "+name+" detected "+itemName+" should move to "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec) but it is already there with "+current+" msgs/sec");
                 } else {
-                    if (LOG.isTraceEnabled()) LOG.trace("POLICY "+name+" detected "+itemName+" need not move to "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec not much better than "+current+" at "+activeContainer+")");
+                    item.move(optimalContainerInHighest);
+                    model.onItemMoved(item, optimalContainerInHighest);
+                    if (activeContainer != null) adjustLoad(containerLoads, activeContainer, -1);
+                    adjustLoad(containerLoads, optimalContainerInHighest, 1);
+                    if (parameters.minPeriodBeforeMovingBack > 0 && activeLocation != null) {
+                        recentMoves.put(item, new RecentMove(activeLocation, now));
+                    }
                 }
+            } catch (Exception e) {
+                LOG.warn("POLICY "+name+" detected "+itemName+" should be on "+optimalContainerInHighest+", but can't move it: "+e, e);
             }
-        } catch (Exception e) {
-            LOG.warn("Error in policy "+name+" (ignoring): "+e, e);
+        } else {
+            if (LOG.isTraceEnabled()) LOG.trace("POLICY "+name+" detected "+itemName+" need not move to "+optimalContainerInHighest+" ("+highestMsgRate+" of "+total+" msgs/sec not much better than "+current+" at "+activeContainer+")");
         }
     }
 
-    private ContainerType findOptimal(Collection<ContainerType> contenders) {
-        /*
-         * TODO should choose the least loaded mediator. Currently chooses first available, and relies 
-         * on a load-balancer to move it again; would be good if these could share decision code so move 
-         * it to the right place immediately. e.g.
-         *   policyUtil.findLeastLoadedMediator(nodesInLocation);
-         */
-        return (contenders.isEmpty() ? null : Iterables.get(contenders, 0));
+    /**
+     * Chooses the least loaded of the contenders (by number of items) which has spare capacity, 
+     * preferring the first in case of ties; or null if none can take another item.
+     */
+    private ContainerType findOptimal(Collection<ContainerType> contenders, Map<ContainerType, Integer> containerLoads) {
+        ContainerType result = null;
+        int resultLoad = Integer.MAX_VALUE;
+        for (ContainerType contender : contenders) {
+            Integer load = containerLoads.get(contender);
+            int loadVal = (load != null) ? load : 0;
+            if (parameters.maxItemsPerContainer > 0 && loadVal >= parameters.maxItemsPerContainer) continue;
+            if (loadVal < resultLoad) {
+                result = contender;
+                resultLoad = loadVal;
+            }
+        }
+        return result;
+    }
+    
+    private void adjustLoad(Map<ContainerType, Integer> containerLoads, ContainerType container, int delta) {
+        Integer load = containerLoads.get(container);
+        containerLoads.put(container, (load != null ? load : 0) + delta);
+    }
+    
+    /** removes and returns the location with most demand; cheaper than sorting, as usually only one or two are needed */
+    private static WeightedObject<Location> removeHighest(List<WeightedObject<Location>> locationsWtd) {
+        int highestIndex = 0;
+        for (int i = 1; i < locationsWtd.size(); i++) {
+            if (locationsWtd.get(i).compareTo(locationsWtd.get(highestIndex)) > 0) highestIndex = i;
+        }
+        return locationsWtd.remove(highestIndex);
+    }
+    
+    private Location getRecentlyLeftLocation(ItemType item, long now) {
+        RecentMove move = recentMoves.get(item);
+        return (move != null && now - move.time < parameters.minPeriodBeforeMovingBack) ? move.from : null;
+    }
+    
+    private void expireRecentMoves(Set<ItemType> items, long now) {
+        for (Iterator<Map.Entry<ItemType, RecentMove>> it = recentMoves.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<ItemType, RecentMove> entry = it.next();
+            if (!items.contains(entry.getKey()) || now - entry.getValue().time >= parameters.minPeriodBeforeMovingBack) {
+                it.remove();
+            }
+        }
+    }
+    
+    private static class RecentMove {
+        final Location from;
+        final long time;
+        
+        RecentMove(Location from, long time) {
+            this.from = from;
+            this.time = time;
+        }
+    }
+    
+    /** an item which may be moved; ordered so those with the greatest potential gain in local demand come first */
+    private class Candidate implements Comparable<Candidate> {
+        final ItemType item;
+        final double total;
+        final double current;
+        final List<WeightedObject<Location>> locations;
+        final double gain;
+        
+        Candidate(ItemType item, double total, double current, List<WeightedObject<Location>> locations) {
+            this.item = item;
+            this.total = total;
+            this.current = current;
+            this.locations = locations;
+            this.gain = Collections.max(locations).getWeight() - current;
+        }
+        
+        @Override
+        public int compareTo(Candidate o) {
+            return Double.compare(o.gain, gain);
+        }
     }
 }
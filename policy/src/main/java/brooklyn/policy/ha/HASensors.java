@@ -1,5 +1,6 @@
 package brooklyn.policy.ha;
 
+import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.event.basic.BasicNotificationSensor;
 
 public class HASensors {
@@ -10,6 +11,9 @@ public class HASensors {
     public static final BasicNotificationSensor<FailureDescriptor> ENTITY_RECOVERED = new BasicNotificationSensor<FailureDescriptor>(
             FailureDescriptor.class, "ha.entityRecovered", "Indicates that a previously failed entity has recovered");
     
+    public static final BasicAttributeSensor<Double> FAILURE_SUSPICION = new BasicAttributeSensor<Double>(
+            Double.class, "ha.failureSuspicion", "Phi-accrual suspicion level that an entity has failed (set on members when using phi-accrual failure detection)");
+    
     // TODO How to make this serializable with the entity reference
     public static class FailureDescriptor {
         private final Object component;
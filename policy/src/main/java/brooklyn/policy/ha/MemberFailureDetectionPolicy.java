@@ -12,6 +12,7 @@ import brooklyn.entity.basic.EntityLocal;
 import brooklyn.entity.basic.Lifecycle;
 import brooklyn.entity.trait.Changeable;
 import brooklyn.entity.trait.Startable;
+import brooklyn.event.AttributeSensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
 import brooklyn.policy.basic.AbstractPolicy;
@@ -39,6 +40,18 @@ import com.google.common.collect.Maps;
  * These criteria can be further configured using "onlyReportIfPreviouslyUp" and
  * "useServiceStateRunning".
  * 
+ * Alternatively, with "usePhiAccrual", failure is instead detected from the absence of heartbeats:
+ * updates of the "heartbeatSensor" (by default service-up, as republished by each poll) other than
+ * false/null. The suspicion level "phi" of each member is computed from the distribution of its recent
+ * heartbeat intervals (see {@link PhiAccrualFailureDetector}) every "phiCheckPeriod" ms, and published 
+ * on the member as {@link HASensors#FAILURE_SUSPICION} when it has moved by at least "phiPublishDelta"
+ * since last published, or has crossed the threshold; a member is reported as failed once phi reaches
+ * "phiThreshold", so a single late or failed poll does not cause a failure to be reported.
+ * If the heartbeats come from an adaptive poll (one with a "maxPeriod"), set "maxHeartbeatPeriod" to that
+ * maximum period: otherwise the poll backing off looks like heartbeats stopping, and healthy members are
+ * reported as failed.
+ * A member which is on-fire is still reported as failed immediately.
+ * 
  * @author aled
  */
 public class MemberFailureDetectionPolicy extends AbstractPolicy {
@@ -54,10 +67,38 @@ public class MemberFailureDetectionPolicy extends AbstractPolicy {
     @SetFromFlag
     private Predicate<? super Entity> memberFilter;
     
+    @SetFromFlag(defaultVal="false")
+    private boolean usePhiAccrual;
+    
+    @SetFromFlag
+    private AttributeSensor<?> heartbeatSensor;
+    
+    @SetFromFlag(defaultVal="8")
+    private double phiThreshold;
+    
+    @SetFromFlag(defaultVal="100")
+    private int phiWindowSize;
+    
+    @SetFromFlag(defaultVal="100")
+    private long phiMinStdDeviation;
+    
+    /** longest expected interval between heartbeats of a healthy member, in ms; 0 if they arrive at a steady rate */
+    @SetFromFlag(defaultVal="0")
+    private long maxHeartbeatPeriod;
+    
+    @SetFromFlag(defaultVal="1000")
+    private long phiCheckPeriod;
+    
+    @SetFromFlag(defaultVal="0.5")
+    private double phiPublishDelta;
+    
     private final Map<Entity, Long> memberFailures = Maps.newLinkedHashMap();
     private final Map<Entity, Long> memberLastUps = Maps.newLinkedHashMap();
     private final Map<Entity, Boolean> memberIsUps = Maps.newLinkedHashMap();
     private final Map<Entity, Lifecycle> memberStates = Maps.newLinkedHashMap();
+    private final Map<Entity, PhiAccrualFailureDetector> memberDetectors = Maps.newLinkedHashMap();
+    private final Map<Entity, Boolean> memberSuspected = Maps.newLinkedHashMap();
+    private final Map<Entity, Double> memberPublishedPhis = Maps.newLinkedHashMap();
 
     public MemberFailureDetectionPolicy() {
         this(MutableMap.<String,Object>of());
@@ -67,6 +108,7 @@ public class MemberFailureDetectionPolicy extends AbstractPolicy {
         super(flags);
         
         if (memberFilter == null) memberFilter = Predicates.alwaysTrue();
+        if (heartbeatSensor == null) heartbeatSensor = Startable.SERVICE_UP;
     }
     
     @Override
@@ -82,6 +124,18 @@ public class MemberFailureDetectionPolicy extends AbstractPolicy {
             });
         }
         
+        if (usePhiAccrual) {
+            subscribeToMembers((Group)entity, heartbeatSensor, new SensorEventListener<Object>() {
+                @Override public void onEvent(SensorEvent<Object> event) {
+                    if (!memberFilter.apply(event.getSource())) return;
+                    Object value = event.getValue();
+                    if (value != null && !Boolean.FALSE.equals(value)) {
+                        onMemberHeartbeat(event.getSource(), event.getTimestamp());
+                    }
+                }
+            });
+        }
+        
         subscribeToMembers((Group)entity, Startable.SERVICE_UP, new SensorEventListener<Boolean>() {
             @Override public void onEvent(SensorEvent<Boolean> event) {
                 if (!memberFilter.apply(event.getSource())) return;
@@ -106,6 +160,63 @@ public class MemberFailureDetectionPolicy extends AbstractPolicy {
             if (!memberFilter.apply(member)) continue;
             onMemberAdded(member);
         }
+        
+        if (usePhiAccrual) schedulePhiCheck();
+    }
+    
+    @Override
+    public void resume() {
+        super.resume();
+        if (usePhiAccrual && entity != null) schedulePhiCheck();
+    }
+    
+    private void schedulePhiCheck() {
+        schedule(new Runnable() {
+            @Override public void run() {
+                try {
+                    checkMembersPhi();
+                } finally {
+                    if (isRunning()) schedulePhiCheck();
+                }
+            }},
+            phiCheckPeriod);
+    }
+    
+    private synchronized void onMemberHeartbeat(Entity member, long timestamp) {
+        PhiAccrualFailureDetector detector = memberDetectors.get(member);
+        if (detector == null) {
+            detector = new PhiAccrualFailureDetector(phiWindowSize, phiMinStdDeviation, maxHeartbeatPeriod);
+            memberDetectors.put(member, detector);
+        }
+        detector.heartbeat(timestamp > 0 ? timestamp : System.currentTimeMillis());
+        if (Boolean.TRUE.equals(memberSuspected.get(member))) {
+            // heartbeats have resumed
+            updateSuspicion(member, detector, System.currentTimeMillis());
+        }
+    }
+    
+    private synchronized void checkMembersPhi() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Entity, PhiAccrualFailureDetector> entry : memberDetectors.entrySet()) {
+            updateSuspicion(entry.getKey(), entry.getValue(), now);
+        }
+    }
+    
+    private void updateSuspicion(Entity member, PhiAccrualFailureDetector detector, long now) {
+        double phi = detector.phi(now);
+        boolean suspected = phi >= phiThreshold;
+        Boolean old = memberSuspected.put(member, suspected);
+        Double published = memberPublishedPhis.get(member);
+        if (member instanceof EntityLocal && 
+                (published == null || Math.abs(phi - published) >= phiPublishDelta || !Objects.equal(old, suspected))) {
+            // not on every check, as each publish is a sensor event to every subscriber of the member
+            memberPublishedPhis.put(member, phi);
+            ((EntityLocal)member).setAttribute(HASensors.FAILURE_SUSPICION, phi);
+        }
+        if (!Objects.equal(old, suspected)) {
+            if (LOG.isDebugEnabled()) LOG.debug("{} suspicion of {} now {} (phi {})", new Object[] {this, member, suspected, phi});
+            checkMemberHealth(member);
+        }
     }
     
     private synchronized void onMemberIsUp(Entity member, Boolean isUp) {
@@ -144,27 +255,50 @@ public class MemberFailureDetectionPolicy extends AbstractPolicy {
         memberIsUps.remove(member);
         memberLastUps.remove(member);
         memberFailures.remove(member);
+        memberDetectors.remove(member);
+        memberSuspected.remove(member);
+        memberPublishedPhis.remove(member);
     }
     
     private synchronized void checkMemberHealth(Entity member) {
         Long lastUpTime = memberLastUps.get(member);
         Boolean isUp = memberIsUps.get(member);
         Lifecycle status = memberStates.get(member);
-        boolean failed = 
-                (useServiceStateRunning && status == Lifecycle.ON_FIRE) ||
-                (Boolean.FALSE.equals(isUp) &&
-                        (useServiceStateRunning ? status == Lifecycle.RUNNING : true) && 
-                        (onlyReportIfPreviouslyUp ? lastUpTime != null : true));
-        boolean recovered = 
-                (useServiceStateRunning ? status == Lifecycle.RUNNING : true) && 
-                Boolean.TRUE.equals(isUp);
+        boolean failed;
+        boolean recovered;
+        if (usePhiAccrual) {
+            // a heartbeat is required before suspicion can accrue, so onlyReportIfPreviouslyUp is implicit
+            Boolean suspected = memberSuspected.get(member);
+            failed = 
+                    (useServiceStateRunning && status == Lifecycle.ON_FIRE) ||
+                    (Boolean.TRUE.equals(suspected) &&
+                            (useServiceStateRunning ? status == Lifecycle.RUNNING : true));
+            recovered = 
+                    (useServiceStateRunning ? status == Lifecycle.RUNNING : true) && 
+                    Boolean.FALSE.equals(suspected);
+        } else {
+            failed = 
+                    (useServiceStateRunning && status == Lifecycle.ON_FIRE) ||
+                    (Boolean.FALSE.equals(isUp) &&
+                            (useServiceStateRunning ? status == Lifecycle.RUNNING : true) && 
+                            (onlyReportIfPreviouslyUp ? lastUpTime != null : true));
+            recovered = 
+                    (useServiceStateRunning ? status == Lifecycle.RUNNING : true) && 
+                    Boolean.TRUE.equals(isUp);
+        }
 
+        PhiAccrualFailureDetector detector = memberDetectors.get(member);
         String description = String.format("location=%s; isUp=%s; status=%s; lastReportedUp=%s; timeNow=%s", 
                 member.getLocations(), 
                 (isUp != null ? isUp : "<unreported>"),
                 (status != null ? status : "<unreported>"),
                 (lastUpTime != null ? Time.makeDateString(lastUpTime) : "<never>"),
                 Time.makeDateString(System.currentTimeMillis()));
+        if (usePhiAccrual) {
+            description += String.format("; phi=%s; lastHeartbeat=%s", 
+                    (detector != null ? detector.phi(System.currentTimeMillis()) : "<unreported>"),
+                    (detector != null && detector.isAvailable() ? Time.makeDateString(detector.getLastHeartbeat()) : "<never>"));
+        }
 
         if (memberFailures.containsKey(member)) {
             if (recovered) {
@@ -0,0 +1,110 @@
+package brooklyn.policy.ha;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Phi-accrual failure detector (Hayashibara et al.) for a single monitored component.
+ * <p>
+ * Records the times at which heartbeats arrive, keeping the most recent inter-arrival intervals in a
+ * fixed-size ring buffer, and computes "phi": the suspicion that the component has failed, given how long
+ * it has been since the last heartbeat compared with the distribution of past intervals (assumed normal).
+ * Phi of 1 means roughly a 10% chance that a heartbeat this late would still arrive, 2 means 1%, 3 means
+ * 0.1%, and so on; so rather than failing a component on a single missed or late heartbeat, a caller
+ * declares failure once phi exceeds a threshold reflecting the acceptable chance of a mistake.
+ * <p>
+ * Heartbeats which legitimately slow down (e.g. from adaptive polling, or a poller delayed on a busy host)
+ * would look like a failure against a distribution of regular intervals, so the mean interval is taken to be
+ * at least the expected maximum interval, if given, and the standard deviation at least a quarter of the mean.
+ * <p>
+ * Not thread-safe; callers must synchronize.
+ */
+public class PhiAccrualFailureDetector {
+
+    /** lower bound on the standard deviation, as a fraction of the mean interval */
+    public static final double MIN_STD_DEVIATION_FRACTION = 0.25;
+
+    private final double[] intervals;
+    private final double minStdDeviation;
+    private final double expectedMaxInterval;
+    private int count;
+    private int next;
+    private double sum;
+    private double sumOfSquares;
+    private long lastHeartbeat = -1;
+
+    /**
+     * @param windowSize       number of recent inter-arrival intervals to consider
+     * @param minStdDeviation  lower bound (in ms) on the standard deviation, so that very regular heartbeats
+     *                         do not make phi over-sensitive to small delays
+     */
+    public PhiAccrualFailureDetector(int windowSize, double minStdDeviation) {
+        this(windowSize, minStdDeviation, 0);
+    }
+
+    /**
+     * @param windowSize       number of recent inter-arrival intervals to consider
+     * @param minStdDeviation  lower bound (in ms) on the standard deviation
+     * @param expectedMaxInterval  longest interval (in ms) expected between heartbeats of a healthy component,
+     *                         e.g. the maximum period of an adaptive poll; 0 if heartbeats are expected at a steady rate
+     */
+    public PhiAccrualFailureDetector(int windowSize, double minStdDeviation, double expectedMaxInterval) {
+        Preconditions.checkArgument(windowSize > 0, "windowSize must be positive");
+        Preconditions.checkArgument(minStdDeviation > 0, "minStdDeviation must be positive");
+        Preconditions.checkArgument(expectedMaxInterval >= 0, "expectedMaxInterval must not be negative");
+        this.intervals = new double[windowSize];
+        this.minStdDeviation = minStdDeviation;
+        this.expectedMaxInterval = expectedMaxInterval;
+    }
+
+    /** records a heartbeat received at the given time */
+    public void heartbeat(long time) {
+        if (lastHeartbeat >= 0) {
+            double interval = Math.max(0, time - lastHeartbeat);
+            if (count == intervals.length) {
+                double oldest = intervals[next];
+                sum -= oldest;
+                sumOfSquares -= oldest*oldest;
+            } else {
+                count++;
+            }
+            intervals[next] = interval;
+            next = (next + 1) % intervals.length;
+            sum += interval;
+            sumOfSquares += interval*interval;
+        }
+        lastHeartbeat = time;
+    }
+
+    /** whether any heartbeats have been received */
+    public boolean isAvailable() {
+        return lastHeartbeat >= 0;
+    }
+
+    /** the time of the last heartbeat, or -1 if none */
+    public long getLastHeartbeat() {
+        return lastHeartbeat;
+    }
+
+    /**
+     * The suspicion level at the given time; 0 if there are too few heartbeats to judge
+     * (fewer than two, so no intervals).
+     */
+    public double phi(long time) {
+        if (count == 0) return 0;
+        double observedMean = sum / count;
+        double variance = Math.max(0, sumOfSquares / count - observedMean*observedMean);
+        double mean = Math.max(observedMean, expectedMaxInterval);
+        double stdDeviation = Math.max(Math.max(Math.sqrt(variance), minStdDeviation), mean * MIN_STD_DEVIATION_FRACTION);
+        double elapsed = time - lastHeartbeat;
+
+        // logistic approximation of the normal cumulative distribution function, as used by Akka and Cassandra
+        double y = (elapsed - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (elapsed > mean) {
+            e = Math.max(e, Double.MIN_NORMAL); // keep phi finite, however late
+            return -Math.log10(e / (1.0 + e));
+        } else {
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+    }
+}
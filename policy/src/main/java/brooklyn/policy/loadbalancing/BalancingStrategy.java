@@ -32,6 +32,12 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
     private final String name;
     private final BalanceablePoolModel<NodeType, ItemType> model;
     private final PolicyUtilForPool<NodeType, ItemType> helper;
+    
+    // Budget for the current run; see rebalance(Collection, long, int)
+    private long runDeadline = Long.MAX_VALUE;
+    private int runMaxMigrations = Integer.MAX_VALUE;
+    private int runMigrations = 0;
+    private volatile int lastMigrationCount = 0;
 //    private boolean loggedColdestTooHigh = false;
 //    private boolean loggedHottestTooLow = false;
     
@@ -47,7 +53,35 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
     }
     
     public void rebalance() {
-        checkAndApplyOn(model.getPoolContents());
+        rebalance(model.getPoolContents(), 0, 0);
+    }
+    
+    /**
+     * Balances the given nodes (against the rest of the pool), stopping early once the budget for this run
+     * is used up. Not thread-safe; callers are expected to run one rebalance at a time.
+     * 
+     * @param maxTimeMs      time after which no further nodes are considered, or 0 for no limit
+     * @param maxMigrations  number of migrations after which balancing stops, or 0 for no limit
+     * @return the nodes which were not considered because the budget was exhausted
+     */
+    public Set<NodeType> rebalance(Collection<NodeType> nodes, long maxTimeMs, int maxMigrations) {
+        runDeadline = (maxTimeMs > 0) ? System.currentTimeMillis() + maxTimeMs : Long.MAX_VALUE;
+        runMaxMigrations = (maxMigrations > 0) ? maxMigrations : Integer.MAX_VALUE;
+        runMigrations = 0;
+        try {
+            return checkAndApplyOn(nodes);
+        } finally {
+            lastMigrationCount = runMigrations;
+        }
+    }
+    
+    /** the number of migrations performed by the most recent rebalance */
+    public int getLastMigrationCount() {
+        return lastMigrationCount;
+    }
+    
+    protected boolean isBudgetExhausted() {
+        return runMigrations >= runMaxMigrations || System.currentTimeMillis() >= runDeadline;
     }
     
     public int getMaxMigrationsPerBalancingNode() {
@@ -59,7 +93,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
     }
     
     // This was the entry point for the legacy policy.
-    private void checkAndApplyOn(final Collection<NodeType> dirtyNodesSupplied) {
+    private Set<NodeType> checkAndApplyOn(final Collection<NodeType> dirtyNodesSupplied) {
         Collection<NodeType> dirtyNodes = dirtyNodesSupplied;
         
 //        if (startTime + FORCE_ALL_NODES_IF_DELAYED_FOR_MILLIS < System.currentTimeMillis()) {
@@ -85,14 +119,19 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
 //            getDataProvider().waitForAllTransitionsComplete();
 //        }
         
+        Set<NodeType> notConsidered = new LinkedHashSet<NodeType>();
         if (getDataProvider().getPoolSize() >= 2) {
             boolean didBalancing = false;
             for (NodeType a : nonFrozenDirtyNodes) {
+                if (isBudgetExhausted()) {
+                    notConsidered.add(a);
+                    continue;
+                }
                 didBalancing |= balanceItemsOnNodesInQuestion(a, gonnaGrow);
 //                getMutator().waitForAllTransitionsComplete();
             }
             if (didBalancing) {
-                return;
+                return notConsidered;
             }
         }
         
@@ -111,6 +150,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
 //            LOG.debug(MessageFormat.format("policy "+getDataProvider().getAbbr()+" did nothing; pool workrate is {0,number,#.##} x {1} nodes",
 //                    1.0*poolTotal/poolSize, poolSize));
 //        }
+        return notConsidered;
     }
     
     protected boolean balanceItemsOnNodesInQuestion(NodeType questionedNode, boolean gonnaGrow) {
@@ -161,7 +201,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
             return false;
         }
         
-        while (nodeWorkrate > highThreshold && migrationCount < getMaxMigrationsPerBalancingNode()) {
+        while (nodeWorkrate > highThreshold && migrationCount < getMaxMigrationsPerBalancingNode() && !isBudgetExhausted()) {
             iterationCount++;
             
             if (LOG.isDebugEnabled()) {
@@ -355,7 +395,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
         Location questionedLocation = getDataProvider().getLocation(questionedNode);
         
         double lowThreshold = model.getLowThreshold(questionedNode);
-        while (questionedNodeTotalWorkrate < lowThreshold) {
+        while (questionedNodeTotalWorkrate < lowThreshold && !isBudgetExhausted()) {
             iters++;
             
             if (LOG.isDebugEnabled()) {
@@ -523,6 +563,7 @@ public class BalancingStrategy<NodeType extends Entity, ItemType extends Movable
     protected void moveItem(ItemType item, NodeType oldNode, NodeType newNode) {
         item.move(newNode);
         model.onItemMoved(item, newNode);
+        runMigrations++;
     }
     
     /**
@@ -3,9 +3,11 @@ package brooklyn.policy.loadbalancing;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -36,6 +38,9 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
      *  - Unfortunately changing threading model (so have a "rebalancer" thread, and a thread that 
      *    processes events to update the model), get ConcurrentModificationException if don't take
      *    copy of containerToItems.get(node)...
+     *  - The strategy looks up the hottest/coldest container on every migration; rather than summing each
+     *    container's items on every lookup, a running total per container is maintained on each event, 
+     *    and containers are kept ordered by spare capacity (see containersBySpareCapacity).
      */
     
     // Concurrent maps cannot have null value; use this to represent when no container is supplied for an item 
@@ -50,6 +55,13 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     private final Map<ItemType, Double> itemToWorkrate = new ConcurrentHashMap<ItemType, Double>();
     private final Set<ItemType> immovableItems = Collections.newSetFromMap(new ConcurrentHashMap<ItemType, Boolean>());
     
+    // Guards the running totals and index below, and keeps them consistent with item workrates and placement
+    private final Object workrateLock = new Object();
+    private final Map<ContainerType, Double> containerToWorkrate = new HashMap<ContainerType, Double>();
+    private final TreeMap<SpareCapacityKey, ContainerType> containersBySpareCapacity = new TreeMap<SpareCapacityKey, ContainerType>();
+    private final Map<ContainerType, SpareCapacityKey> containerToSpareCapacityKey = new HashMap<ContainerType, SpareCapacityKey>();
+    private long nextKeySequence = 0;
+    
     private volatile double poolLowThreshold = 0;
     private volatile double poolHighThreshold = 0;
     private volatile double currentPoolWorkrate = 0;
@@ -100,13 +112,10 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     }
     
     @Override public double getTotalWorkrate(ContainerType container) {
-        double totalWorkrate = 0;
-        for (ItemType item : getItemsForContainer(container)) {
-            Double workrate = itemToWorkrate.get(item);
-            if (workrate != null)
-                totalWorkrate += Math.abs(workrate);
+        synchronized (workrateLock) {
+            Double result = containerToWorkrate.get(container);
+            return (result != null) ? result : 0;
         }
-        return totalWorkrate;
     }
     
     @Override public Map<ContainerType, Double> getContainerWorkrates() {
@@ -144,10 +153,13 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
             		"if onItemAdded subsequently received will get new container then", item, newNode);
             return;
         }
-        ContainerType newNodeNonNull = toNonNullContainer(newNode);
-        ContainerType oldNode = itemToContainer.put(item, newNodeNonNull);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        if (newNode != null) containerToItems.put(newNode, item);
+        synchronized (workrateLock) {
+            ContainerType newNodeNonNull = toNonNullContainer(newNode);
+            ContainerType oldNode = itemToContainer.put(item, newNodeNonNull);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            if (newNode != null) containerToItems.put(newNode, item);
+            onItemWorkrateMoved(item, oldNode, newNodeNonNull);
+        }
     }
     
     @Override
@@ -158,8 +170,11 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
             LOG.debug("Duplicate container-added event for {}; ignoring", newContainer);
             return;
         }
-        containerToLowThreshold.put(newContainer, lowThreshold);
-        containerToHighThreshold.put(newContainer, highThreshold);
+        synchronized (workrateLock) {
+            containerToLowThreshold.put(newContainer, lowThreshold);
+            containerToHighThreshold.put(newContainer, highThreshold);
+            reindex(newContainer);
+        }
         poolLowThreshold += lowThreshold;
         poolHighThreshold += highThreshold;
     }
@@ -167,8 +182,13 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     @Override
     public void onContainerRemoved(ContainerType oldContainer) {
         containers.remove(oldContainer);
-        Double containerLowThreshold = containerToLowThreshold.remove(oldContainer);
-        Double containerHighThresold = containerToHighThreshold.remove(oldContainer);
+        Double containerLowThreshold;
+        Double containerHighThresold;
+        synchronized (workrateLock) {
+            containerLowThreshold = containerToLowThreshold.remove(oldContainer);
+            containerHighThresold = containerToHighThreshold.remove(oldContainer);
+            reindex(oldContainer);
+        }
         poolLowThreshold -= (containerLowThreshold != null ? containerLowThreshold : 0);
         poolHighThreshold -= (containerHighThresold != null ? containerHighThresold : 0);
         
@@ -188,32 +208,42 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
         if (immovable)
             immovableItems.add(item);
         
-        ContainerType parentContainerNonNull = toNonNullContainer(parentContainer);
-        ContainerType oldNode = itemToContainer.put(item, parentContainerNonNull);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        if (parentContainer != null) containerToItems.put(parentContainer, item);
+        synchronized (workrateLock) {
+            ContainerType parentContainerNonNull = toNonNullContainer(parentContainer);
+            ContainerType oldNode = itemToContainer.put(item, parentContainerNonNull);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            if (parentContainer != null) containerToItems.put(parentContainer, item);
+            onItemWorkrateMoved(item, oldNode, parentContainerNonNull);
+        }
     }
     
     @Override
     public void onItemRemoved(ItemType item) {
-        ContainerType oldNode = itemToContainer.remove(item);
-        if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
-        Double workrate = itemToWorkrate.remove(item);
-        if (workrate != null)
-            currentPoolWorkrate -= workrate;
+        synchronized (workrateLock) {
+            ContainerType oldNode = itemToContainer.remove(item);
+            if (oldNode != null && oldNode != NULL_CONTAINER) containerToItems.remove(oldNode, item);
+            Double workrate = itemToWorkrate.remove(item);
+            if (workrate != null) {
+                currentPoolWorkrate -= workrate;
+                adjustContainerWorkrate(oldNode, -Math.abs(workrate));
+            }
+        }
         immovableItems.remove(item);
     }
     
     @Override
     public void onItemWorkrateUpdated(ItemType item, double newValue) {
-        if (hasItem(item)) {
-            Double oldValue = itemToWorkrate.put(item, newValue);
-            double delta = ( newValue - (oldValue != null ? oldValue : 0) );
-            currentPoolWorkrate += delta;
-        } else {
-            // Can happen when item removed - get notification of removal and workrate from group and item
-            // respectively, so can overtake each other
-            if (LOG.isDebugEnabled()) LOG.debug("Ignoring setting of workrate for unknown item {}, to {}", item, newValue);
+        synchronized (workrateLock) {
+            if (hasItem(item)) {
+                Double oldValue = itemToWorkrate.put(item, newValue);
+                double delta = ( newValue - (oldValue != null ? oldValue : 0) );
+                currentPoolWorkrate += delta;
+                adjustContainerWorkrate(itemToContainer.get(item), Math.abs(newValue) - (oldValue != null ? Math.abs(oldValue) : 0));
+            } else {
+                // Can happen when item removed - get notification of removal and workrate from group and item
+                // respectively, so can overtake each other
+                if (LOG.isDebugEnabled()) LOG.debug("Ignoring setting of workrate for unknown item {}, to {}", item, newValue);
+            }
         }
     }
     
@@ -222,6 +252,108 @@ public class DefaultBalanceablePoolModel<ContainerType, ItemType> implements Bal
     }
     
     
+    // Hot/cold lookup.
+    
+    /**
+     * Returns the container with the most spare capacity (highThreshold - totalWorkrate), or null if no container
+     * (other than those excluded, or not permitted by the constraint) has spare capacity.
+     * Of containers with equal spare capacity, returns the one first added to the pool (as does {@link #findHottestContainer(Set)}).
+     * Takes O(log n), plus the number of containers skipped.
+     */
+    public ContainerType findColdestContainer(Set<ContainerType> excludedContainers, LocationConstraint locationConstraint) {
+        synchronized (workrateLock) {
+            // descending by spare capacity, but ascending by sequence within each spare capacity
+            Map.Entry<SpareCapacityKey, ContainerType> highest = containersBySpareCapacity.lastEntry();
+            while (highest != null) {
+                double spareCapacity = highest.getKey().spareCapacity;
+                if (spareCapacity <= 0) return null;
+                SpareCapacityKey first = new SpareCapacityKey(spareCapacity, Long.MIN_VALUE);
+                SpareCapacityKey last = new SpareCapacityKey(spareCapacity, Long.MAX_VALUE);
+                for (ContainerType c : containersBySpareCapacity.subMap(first, true, last, true).values()) {
+                    if (excludedContainers.contains(c)) continue;
+                    if (locationConstraint != null && !locationConstraint.isPermitted(getLocation(c))) continue;
+                    return c;
+                }
+                highest = containersBySpareCapacity.lowerEntry(first);
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Returns the container with the greatest overshoot (totalWorkrate - highThreshold), or null if no container
+     * (other than those excluded) is over its threshold.
+     * Takes O(log n), plus the number of containers skipped.
+     */
+    public ContainerType findHottestContainer(Set<ContainerType> excludedContainers) {
+        synchronized (workrateLock) {
+            for (Map.Entry<SpareCapacityKey, ContainerType> entry : containersBySpareCapacity.entrySet()) {
+                if (entry.getKey().spareCapacity >= 0) return null;
+                ContainerType c = entry.getValue();
+                if (excludedContainers.contains(c)) continue;
+                return c;
+            }
+            return null;
+        }
+    }
+    
+    /** must be called holding workrateLock */
+    private void onItemWorkrateMoved(ItemType item, ContainerType oldNode, ContainerType newNode) {
+        if (oldNode == newNode) return;
+        Double workrate = itemToWorkrate.get(item);
+        if (workrate == null) return;
+        adjustContainerWorkrate(oldNode, -Math.abs(workrate));
+        adjustContainerWorkrate(newNode, Math.abs(workrate));
+    }
+    
+    /** must be called holding workrateLock */
+    private void adjustContainerWorkrate(ContainerType container, double delta) {
+        if (container == null || container == NULL_CONTAINER || delta == 0) return;
+        Double old = containerToWorkrate.get(container);
+        double total = (old != null ? old : 0) + delta;
+        if (!containerToItems.containsKey(container)) {
+            // no items left, so reset to avoid accumulating rounding errors
+            containerToWorkrate.remove(container);
+        } else {
+            containerToWorkrate.put(container, total);
+        }
+        reindex(container);
+    }
+    
+    /** must be called holding workrateLock */
+    private void reindex(ContainerType container) {
+        SpareCapacityKey oldKey = containerToSpareCapacityKey.remove(container);
+        if (oldKey != null) containersBySpareCapacity.remove(oldKey);
+        
+        Double highThreshold = containerToHighThreshold.get(container);
+        if (highThreshold != null && highThreshold != -1) {
+            Double total = containerToWorkrate.get(container);
+            SpareCapacityKey key = new SpareCapacityKey(highThreshold - (total != null ? total : 0), 
+                    (oldKey != null) ? oldKey.sequence : nextKeySequence++);
+            containersBySpareCapacity.put(key, container);
+            containerToSpareCapacityKey.put(container, key);
+        }
+    }
+    
+    /** orders containers by spare capacity, with ties broken by the order in which containers were first indexed */
+    private static class SpareCapacityKey implements Comparable<SpareCapacityKey> {
+        final double spareCapacity;
+        final long sequence;
+        
+        SpareCapacityKey(double spareCapacity, long sequence) {
+            this.spareCapacity = spareCapacity;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public int compareTo(SpareCapacityKey o) {
+            int result = Double.compare(spareCapacity, o.spareCapacity);
+            if (result != 0) return result;
+            return (sequence < o.sequence) ? -1 : (sequence == o.sequence ? 0 : 1);
+        }
+    }
+    
+    
     // Additional methods for tests.
 
     /**
@@ -3,12 +3,15 @@ package brooklyn.policy.loadbalancing;
 import static brooklyn.util.GroovyJavaMethods.elvis;
 import static brooklyn.util.GroovyJavaMethods.truth;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +24,7 @@ import brooklyn.event.AttributeSensor;
 import brooklyn.event.Sensor;
 import brooklyn.event.SensorEvent;
 import brooklyn.event.SensorEventListener;
+import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.policy.autoscaling.AutoScalerPolicy;
 import brooklyn.policy.basic.AbstractPolicy;
 import brooklyn.policy.loadbalancing.BalanceableWorkerPool.ContainerItemPair;
@@ -45,6 +49,12 @@ import com.google.common.collect.ImmutableMap;
  * <code>POOL_COLD</code> and <code>POOL_HOT</code> events when it is determined that there is a surplus or shortfall
  * of container resource in the pool respectively. These events may be consumed by a separate policy that is capable
  * of resizing the container pool.
+ * 
+ * <p>By default each rebalance considers every container in the pool. With <code>incremental</code> set, only
+ * containers whose items have changed since the last rebalance (plus the currently hottest and coldest containers)
+ * are considered; with <code>maxRebalanceTime</code> and/or <code>maxMigrationsPerRebalance</code> set, a rebalance
+ * stops once that budget is used and the remaining containers are considered in the next one.
+ * The duration and number of migrations of each rebalance are published on the pool entity.
  */
 public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movable> extends AbstractPolicy {
     
@@ -53,6 +63,25 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
     @SetFromFlag(defaultVal="100")
     private long minPeriodBetweenExecs;
     
+    /** whether to consider only containers which have changed since the last rebalance */
+    @SetFromFlag(defaultVal="false")
+    private boolean incremental;
+    
+    /** time (in ms) after which a rebalance stops considering further containers; 0 for no limit */
+    @SetFromFlag(defaultVal="0")
+    private long maxRebalanceTime;
+    
+    /** number of migrations after which a rebalance stops; 0 for no limit */
+    @SetFromFlag(defaultVal="0")
+    private int maxMigrationsPerRebalance;
+    
+    public static final BasicAttributeSensor<Long> REBALANCE_DURATION = new BasicAttributeSensor<Long>(
+            Long.class, "loadbalancing.rebalance.duration", "Time taken (in ms) by the most recent rebalance");
+    public static final BasicAttributeSensor<Integer> REBALANCE_MIGRATIONS = new BasicAttributeSensor<Integer>(
+            Integer.class, "loadbalancing.rebalance.migrations", "Number of items migrated by the most recent rebalance");
+    public static final BasicAttributeSensor<Long> REBALANCE_MIGRATIONS_TOTAL = new BasicAttributeSensor<Long>(
+            Long.class, "loadbalancing.rebalance.migrations.total", "Total number of items migrated by rebalancing");
+    
     private final AttributeSensor<? extends Number> metric;
     private final String lowThresholdConfigKeyName;
     private final String highThresholdConfigKeyName;
@@ -60,9 +89,12 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
     private final BalancingStrategy<NodeType, ItemType> strategy;
     private BalanceableWorkerPool poolEntity;
     
-    private volatile ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean executorQueued = new AtomicBoolean(false);
     private volatile long executorTime = 0;
+    
+    // Containers not reached by the last rebalance, and (if incremental) those changed since
+    private final Set<NodeType> dirtyContainers = Collections.newSetFromMap(new ConcurrentHashMap<NodeType, Boolean>());
+    private final AtomicLong totalMigrations = new AtomicLong();
 
     private int lastEmittedDesiredPoolSize = 0;
     private String lastEmittedPoolTemperature = null; // "cold" or "hot"
@@ -136,14 +168,12 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
     public void suspend() {
         // TODO unsubscribe from everything? And resubscribe on resume?
         super.suspend();
-        if (executor != null) executor.shutdownNow();;
         executorQueued.set(false);
     }
     
     @Override
     public void resume() {
         super.resume();
-        executor = Executors.newSingleThreadScheduledExecutor();
         executorTime = 0;
         executorQueued.set(false);
     }
@@ -153,12 +183,12 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
             long now = System.currentTimeMillis();
             long delay = Math.max(0, (executorTime + minPeriodBetweenExecs) - now);
             
-            executor.schedule(new Runnable() {
+            schedule(new Runnable() {
                 public void run() {
                     try {
                         executorTime = System.currentTimeMillis();
                         executorQueued.set(false);
-                        strategy.rebalance();
+                        rebalance();
                         
                         if (LOG.isDebugEnabled()) LOG.debug("{} post-rebalance: poolSize={}; workrate={}; lowThreshold={}; " + 
                                 "highThreshold={}", new Object[] {this, model.getPoolSize(), model.getCurrentPoolWorkrate(), 
@@ -209,11 +239,52 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
                         }
                     }
                 }},
-                delay,
-                TimeUnit.MILLISECONDS);
+                delay);
+        }
+    }
+    
+    private void rebalance() {
+        // containers deferred by the previous run (or changed since, if incremental) come first
+        Set<NodeType> nodes = new LinkedHashSet<NodeType>();
+        for (Iterator<NodeType> it = dirtyContainers.iterator(); it.hasNext();) {
+            nodes.add(it.next());
+            it.remove();
+        }
+        if (incremental) {
+            // always include the extremes, as the containers most likely to need (or be able to help) balancing
+            PolicyUtilForPool<NodeType, ItemType> util = new PolicyUtilForPool<NodeType, ItemType>(model);
+            NodeType hottest = util.findHottestContainer(Collections.<NodeType>emptySet());
+            NodeType coldest = util.findColdestContainer(Collections.<NodeType>emptySet());
+            if (hottest != null) nodes.add(hottest);
+            if (coldest != null) nodes.add(coldest);
+        } else {
+            nodes.addAll(model.getPoolContents());
+        }
+        nodes.retainAll(model.getPoolContents());
+        
+        long start = System.currentTimeMillis();
+        Set<NodeType> notConsidered = strategy.rebalance(nodes, maxRebalanceTime, maxMigrationsPerRebalance);
+        long duration = System.currentTimeMillis() - start;
+        int migrations = strategy.getLastMigrationCount();
+        
+        if (poolEntity != null) {
+            poolEntity.setAttribute(REBALANCE_DURATION, duration);
+            poolEntity.setAttribute(REBALANCE_MIGRATIONS, migrations);
+            poolEntity.setAttribute(REBALANCE_MIGRATIONS_TOTAL, totalMigrations.addAndGet(migrations));
+        }
+        if (!notConsidered.isEmpty()) {
+            if (LOG.isDebugEnabled()) LOG.debug("{} rebalance budget used after {}ms and {} migrations; deferring {} containers", 
+                    new Object[] {this, duration, migrations, notConsidered.size()});
+            dirtyContainers.addAll(notConsidered);
+            // the current run has already cleared executorQueued, so this queues a further run
+            scheduleRebalance();
         }
     }
     
+    private void markDirty(NodeType container) {
+        if (incremental && container != null) dirtyContainers.add(container);
+    }
+    
     // TODO Can get duplicate onContainerAdded events.
     //      I presume it's because we subscribe and then iterate over the extant containers.
     //      Solution would be for subscription to give you events for existing / current value(s).
@@ -233,6 +304,7 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
         }
         
         model.onContainerAdded(newContainer, lowThreshold.doubleValue(), highThreshold.doubleValue());
+        markDirty(newContainer);
         
         // Note: no need to scan the container for items; they will appear via the ITEM_ADDED events.
         // Also, must abide by any item-filters etc defined in the pool.
@@ -253,6 +325,7 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
     private void onContainerRemoved(NodeType oldContainer, boolean rebalanceNow) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording removal of container {}", this, oldContainer);
         model.onContainerRemoved(oldContainer);
+        dirtyContainers.remove(oldContainer);
         if (rebalanceNow) scheduleRebalance();
     }
     
@@ -268,6 +341,7 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
         model.onItemAdded(item, parentContainer, immovable);
         if (currentValue != null)
             model.onItemWorkrateUpdated(item, currentValue.doubleValue());
+        markDirty(parentContainer);
         
         if (rebalanceNow) scheduleRebalance();
     }
@@ -275,22 +349,34 @@ public class LoadBalancingPolicy<NodeType extends Entity, ItemType extends Movab
     private void onItemRemoved(ItemType item, NodeType parentContainer, boolean rebalanceNow) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording removal of item {}", this, item);
         unsubscribe(item);
+        markDirty(getParentContainer(item, parentContainer));
         model.onItemRemoved(item);
         if (rebalanceNow) scheduleRebalance();
     }
     
     private void onItemMoved(ItemType item, NodeType parentContainer, boolean rebalanceNow) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording moving of item {} to {}", new Object[] {this, item, parentContainer});
+        markDirty(getParentContainer(item, null));
         model.onItemMoved(item, parentContainer);
+        markDirty(parentContainer);
         if (rebalanceNow) scheduleRebalance();
     }
     
     private void onItemMetricUpdate(ItemType item, double newValue, boolean rebalanceNow) {
         if (LOG.isTraceEnabled()) LOG.trace("{} recording metric update for item {}, new value {}", new Object[] {this, item, newValue});
         model.onItemWorkrateUpdated(item, newValue);
+        markDirty(getParentContainer(item, null));
         if (rebalanceNow) scheduleRebalance();
     }
     
+    /** the item's container according to the model, if known, otherwise the given default */
+    private NodeType getParentContainer(ItemType item, NodeType defaultContainer) {
+        if (!incremental) return defaultContainer;
+        NodeType result = (model instanceof DefaultBalanceablePoolModel) ? 
+                ((DefaultBalanceablePoolModel<NodeType, ItemType>) model).getParentContainer(item) : null;
+        return (result != null) ? result : defaultContainer;
+    }
+    
     @Override
     public String toString() {
         return getClass().getSimpleName() + (truth(name) ? "("+name+")" : "");
@@ -24,6 +24,11 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
      * returns null if none of the model's nodes has spare capacity.
      */
     public ContainerType findColdestContainer(Set<ContainerType> excludedContainers, LocationConstraint locationConstraint) {
+        if (model instanceof DefaultBalanceablePoolModel) {
+            // uses the model's index rather than scanning every container
+            return ((DefaultBalanceablePoolModel<ContainerType, ItemType>) model).findColdestContainer(excludedContainers, locationConstraint);
+        }
+        
         double maxSpareCapacity = 0;
         ContainerType coldest = null;
         
@@ -53,6 +58,10 @@ public class PolicyUtilForPool<ContainerType, ItemType> {
      * returns null if none of the model's  nodes has an overshoot.
      */
     public ContainerType findHottestContainer(Set<ContainerType> excludedContainers) {
+        if (model instanceof DefaultBalanceablePoolModel) {
+            return ((DefaultBalanceablePoolModel<ContainerType, ItemType>) model).findHottestContainer(excludedContainers);
+        }
+        
         double maxOvershoot = 0;
         ContainerType hottest = null;
         
@@ -4,6 +4,7 @@ import static brooklyn.policy.autoscaling.AutoScalerPolicyTest.currentSizeAssert
 import static brooklyn.test.TestUtils.assertSucceedsContinually;
 import static brooklyn.test.TestUtils.executeUntilSucceeds;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.BeforeMethod;
@@ -109,6 +110,30 @@ public class AutoScalerPolicyMetricTest {
         executeUntilSucceeds(ImmutableMap.of("timeout", TIMEOUT_MS), currentSizeAsserter(tc, 6));
     }
     
+    @Test
+    public void testPredictiveModeIncrementsSizeAheadOfUpperBound() throws Exception {
+        tc.size = 1;
+        AutoScalerPolicy policy = new AutoScalerPolicy.Builder().metric(MY_ATTRIBUTE).metricLowerBound(50).metricUpperBound(100)
+                .predictive(true).predictionLookahead(1000)
+                .build();
+        policy.setEntity(tc);
+
+        // rising steeply, so forecast to exceed the upper bound within the lookahead
+        tc.setAttribute(MY_ATTRIBUTE, 50);
+        Thread.sleep(100);
+        tc.setAttribute(MY_ATTRIBUTE, 70);
+        Thread.sleep(100);
+        tc.setAttribute(MY_ATTRIBUTE, 90);
+        
+        executeUntilSucceeds(ImmutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertTrue(tc.getCurrentSize() >= 2, "size="+tc.getCurrentSize());
+            }});
+        Double forecast = tc.getAttribute(AutoScalerPolicy.METRIC_FORECAST);
+        assertNotNull(forecast);
+        assertTrue(forecast > 100, "forecast="+forecast);
+    }
+    
     @Test
     public void testDestructionState() {
         tc.size = 1;
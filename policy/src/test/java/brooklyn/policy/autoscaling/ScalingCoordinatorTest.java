@@ -0,0 +1,134 @@
+package brooklyn.policy.autoscaling;
+
+import static brooklyn.test.TestUtils.executeUntilSucceeds;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.test.entity.TestEntity;
+
+import com.google.common.collect.ImmutableMap;
+
+public class ScalingCoordinatorTest {
+
+    private static long TIMEOUT_MS = 10000;
+    private static long BATCH_WINDOW_MS = 50;
+
+    private TestEntity entity;
+    private Map<String, Integer> grants;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        entity = new TestEntity();
+        grants = new ConcurrentHashMap<String, Integer>();
+    }
+
+    @Test
+    public void testSharesBudgetFairlyBetweenEqualPriorities() {
+        final ScalingCoordinator coordinator = new ScalingCoordinator("test", 5, BATCH_WINDOW_MS);
+        coordinator.requestGrow("a", entity, 1, 4, 0, recorder("a"));
+        coordinator.requestGrow("b", entity, 1, 4, 0, recorder("b"));
+
+        // 3 machines available: shared one at a time, in order of request
+        assertGrantsEventually(ImmutableMap.of("a", 3, "b", 2));
+        assertEquals(coordinator.getUsedMachines(), 5);
+        assertEquals(coordinator.getPendingCount(), 2);
+
+        // shrinking frees capacity for the still-pending requests
+        grants.clear();
+        coordinator.onGrowCompleted("a", 3);
+        coordinator.onGrowCompleted("b", 2);
+        coordinator.onResized("a", 1);
+        assertGrantsEventually(ImmutableMap.of("a", 2, "b", 3));
+        assertEquals(coordinator.getGrantedMachines(), 5);
+    }
+
+    @Test
+    public void testGrantedSizeStaysReservedUntilReached() {
+        ScalingCoordinator coordinator = new ScalingCoordinator("test", 5, BATCH_WINDOW_MS);
+        coordinator.requestGrow("a", entity, 1, 4, 0, recorder("a"));
+        assertGrantsEventually(ImmutableMap.of("a", 4));
+
+        // before the grant is acted on, "a" asks again (still at its old size), as does "b", in the same window
+        coordinator.requestGrow("a", entity, 1, 5, 0, recorder("a"));
+        coordinator.requestGrow("b", entity, 0, 3, 0, recorder("b"));
+        assertGrantsEventually(ImmutableMap.of("a", 5));
+        assertEquals(coordinator.getUsedMachines(), 5);
+        assertEquals(coordinator.getGrantedMachines(), 4);
+
+        // reporting the smaller size does not release the reservation
+        coordinator.onResized("a", 1);
+        assertEquals(coordinator.getUsedMachines(), 5);
+
+        // but once the grow is done, capacity it did not use is released
+        coordinator.onGrowCompleted("a", 3);
+        assertGrantsEventually(ImmutableMap.of("a", 5, "b", 2));
+        assertEquals(coordinator.getUsedMachines(), 5);
+    }
+
+    @Test
+    public void testRegisteredSizeOfPoolNotGrowingCountsAgainstBudget() {
+        ScalingCoordinator coordinator = new ScalingCoordinator("test", 5, BATCH_WINDOW_MS);
+        coordinator.register("a", 3);
+        coordinator.register("b", 1);
+        assertEquals(coordinator.getUsedMachines(), 4);
+
+        // only "b" grows; "a" keeps its 3 machines
+        coordinator.requestGrow("b", entity, 1, 4, 0, recorder("b"));
+        assertGrantsEventually(ImmutableMap.of("b", 2));
+        assertEquals(coordinator.getUsedMachines(), 5);
+        assertEquals(coordinator.getPendingCount(), 1);
+    }
+
+    @Test
+    public void testReleaseDropsReservationOfGrantNotActedOn() {
+        ScalingCoordinator coordinator = new ScalingCoordinator("test", 5, BATCH_WINDOW_MS);
+        coordinator.requestGrow("a", entity, 1, 4, 0, recorder("a"));
+        assertGrantsEventually(ImmutableMap.of("a", 4));
+
+        // e.g. "a" suspended before growing
+        coordinator.release("a", 1);
+        assertEquals(coordinator.getUsedMachines(), 1);
+
+        coordinator.requestGrow("b", entity, 0, 4, 0, recorder("b"));
+        assertGrantsEventually(ImmutableMap.of("a", 4, "b", 4));
+        assertEquals(coordinator.getUsedMachines(), 5);
+    }
+
+    @Test
+    public void testHigherPriorityGrantedFirst() {
+        ScalingCoordinator coordinator = new ScalingCoordinator("test", 4, BATCH_WINDOW_MS);
+        coordinator.requestGrow("low", entity, 0, 3, 0, recorder("low"));
+        coordinator.requestGrow("high", entity, 0, 3, 1, recorder("high"));
+
+        assertGrantsEventually(ImmutableMap.of("high", 3, "low", 1));
+    }
+
+    @Test
+    public void testUnlimitedBudgetGrantsAllRequests() {
+        ScalingCoordinator coordinator = new ScalingCoordinator("test", 0, BATCH_WINDOW_MS);
+        coordinator.requestGrow("a", entity, 2, 10, 0, recorder("a"));
+        coordinator.requestGrow("b", entity, 0, 7, 0, recorder("b"));
+
+        assertGrantsEventually(ImmutableMap.of("a", 10, "b", 7));
+        assertEquals(coordinator.getPendingCount(), 0);
+    }
+
+    private ScalingCoordinator.GrowCallback recorder(final String key) {
+        return new ScalingCoordinator.GrowCallback() {
+            @Override public void grow(int newSize) {
+                grants.put(key, newSize);
+            }};
+    }
+
+    private void assertGrantsEventually(final Map<String, Integer> expected) {
+        executeUntilSucceeds(ImmutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(grants, expected);
+            }});
+    }
+}
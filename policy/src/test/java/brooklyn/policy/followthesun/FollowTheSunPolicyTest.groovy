@@ -93,6 +93,24 @@ public class FollowTheSunPolicyTest extends AbstractFollowTheSunPolicyTest {
         assertItemDistributionEventually([(containerA):[], (containerB):[item1,item2]])
     }
     
+    @Test
+    public void testMovesItemToLeastLoadedContainerInLocation() {
+        MockContainerEntity containerA = newContainer(app, loc1, "A")
+        MockContainerEntity containerB = newContainer(app, loc2, "B")
+        MockContainerEntity containerC = newContainer(app, loc2, "C")
+        MockItemEntity item1 = newItem(app, containerA, "1")
+        MockItemEntity item2 = newItem(app, containerB, "2")
+        MockItemEntity item3 = newItem(app, containerB, "3")
+        executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertEquals(model.getItemContainer(item3), containerB)
+            assertEquals(model.getContainerLocation(containerC), loc2)
+        }
+
+        item1.setAttribute(TEST_METRIC, ImmutableMap.of(item2, 100d))
+        
+        assertItemDistributionEventually([(containerA):[], (containerB):[item2,item3], (containerC):[item1]])
+    }
+    
     @Test
     public void testNoopIfDemandIsTiny() {
         // Set-up containers and items.
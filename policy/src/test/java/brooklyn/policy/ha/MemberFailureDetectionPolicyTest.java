@@ -234,6 +234,60 @@ public class MemberFailureDetectionPolicyTest {
         assertHasEventEventually(HASensors.ENTITY_FAILED, Predicates.<Object>equalTo(e1), null);
     }
     
+    @Test
+    public void testPhiAccrualNotifiedOfFailureWhenHeartbeatsStopAndRecoveryWhenResumed() throws Exception {
+        policy = new MemberFailureDetectionPolicy(MutableMap.<String,Object>of("usePhiAccrual", true, "phiThreshold", 3.0, 
+                "phiMinStdDeviation", 50L, "phiCheckPeriod", 20L));
+        group.addPolicy(policy);
+        
+        final TestEntity e1 = new TestEntity(group);
+        Entities.manage(e1);
+        e1.setAttribute(TestEntity.SERVICE_STATE, Lifecycle.RUNNING);
+        
+        // Regular heartbeats; a single "down" report is not itself treated as a failure
+        for (int i = 0; i < 10; i++) {
+            e1.setAttribute(TestEntity.SERVICE_UP, true);
+            Thread.sleep(20);
+        }
+        e1.setAttribute(TestEntity.SERVICE_UP, false);
+        
+        // Heartbeats stop, so suspicion accrues
+        assertHasEventEventually(HASensors.ENTITY_FAILED, Predicates.<Object>equalTo(e1), null);
+        assertTrue(e1.getAttribute(HASensors.FAILURE_SUSPICION) >= 3, "phi="+e1.getAttribute(HASensors.FAILURE_SUSPICION));
+        
+        e1.setAttribute(TestEntity.SERVICE_UP, true);
+        assertHasEventEventually(HASensors.ENTITY_RECOVERED, Predicates.<Object>equalTo(e1), null);
+        assertEquals(events.size(), 2, "events="+events);
+    }
+    
+    @Test
+    public void testPhiAccrualNotSuspiciousOfHeartbeatsSlowingWithinMaxHeartbeatPeriod() throws Exception {
+        policy = new MemberFailureDetectionPolicy(MutableMap.<String,Object>of("usePhiAccrual", true, "phiThreshold", 3.0, 
+                "phiMinStdDeviation", 10L, "phiCheckPeriod", 10L, "maxHeartbeatPeriod", 200L));
+        group.addPolicy(policy);
+        
+        final TestEntity e1 = new TestEntity(group);
+        Entities.manage(e1);
+        e1.setAttribute(TestEntity.SERVICE_STATE, Lifecycle.RUNNING);
+        
+        for (int i = 0; i < 10; i++) {
+            e1.setAttribute(TestEntity.SERVICE_UP, true);
+            Thread.sleep(20);
+        }
+        // Heartbeat interval grows, as an adaptive poll backs off towards its maximum period
+        for (long interval : new long[] {40, 80, 160}) {
+            Thread.sleep(interval);
+            e1.setAttribute(TestEntity.SERVICE_UP, true);
+        }
+        Thread.sleep(100);
+        assertEquals(events.size(), 0, "events="+events);
+        Double phi = e1.getAttribute(HASensors.FAILURE_SUSPICION);
+        assertTrue(phi == null || phi < 3, "phi="+phi);
+        
+        // Still detected once heartbeats stop for longer than that
+        assertHasEventEventually(HASensors.ENTITY_FAILED, Predicates.<Object>equalTo(e1), null);
+    }
+    
     private void assertHasEvent(Sensor<?> sensor, Predicate<Object> componentPredicate, Predicate<? super CharSequence> descriptionPredicate) {
         for (SensorEvent<FailureDescriptor> event : events) {
             if (event.getSensor().equals(sensor) && 
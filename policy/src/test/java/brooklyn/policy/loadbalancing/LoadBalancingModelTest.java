@@ -1,6 +1,7 @@
 package brooklyn.policy.loadbalancing;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import java.util.Collections;
 
@@ -86,4 +87,55 @@ public class LoadBalancingModelTest {
         assertEquals(model.getContainerWorkrates(), ImmutableMap.of(container1, 0d, container2, 123d));
         assertEquals(model.getCurrentPoolWorkrate(), 123d);
     }
+    
+    @Test
+    public void testFindsHottestAndColdestContainersAsWorkratesChange() throws Exception {
+        PolicyUtilForPool<MockContainerEntity, MockItemEntity> util = new PolicyUtilForPool<MockContainerEntity, MockItemEntity>(model);
+        model.onContainerAdded(container1, 10d, 20d);
+        model.onContainerAdded(container2, 10d, 20d);
+        model.onItemAdded(item1, container1, false);
+        model.onItemAdded(item2, container2, false);
+        model.onItemWorkrateUpdated(item1, 5d);
+        model.onItemWorkrateUpdated(item2, 15d);
+        
+        assertEquals(util.findColdestContainer(Collections.<MockContainerEntity>emptySet()), container1);
+        assertEquals(util.findColdestContainer(ImmutableSet.of(container1)), container2);
+        assertNull(util.findHottestContainer(Collections.<MockContainerEntity>emptySet()));
+        
+        model.onItemWorkrateUpdated(item2, 25d);
+        assertEquals(util.findHottestContainer(Collections.<MockContainerEntity>emptySet()), container2);
+        assertNull(util.findHottestContainer(ImmutableSet.of(container2)));
+        
+        model.onItemMoved(item2, container1);
+        assertEquals(model.getTotalWorkrate(container1), 30d, PRECISION);
+        assertEquals(model.getTotalWorkrate(container2), 0d, PRECISION);
+        assertEquals(util.findHottestContainer(Collections.<MockContainerEntity>emptySet()), container1);
+        assertEquals(util.findColdestContainer(Collections.<MockContainerEntity>emptySet()), container2);
+        
+        model.onContainerRemoved(container2);
+        assertNull(util.findColdestContainer(Collections.<MockContainerEntity>emptySet()));
+    }
+    
+    @Test
+    public void testFindsFirstAddedOfEquallyHotOrColdContainers() throws Exception {
+        PolicyUtilForPool<MockContainerEntity, MockItemEntity> util = new PolicyUtilForPool<MockContainerEntity, MockItemEntity>(model);
+        MockContainerEntity container3 = new MockContainerEntity();
+        model.onContainerAdded(container1, 10d, 20d);
+        model.onContainerAdded(container2, 10d, 20d);
+        model.onContainerAdded(container3, 10d, 20d);
+        
+        assertEquals(util.findColdestContainer(Collections.<MockContainerEntity>emptySet()), container1);
+        assertEquals(util.findColdestContainer(ImmutableSet.of(container1)), container2);
+        
+        model.onItemAdded(item1, container1, false);
+        model.onItemWorkrateUpdated(item1, 5d);
+        assertEquals(util.findColdestContainer(Collections.<MockContainerEntity>emptySet()), container2);
+        assertEquals(util.findColdestContainer(ImmutableSet.of(container2, container3)), container1);
+        
+        model.onItemAdded(item2, container2, false);
+        model.onItemAdded(item3, container3, false);
+        model.onItemWorkrateUpdated(item2, 25d);
+        model.onItemWorkrateUpdated(item3, 25d);
+        assertEquals(util.findHottestContainer(Collections.<MockContainerEntity>emptySet()), container2);
+    }
 }
@@ -56,6 +56,29 @@ public class LoadBalancingPolicyTest extends AbstractLoadBalancingPolicyTest {
         assertWorkratesEventually([containerA, containerB], [20d, 20d])
     }
     
+    @Test
+    public void testIncrementalBalancingWithMigrationBudget() {
+        pool.removePolicy(policy)
+        model = new DefaultBalanceablePoolModel<Entity, Entity>("pool-model-incremental")
+        policy = new LoadBalancingPolicy([incremental:true, maxMigrationsPerRebalance:1], TEST_METRIC, model)
+        pool.addPolicy(policy)
+        
+        MockContainerEntity containerA = newContainer(app, "A", 10, 25)
+        MockContainerEntity containerB = newContainer(app, "B", 20, 60)
+        MockItemEntity item1 = newItem(app, containerA, "1", 10)
+        MockItemEntity item2 = newItem(app, containerA, "2", 10)
+        MockItemEntity item3 = newItem(app, containerA, "3", 10)
+        MockItemEntity item4 = newItem(app, containerA, "4", 10)
+
+        // needs two migrations, so at least two rebalance runs given the budget
+        assertWorkratesEventually([containerA, containerB], [20d, 20d])
+        executeUntilSucceeds(timeout:TIMEOUT_MS) {
+            assertTrue(pool.getAttribute(LoadBalancingPolicy.REBALANCE_MIGRATIONS_TOTAL) >= 2)
+            assertTrue(pool.getAttribute(LoadBalancingPolicy.REBALANCE_MIGRATIONS) <= 1)
+            assertNotNull(pool.getAttribute(LoadBalancingPolicy.REBALANCE_DURATION))
+        }
+    }
+    
     @Test
     public void testSimpleBalancing2() {
         MockContainerEntity containerA = newContainer(app, "A", 20, 40)
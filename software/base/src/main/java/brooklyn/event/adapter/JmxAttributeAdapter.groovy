@@ -46,6 +46,11 @@ public class JmxAttributeAdapter extends AbstractSensorAdapter {
 			this.attributeName = attributeName;
 		}
 		@Override
+		protected activatePoll() {
+			if (adapter.batchAttributes) adapter.attributeBatch.addMember(this)
+			else super.activatePoll()
+		}
+		@Override
 		protected AbstractSensorEvaluationContext executePollOnSuccess() {
 			return new SingleValueResponseContext(value: adapter.helper.getAttribute(objectName, attributeName))
 		}
@@ -0,0 +1,117 @@
+package brooklyn.event.adapter;
+
+import javax.management.ObjectName
+
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import brooklyn.event.adapter.JmxAttributeAdapter.AttributePollHelper
+
+
+/**
+ * Polls all the attributes registered by {@link JmxAttributeAdapter}s of a {@link JmxSensorAdapter}
+ * together, reading the attributes of each {@link ObjectName} with a single
+ * {@link JmxHelper#getAttributes(ObjectName, Collection)} call per period rather than one call per attribute.
+ * <p>
+ * Attributes which cannot be read in the bulk call are read individually, so a failure
+ * affects only the sensors for that attribute.
+ * Only active if the adapter is {@link JmxSensorAdapter#batchAttributes batched}.
+ * <p>
+ * All the attributes are polled at the {@link JmxSensorAdapter}'s period (adapting between its
+ * <code>period</code> and <code>maxPeriod</code>, if set, according to whether any of the values changed).
+ */
+protected class JmxAttributeBatchPollHelper extends AbstractPollHelper {
+
+    public static final Logger log = LoggerFactory.getLogger(JmxAttributeBatchPollHelper.class);
+
+    final JmxSensorAdapter adapter
+    private final List<AttributePollHelper> members = []
+
+    public JmxAttributeBatchPollHelper(JmxSensorAdapter adapter) {
+        super(adapter)
+        this.adapter = adapter
+    }
+
+    public synchronized void addMember(AttributePollHelper member) {
+        if (!members.contains(member)) members.add(member)
+    }
+
+    @Override
+    protected activatePoll() {
+        if (adapter.batchAttributes) super.activatePoll()
+    }
+
+    @Override
+    protected synchronized boolean isEmpty() {
+        members.every { it.isEmpty() }
+    }
+
+    @Override
+    protected AbstractSensorEvaluationContext executePollOnSuccess() {
+        Map<ObjectName, List<AttributePollHelper>> byObjectName = [:]
+        synchronized (this) {
+            members.each { AttributePollHelper m ->
+                if (!m.isEmpty()) {
+                    List<AttributePollHelper> l = byObjectName.get(m.objectName)
+                    if (l==null) byObjectName.put(m.objectName, l = [])
+                    l << m
+                }
+            }
+        }
+
+        Map<AttributePollHelper, Object> values = [:]
+        Map<AttributePollHelper, Exception> errors = [:]
+        byObjectName.each { ObjectName objectName, List<AttributePollHelper> pollers ->
+            Map<String, Object> read
+            try {
+                read = adapter.helper.getAttributes(objectName, pollers.collect { it.attributeName }.unique())
+            } catch (Exception e) {
+                pollers.each { errors.put(it, e) }
+                return
+            }
+            pollers.each { AttributePollHelper p ->
+                if (read==null) {
+                    // mbean not found; consistent with JmxHelper.getAttribute
+                    values.put(p, null)
+                } else if (read.containsKey(p.attributeName)) {
+                    values.put(p, read.get(p.attributeName))
+                } else {
+                    // isolate failure: the bulk read omits attributes it could not get, so read individually for the cause
+                    try {
+                        values.put(p, adapter.helper.getAttribute(objectName, p.attributeName))
+                    } catch (Exception e) {
+                        errors.put(p, e)
+                    }
+                }
+            }
+        }
+        if (!errors.isEmpty() && values.isEmpty()) throw errors.values().iterator().next()
+        return new BatchResponseContext(values: values, errors: errors)
+    }
+
+    @Override
+    void evaluateSensorsOnResponse(AbstractSensorEvaluationContext response) {
+        BatchResponseContext batch = (BatchResponseContext) response
+        batch.values.each { AttributePollHelper p, Object v ->
+            p.lastWasSuccessful = true
+            p.valuesChanged = false
+            p.evaluateSensorsOnResponse(new SingleValueResponseContext(value: v))
+            // the members set their own flag; this helper's is what drives the (adaptive) period
+            if (p.valuesChanged) valuesChanged = true
+        }
+        batch.errors.each { AttributePollHelper p, Exception e ->
+            if (p.lastWasSuccessful) log.warn("error reading ${p.objectName}.${p.attributeName} for ${entity}: ${e}")
+            else if (log.isDebugEnabled()) log.debug("error reading ${p.objectName}.${p.attributeName} for ${entity} (repeated or not yet connected): ${e}")
+            p.lastWasSuccessful = false
+        }
+    }
+
+    /** values read in one batch, keyed by the poller which wanted them */
+    static class BatchResponseContext extends AbstractSensorEvaluationContext {
+        Map<AttributePollHelper, Object> values
+        Map<AttributePollHelper, Exception> errors
+
+        @Override
+        protected Object getDefaultValue() { values }
+    }
+}
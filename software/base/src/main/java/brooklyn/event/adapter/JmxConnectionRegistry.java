@@ -0,0 +1,382 @@
+package brooklyn.event.adapter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.Notification;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reference-counted registry of JMX connections, shared by all {@link JmxHelper}s on this management node.
+ * <p>
+ * Helpers for the same connector url and credentials share a single {@link JMXConnector}, so an entity with
+ * several JMX-based adapters (attributes, operations, notifications, etc) holds one connection to its JVM
+ * rather than one per adapter. The connection is closed when the last helper releases it.
+ * <p>
+ * If a shared connection fails (or a reconnect attempt fails), it is reconnected in the background with
+ * exponential backoff for as long as it is referenced, so helpers find it usable again without each
+ * of them having to retry. MBean notification listeners added through the shared connection are added
+ * again on each new connection, so a reconnect made on behalf of one helper does not lose another's subscriptions.
+ */
+public class JmxConnectionRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmxConnectionRegistry.class);
+
+    private static final JmxConnectionRegistry INSTANCE = new JmxConnectionRegistry();
+
+    /** the registry shared by all JMX helpers on this management node */
+    public static JmxConnectionRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public static final long MIN_BACKGROUND_RECONNECT_DELAY_MS = 1000;
+    public static final long MAX_BACKGROUND_RECONNECT_DELAY_MS = 30*1000;
+
+    private final Map<List<String>, SharedConnection> connections = new LinkedHashMap<List<String>, SharedConnection>();
+    private final AtomicLong connectsCount = new AtomicLong();
+
+    private final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "brooklyn-jmx-reconnector");
+                t.setDaemon(true);
+                return t;
+            }});
+
+    /**
+     * Returns the shared connection for the given url and credentials, incrementing its reference count.
+     * The connection is not necessarily connected; see {@link SharedConnection#connect()}.
+     * Callers must {@link #release(SharedConnection)} it when done.
+     *
+     * @param env the environment used when (re)connecting, if this is the first reference
+     */
+    @SuppressWarnings("rawtypes")
+    public synchronized SharedConnection acquire(String url, String user, String password, Map env) {
+        List<String> key = Arrays.asList(url, user, password);
+        SharedConnection result = connections.get(key);
+        if (result == null) {
+            result = new SharedConnection(key, url, env);
+            connections.put(key, result);
+        }
+        result.references++;
+        return result;
+    }
+
+    /** decrements the reference count of the given connection, closing it if no longer referenced */
+    public void release(SharedConnection shared) {
+        synchronized (this) {
+            if (shared.references <= 0) return;
+            shared.references--;
+            if (shared.references > 0) return;
+            connections.remove(shared.key);
+        }
+        // outside the registry lock: closing waits for the connection's own lock, and disconnects over the network
+        shared.close();
+    }
+
+    /** returns the number of distinct JMX connections currently open */
+    public synchronized int getConnectionCount() {
+        int result = 0;
+        for (SharedConnection c : connections.values()) {
+            if (c.isConnected()) result++;
+        }
+        return result;
+    }
+
+    /** returns the number of helpers currently holding a connection */
+    public synchronized int getReferenceCount() {
+        int result = 0;
+        for (SharedConnection c : connections.values()) {
+            result += c.references;
+        }
+        return result;
+    }
+
+    /** returns the number of times a JMX connection has been established (including reconnections) */
+    public long getConnectsCount() {
+        return connectsCount.get();
+    }
+
+    /** the shared connections currently registered */
+    public synchronized List<SharedConnection> getConnections() {
+        return ImmutableList.copyOf(connections.values());
+    }
+
+    /**
+     * A single JMX connection, shared by all helpers for the same url and credentials.
+     * Reference counting is guarded by the registry; connection state by this object.
+     * Connection attempts are serialized by a separate lock, so that this object's monitor is never held
+     * across the network and closing or querying the connection does not wait for a slow connect.
+     */
+    public class SharedConnection {
+        private final List<String> key;
+        private final String url;
+        @SuppressWarnings("rawtypes")
+        private final Map env;
+
+        private int references;
+        private boolean closed;
+        private volatile JMXConnector connector;
+        private volatile MBeanServerConnection connection;
+        private boolean reconnectScheduled;
+        private long reconnectDelay = MIN_BACKGROUND_RECONNECT_DELAY_MS;
+        private final Object connectLock = new Object();
+        private final List<NotificationRegistration> notificationRegistrations = new CopyOnWriteArrayList<NotificationRegistration>();
+
+        private final NotificationListener connectionListener = new NotificationListener() {
+                public void handleNotification(Notification notification, Object handback) {
+                    String type = notification.getType();
+                    if (JMXConnectionNotification.FAILED.equals(type) || JMXConnectionNotification.CLOSED.equals(type)) {
+                        onConnectionLost((JMXConnector) handback, type);
+                    }
+                }};
+
+        @SuppressWarnings("rawtypes")
+        SharedConnection(List<String> key, String url, Map env) {
+            this.key = key;
+            this.url = url;
+            this.env = env;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public MBeanServerConnection getConnection() {
+            return connection;
+        }
+
+        public boolean isConnected() {
+            return connection != null;
+        }
+
+        public int getReferenceCount() {
+            synchronized (JmxConnectionRegistry.this) {
+                return references;
+            }
+        }
+
+        /** connects, if not already connected; throws if the connection cannot be made */
+        public MBeanServerConnection connect() throws IOException {
+            synchronized (connectLock) {
+                JMXConnector oldConnector;
+                synchronized (this) {
+                    if (closed) throw new IllegalStateException("JMX connection to "+url+" has been released");
+                    if (connection != null) return connection;
+                    oldConnector = connector;
+                    connector = null;
+                }
+                closeConnector(oldConnector);
+
+                JMXConnector newConnector = JmxHelper.newConnector(new JMXServiceURL(url), env);
+                MBeanServerConnection newConnection;
+                try {
+                    newConnection = newConnector.getMBeanServerConnection();
+                } catch (IOException e) {
+                    closeConnector(newConnector);
+                    throw e;
+                }
+                synchronized (this) {
+                    if (closed) {
+                        newConnection = null;
+                    } else {
+                        connection = newConnection;
+                        connector = newConnector;
+                        reconnectDelay = MIN_BACKGROUND_RECONNECT_DELAY_MS;
+                    }
+                }
+                if (newConnection == null) {
+                    // released while we were connecting
+                    closeConnector(newConnector);
+                    throw new IllegalStateException("JMX connection to "+url+" has been released");
+                }
+                newConnector.addConnectionNotificationListener(connectionListener, null, newConnector);
+                connectsCount.incrementAndGet();
+                if (LOG.isDebugEnabled()) LOG.debug("Connected to JMX URL {}", url);
+                for (NotificationRegistration registration : notificationRegistrations) {
+                    try {
+                        registration.addTo(newConnection);
+                    } catch (Exception e) {
+                        LOG.warn("Unable to re-add notification listener on "+registration.objectName+" at JMX URL "+url+" after reconnecting: "+e);
+                    }
+                }
+                return newConnection;
+            }
+        }
+
+        /**
+         * Adds the listener on the current connection, and again on each new connection if reconnected.
+         * @throws IllegalStateException if not connected
+         */
+        public void addNotificationListener(ObjectName objectName, NotificationListener listener, NotificationFilter filter) throws IOException, JMException {
+            MBeanServerConnection current = connection;
+            if (current == null) throw new IllegalStateException("Not connected to JMX at "+url);
+            NotificationRegistration registration = new NotificationRegistration(objectName, listener, filter);
+            notificationRegistrations.add(registration);
+            try {
+                registration.addTo(current);
+            } catch (IOException e) {
+                // not kept: callers retry after reconnecting, which would otherwise add it twice
+                notificationRegistrations.remove(registration);
+                throw e;
+            } catch (JMException e) {
+                notificationRegistrations.remove(registration);
+                throw e;
+            }
+        }
+
+        /** removes a listener added by {@link #addNotificationListener(ObjectName, NotificationListener, NotificationFilter)} */
+        public void removeNotificationListener(ObjectName objectName, NotificationListener listener, NotificationFilter filter) throws IOException, JMException {
+            for (NotificationRegistration registration : notificationRegistrations) {
+                if (registration.matches(objectName, listener, filter)) {
+                    notificationRegistrations.remove(registration);
+                    registration.removeFrom(connection);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Reconnects, unless the connection has already been replaced since {@code stale} was obtained
+         * (e.g. by another helper or in the background), in which case the current connection is returned.
+         * If reconnecting fails, the exception is thrown and reconnection continues in the background.
+         */
+        public MBeanServerConnection reconnect(MBeanServerConnection stale) throws IOException {
+            synchronized (this) {
+                if (connection != null && connection != stale) return connection;
+                connection = null;
+            }
+            try {
+                return connect();
+            } catch (IOException e) {
+                scheduleReconnect();
+                throw e;
+            } catch (RuntimeException e) {
+                scheduleReconnect();
+                throw e;
+            }
+        }
+
+        private synchronized void onConnectionLost(JMXConnector source, String type) {
+            if (source != connector) return; // one we've already discarded
+            if (LOG.isDebugEnabled()) LOG.debug("JMX connection to {} lost ({}); will reconnect in background", url, type);
+            connection = null;
+            scheduleReconnect();
+        }
+
+        private synchronized void scheduleReconnect() {
+            if (closed || reconnectScheduled) return;
+            reconnectScheduled = true;
+            reconnector.schedule(new Runnable() {
+                    public void run() {
+                        backgroundReconnect();
+                    }},
+                    reconnectDelay, TimeUnit.MILLISECONDS);
+        }
+
+        private void backgroundReconnect() {
+            synchronized (this) {
+                reconnectScheduled = false;
+                if (closed || connection != null) return;
+            }
+            try {
+                connect();
+                LOG.info("Reconnected to JMX URL {} in background", url);
+            } catch (Exception e) {
+                long delay;
+                synchronized (this) {
+                    if (closed) return;
+                    delay = reconnectDelay;
+                    reconnectDelay = Math.min(reconnectDelay*2, MAX_BACKGROUND_RECONNECT_DELAY_MS);
+                }
+                if (LOG.isDebugEnabled()) LOG.debug("Background reconnect to JMX URL "+url+" failed (retrying in "+delay+"ms): "+e);
+                scheduleReconnect();
+            }
+        }
+
+        void close() {
+            JMXConnector oldConnector;
+            synchronized (this) {
+                closed = true;
+                connection = null;
+                oldConnector = connector;
+                connector = null;
+            }
+            closeConnector(oldConnector);
+        }
+
+        private void closeConnector(JMXConnector oldConnector) {
+            if (oldConnector != null) {
+                if (LOG.isDebugEnabled()) LOG.debug("Disconnecting from JMX URL {}", url);
+                try {
+                    oldConnector.removeConnectionNotificationListener(connectionListener);
+                } catch (Exception e) {
+                    // ignore; closing anyway
+                }
+                try {
+                    oldConnector.close();
+                } catch (Exception e) {
+                    LOG.warn("Caught exception disconnecting from JMX at {} ({})", url, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("url", url).add("connected", isConnected()).toString();
+        }
+    }
+
+    /** a notification listener added through a {@link SharedConnection}, and the connection it is currently added on */
+    private static class NotificationRegistration {
+        final ObjectName objectName;
+        final NotificationListener listener;
+        final NotificationFilter filter;
+        private MBeanServerConnection addedTo;
+
+        NotificationRegistration(ObjectName objectName, NotificationListener listener, NotificationFilter filter) {
+            this.objectName = objectName;
+            this.listener = listener;
+            this.filter = filter;
+        }
+
+        boolean matches(ObjectName objectName, NotificationListener listener, NotificationFilter filter) {
+            return this.objectName.equals(objectName) && this.listener == listener && this.filter == filter;
+        }
+
+        /** adds the listener on the given connection, unless already added there */
+        synchronized void addTo(MBeanServerConnection connection) throws IOException, JMException {
+            if (connection == addedTo) return;
+            connection.addNotificationListener(objectName, listener, filter, null);
+            addedTo = connection;
+        }
+
+        synchronized void removeFrom(MBeanServerConnection connection) throws IOException, JMException {
+            if (connection == null || connection != addedTo) return;
+            addedTo = null;
+            connection.removeNotificationListener(objectName, listener, filter, null);
+        }
+    }
+}
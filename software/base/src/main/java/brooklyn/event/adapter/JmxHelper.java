@@ -9,6 +9,7 @@ import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -16,8 +17,10 @@ import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -127,8 +130,10 @@ public class JmxHelper {
     final String user;
     final String password;
 
-    private volatile JMXConnector connector;
-    private volatile MBeanServerConnection connection;
+    // Connection shared with other helpers for the same url and credentials; null if not connected
+    private volatile JmxConnectionRegistry.SharedConnection shared;
+    // The connection last handed out by getConnectionOrFail, so a reconnect can tell if another helper already replaced it
+    private volatile MBeanServerConnection lastConnection;
     private boolean triedConnecting;
     private boolean failedReconnecting;
     private long failedReconnectingTime;
@@ -137,6 +142,9 @@ public class JmxHelper {
     // Tracks the MBeans we have failed to find for this JmsHelper's connection URL (so can log just once for each)
     private final Set<ObjectName> notFoundMBeans;
 
+    // Number of remote calls made through this helper
+    private final AtomicLong roundTrips = new AtomicLong();
+
     public JmxHelper(EntityLocal entity) {
         this(toConnectorUrl(entity), entity, entity.getAttribute(Attributes.JMX_USER), entity.getAttribute(Attributes.JMX_PASSWORD));
     }
@@ -176,11 +184,17 @@ public class JmxHelper {
         return url;
     }
 
+    /** returns the number of remote calls (queries, attribute reads, operations, etc) made through this helper */
+    public long getRoundTripCount() {
+        return roundTrips.get();
+    }
+
     // ============== connection related calls =======================
 
     //for tesing purposes
     protected MBeanServerConnection getConnection() {
-        return connection;
+        JmxConnectionRegistry.SharedConnection s = shared;
+        return (s != null) ? s.getConnection() : null;
     }
 
     /**
@@ -192,7 +206,7 @@ public class JmxHelper {
      * @return true if connected, false otherwise.
      */
     public boolean isConnected() {
-        return connection!=null;
+        return getConnection()!=null;
     }
 
     /**
@@ -213,11 +227,18 @@ public class JmxHelper {
         reconnect();
     }
     
+    /**
+     * Reconnects the shared connection (if it has not already been replaced since this helper's last
+     * failure, for example by another helper or in the background), or connects if not yet connected.
+     */
     public synchronized void reconnect() throws IOException {
-        disconnect();
-
         try {
-            connect();
+            if (shared != null) {
+                triedConnecting = true;
+                shared.reconnect(lastConnection);
+            } else {
+                connect();
+            }
             failedReconnecting = false;
         } catch (Exception e) {
             if (failedReconnecting) {
@@ -231,17 +252,39 @@ public class JmxHelper {
         }
     }
 
-    /** attempts to connect immediately */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
+    /** attempts to connect immediately, sharing any existing connection to the same url and credentials */
     public synchronized void connect() throws IOException {
-        if (connection != null) return;
+        if (isConnected()) return;
 
         triedConnecting = true;
-        if (connector != null) connector.close();
-        JMXServiceURL serviceUrl = new JMXServiceURL(url);
-        Map env = getConnectionEnvVars();
+        if (shared == null) {
+            shared = JmxConnectionRegistry.getInstance().acquire(url, user, password, getConnectionEnvVars());
+        }
+        try {
+            shared.connect();
+        } catch (IOException e) {
+            releaseShared();
+            throw e;
+        } catch (RuntimeException e) {
+            releaseShared();
+            throw e;
+        }
+    }
+
+    private void releaseShared() {
+        if (shared != null) {
+            JmxConnectionRegistry.getInstance().release(shared);
+            shared = null;
+        }
+    }
+
+    /**
+     * Creates a connector for the given url, translating known bad failure modes into {@link IOException}s.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    static JMXConnector newConnector(JMXServiceURL serviceUrl, Map env) throws IOException {
         try {
-            connector = JMXConnectorFactory.connect(serviceUrl, env);
+            return JMXConnectorFactory.connect(serviceUrl, env);
         } catch (NullPointerException npe) {
             //some software -- eg WSO2 -- will throw an NPE exception if the JMX connection can't be created, instead of an IOException.
             //this is a break of contract with the JMXConnectorFactory.connect method, so this code verifies if the NPE is
@@ -249,12 +292,11 @@ public class JmxHelper {
             //ideally WSO2 will fix this bug and we can remove this code.
             boolean thrownByWso2 = npe.getStackTrace()[0].toString().contains("org.wso2.carbon.core.security.CarbonJMXAuthenticator.authenticate");
             if (thrownByWso2) {
-                throw new IOException("Failed to connect to url ${url}. NullPointerException is thrown, but replaced by an IOException to fix a WSO2 JMX problem", npe);
+                throw new IOException("Failed to connect to url "+serviceUrl+". NullPointerException is thrown, but replaced by an IOException to fix a WSO2 JMX problem", npe);
             } else {
                 throw npe;
             }
         }
-        connection = connector.getMBeanServerConnection();
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -357,6 +399,7 @@ public class JmxHelper {
 
     /**
      * Disconnects. Method doesn't throw an exception.
+     * The underlying connection is closed only once no other helper is sharing it.
      *
      * Can safely be called if already disconnected.
      *
@@ -364,16 +407,9 @@ public class JmxHelper {
      */
     public synchronized void disconnect() {
         triedConnecting = false;
-        if (connector != null) {
-            if (LOG.isDebugEnabled()) LOG.debug("Disconnecting from JMX URL {}", url);
-            try {
-                connector.close();
-            } catch (Exception e) {
-                LOG.warn("Caught exception disconnecting from JMX at {} ({})", url, e.getMessage());
-            } finally {
-                connector = null;
-                connection = null;
-            }
+        if (shared != null) {
+            if (LOG.isDebugEnabled()) LOG.debug("Releasing JMX connection to URL {}", url);
+            releaseShared();
         }
     }
 
@@ -386,8 +422,11 @@ public class JmxHelper {
      * @throws IllegalStateException if not connected.
      */
     private synchronized MBeanServerConnection getConnectionOrFail() {
-        if (isConnected())
-            return getConnection();
+        MBeanServerConnection result = getConnection();
+        if (result != null) {
+            lastConnection = result;
+            return result;
+        }
 
         if (triedConnecting) {
             throw new IllegalStateException("Failed to connect to JMX at "+url);
@@ -400,11 +439,13 @@ public class JmxHelper {
 
     private <T> T invokeWithReconnect(Callable<T> task) {
         try {
+            roundTrips.incrementAndGet();
             return task.call();
         } catch (Exception e) {
             if (shouldRetryOn(e)) {
                 try {
                     reconnectWithRetryDampened();
+                    roundTrips.incrementAndGet();
                     return task.call();
                 } catch (Exception e2) {
                     throw Throwables.propagate(e2);
@@ -537,6 +578,35 @@ public class JmxHelper {
         }
     }
 
+    /**
+     * Returns the given attributes of a JMX {@link ObjectName} in a single call, keyed by attribute name.
+     * <p>
+     * Attributes which could not be read are omitted from the result (as per
+     * {@link MBeanServerConnection#getAttributes(ObjectName, String[])}); callers wanting the
+     * cause can read those individually with {@link #getAttribute(ObjectName, String)}.
+     * Returns null if the MBean could not be found.
+     */
+    public Map<String, Object> getAttributes(ObjectName objectName, Collection<String> attributes) {
+        final ObjectName realObjectName = toLiteralObjectName(objectName);
+        
+        if (realObjectName != null) {
+            final String[] names = attributes.toArray(new String[attributes.size()]);
+            AttributeList list = invokeWithReconnect(new Callable<AttributeList>() {
+                    public AttributeList call() throws Exception {
+                        return getConnectionOrFail().getAttributes(realObjectName, names);
+                    }});
+            Map<String, Object> result = new LinkedHashMap<String, Object>();
+            for (Object attr : list) {
+                result.put(((javax.management.Attribute)attr).getName(), ((javax.management.Attribute)attr).getValue());
+            }
+
+            if (LOG.isTraceEnabled()) LOG.trace("From {}, for jmx attributes {}.{}, got values {}", new Object[] {url, objectName.getCanonicalName(), attributes, result});
+            return result;
+        } else {
+            return null;
+        }
+    }
+
     public void setAttribute(String objectName, String attribute, Object val) {
         setAttribute(createObjectName(objectName), attribute, val);
     }
@@ -597,7 +667,9 @@ public class JmxHelper {
     public void addNotificationListener(final ObjectName objectName, final NotificationListener listener, final NotificationFilter filter) {
         invokeWithReconnect(new Callable<Void>() {
                 public Void call() throws Exception {
-                    getConnectionOrFail().addNotificationListener(objectName, listener, filter, null);
+                    getConnectionOrFail();
+                    // through the shared connection, so that the listener is added again if it reconnects
+                    shared.addNotificationListener(objectName, listener, filter);
                     return null;
                 }});
     }
@@ -613,7 +685,8 @@ public class JmxHelper {
     public void removeNotificationListener(final ObjectName objectName, final NotificationListener listener, final NotificationFilter filter) {
         if (isConnected()) invokeWithReconnect(new Callable<Void>() {
                 public Void call() throws Exception {
-                    getConnectionOrFail().removeNotificationListener(objectName, listener, filter, null);
+                    getConnectionOrFail();
+                    shared.removeNotificationListener(objectName, listener, filter);
                     return null;
                 }});
     }
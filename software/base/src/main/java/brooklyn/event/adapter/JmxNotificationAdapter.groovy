@@ -43,6 +43,7 @@ class JmxNotificationAdapter extends AbstractSensorAdapter {
         final ObjectName objectName
         final String notificationType
         final NotificationListener notificationListener
+        final NotificationListener deliveryListener
         final NotificationFilter notificationFilter
         final List<NotificationListener> pushedListeners = [] as CopyOnWriteArrayList
         
@@ -52,11 +53,17 @@ class JmxNotificationAdapter extends AbstractSensorAdapter {
             this.objectName = objectName
             this.notificationType = notificationType
             this.notificationFilter = notificationType ? JmxNotificationFilters.matchesTypeRegex(notificationType) : null
+            this.deliveryListener = { Notification notif, Object callback ->
+                    def wrappedVal = new SingleValueResponseContext(value:notif.getUserData())
+                    onPush(wrappedVal)
+                    notifyListeners(notif) 
+                } as NotificationListener
+            // runs on the JMX client's notification thread, so hand off to the buffer (if configured) to keep it free
             this.notificationListener = { Notification notif, Object callback ->
                     if (notificationFilter == null || notificationFilter.isNotificationEnabled(notif)) {
-                        def wrappedVal = new SingleValueResponseContext(value:notif.getUserData())
-                        onPush(wrappedVal)
-                        notifyListeners(notif) 
+                        JmxNotificationBuffer buffer = adapter.notificationBuffer
+                        if (buffer!=null) buffer.offer(deliveryListener, notif)
+                        else deliveryListener.handleNotification(notif, callback)
                     } } as NotificationListener
         }
         @Override
@@ -0,0 +1,203 @@
+package brooklyn.event.adapter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Objects;
+
+/**
+ * Bounded buffer which decouples delivery of JMX notifications from the JMX client's notification thread.
+ * <p>
+ * Notifications are {@link #offer(NotificationListener, Notification) offered} by the listener registered
+ * with the JMX connection, which returns immediately; they are then delivered in order, on a single task at
+ * a time submitted to the given executor (typically the entity's execution context), to the listener
+ * which received them. This keeps a chatty MBean from stalling the connection's notification fetcher
+ * (and so other listeners on the same connection) while sensors are updated.
+ * <p>
+ * When the buffer is full, the {@link OverflowPolicy} determines which notifications are discarded.
+ */
+public class JmxNotificationBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmxNotificationBuffer.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    public enum OverflowPolicy {
+        /** discard incoming notifications while the buffer is full */
+        DROP_NEWEST,
+        /** discard the oldest buffered notification to make room */
+        DROP_OLDEST,
+        /**
+         * replace a still-buffered notification of the same type for the same listener with the newer one
+         * (appropriate where only the latest value matters, e.g. attribute-change notifications);
+         * otherwise discard the oldest when full
+         */
+        COALESCE
+    }
+
+    private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy policy;
+
+    private final Deque<Entry> queue = new ArrayDeque<Entry>();
+    private final Map<List<Object>, Entry> pendingByKey = new HashMap<List<Object>, Entry>();
+    private boolean draining;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+
+    public JmxNotificationBuffer(Executor executor, int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive, was "+capacity);
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = (policy != null) ? policy : OverflowPolicy.DROP_OLDEST;
+    }
+
+    private static class Entry {
+        final NotificationListener listener;
+        final List<Object> key;
+        Notification notification;
+
+        Entry(NotificationListener listener, List<Object> key, Notification notification) {
+            this.listener = listener;
+            this.key = key;
+            this.notification = notification;
+        }
+    }
+
+    /**
+     * Queues the notification for delivery to the given listener, returning immediately.
+     *
+     * @return false if the notification was discarded because the buffer was full
+     */
+    public boolean offer(NotificationListener listener, Notification notification) {
+        received.incrementAndGet();
+        boolean scheduleDrain;
+        synchronized (this) {
+            List<Object> key = Arrays.<Object>asList(listener, notification.getType());
+            if (policy == OverflowPolicy.COALESCE) {
+                Entry pending = pendingByKey.get(key);
+                if (pending != null) {
+                    pending.notification = notification;
+                    coalesced.incrementAndGet();
+                    return true;
+                }
+            }
+            if (queue.size() >= capacity) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    onDropped(notification);
+                    return false;
+                }
+                Entry oldest = queue.removeFirst();
+                if (pendingByKey.get(oldest.key) == oldest) pendingByKey.remove(oldest.key);
+                onDropped(oldest.notification);
+            }
+            Entry entry = new Entry(listener, key, notification);
+            queue.addLast(entry);
+            if (policy == OverflowPolicy.COALESCE) pendingByKey.put(key, entry);
+
+            scheduleDrain = !draining;
+            draining = true;
+        }
+        if (scheduleDrain) {
+            try {
+                executor.execute(new Runnable() {
+                        public void run() {
+                            drain();
+                        }
+                        @Override public String toString() {
+                            return "jmx notification delivery";
+                        }});
+            } catch (RuntimeException e) {
+                synchronized (this) { draining = false; }
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    private void onDropped(Notification notification) {
+        long count = dropped.incrementAndGet();
+        // log the first, then every thousandth, to avoid flooding the log from a chatty source
+        if (count == 1 || count % 1000 == 0) {
+            LOG.warn("JMX notification buffer full (capacity {}, policy {}); dropped {} notification(s) so far, latest {}",
+                    new Object[] {capacity, policy, count, notification});
+        } else if (LOG.isTraceEnabled()) {
+            LOG.trace("JMX notification buffer full; dropped {}", notification);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Entry next;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    return;
+                }
+                if (pendingByKey.get(next.key) == next) pendingByKey.remove(next.key);
+            }
+            try {
+                next.listener.handleNotification(next.notification, null);
+            } catch (Exception e) {
+                LOG.error("Error in listener "+next.listener+" handling notification "+next.notification, e);
+            } finally {
+                delivered.incrementAndGet();
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /** number of notifications currently awaiting delivery */
+    public synchronized int getSize() {
+        return queue.size();
+    }
+
+    /** number of notifications offered */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /** number of notifications discarded because the buffer was full */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** number of notifications superseded by a newer one of the same type before delivery */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /** number of notifications handed to their listener */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("capacity", capacity).add("policy", policy)
+                .add("received", received).add("dropped", dropped).add("coalesced", coalesced).toString();
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 
 import brooklyn.entity.basic.EntityLocal
+import brooklyn.util.flags.SetFromFlag
 
 
 /**
@@ -33,6 +34,26 @@ public class JmxSensorAdapter extends AbstractSensorAdapter {
 	
 	JmxHelper helper
 	private volatile long jmxConnectionTimeout = JMX_CONNECTION_TIMEOUT_MS
+	
+	/** whether attributes polled through this adapter are read together, with one call per object name
+	 * per period (see {@link JmxAttributeBatchPollHelper}); default false.
+	 * All batched attributes are polled at this adapter's period. */
+	@SetFromFlag
+	boolean batchAttributes
+	
+	protected final JmxAttributeBatchPollHelper attributeBatch = new JmxAttributeBatchPollHelper(this)
+	
+	/** if set, notifications are queued in a buffer of this size and delivered asynchronously to the
+	 * JMX notification thread (see {@link JmxNotificationBuffer}); default null, meaning delivered
+	 * synchronously on the notification thread */
+	@SetFromFlag
+	Integer notificationBufferSize
+	
+	/** what to discard when the notification buffer is full; default {@link JmxNotificationBuffer.OverflowPolicy#DROP_OLDEST} */
+	@SetFromFlag("notificationOverflow")
+	JmxNotificationBuffer.OverflowPolicy notificationOverflowPolicy
+	
+	private JmxNotificationBuffer notificationBuffer
  
 	static {  // JMX ClientCommunicatorAdmin spits out scary warnings, but we just retry so don't worry
 		// TODO better would be to capture and send to our logger as debug
@@ -56,6 +77,19 @@ public class JmxSensorAdapter extends AbstractSensorAdapter {
         return helper?.getUrl()
     }
     
+    /** the buffer through which notifications are delivered for this entity, or null if delivered synchronously */
+    public synchronized JmxNotificationBuffer getNotificationBuffer() {
+        if (notificationBuffer==null && notificationBufferSize) {
+            notificationBuffer = new JmxNotificationBuffer(entity.executionContext, notificationBufferSize, notificationOverflowPolicy)
+        }
+        return notificationBuffer
+    }
+    
+    /** number of remote JMX calls made for this adapter's entity */
+    public long getRoundTripCount() {
+        return helper?.getRoundTripCount() ?: 0
+    }
+    
 	void register(SensorRegistry registry) {
 		super.register(registry)
  
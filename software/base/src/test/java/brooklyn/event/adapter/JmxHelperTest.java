@@ -2,15 +2,20 @@ package brooklyn.event.adapter;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.management.DynamicMBean;
 import javax.management.MBeanOperationInfo;
 import javax.management.MBeanParameterInfo;
+import javax.management.MBeanServerConnection;
 import javax.management.Notification;
 import javax.management.NotificationListener;
 import javax.management.ObjectName;
@@ -165,6 +170,30 @@ public class JmxHelperTest {
         assertEquals(jmxHelper.getAttribute(jmxObjectName, "myattr"), "myval2");
     }
     
+    @Test
+    public void testHelpersForSameUrlShareConnection() throws Exception {
+        GeneralisedDynamicMBean mbean = jmxService.registerMBean(MutableMap.of("myattr", "myval"), objectName);
+        JmxConnectionRegistry registry = JmxConnectionRegistry.getInstance();
+        int connectionCount = registry.getConnectionCount();
+        
+        JmxHelper jmxHelper2 = new JmxHelper(jmxService.getUrl());
+        try {
+            jmxHelper2.connect();
+            assertEquals(registry.getConnectionCount(), connectionCount);
+            assertSame(jmxHelper2.getConnection(), jmxHelper.getConnection());
+            assertEquals(jmxHelper2.getAttribute(jmxObjectName, "myattr"), "myval");
+        } finally {
+            jmxHelper2.disconnect();
+        }
+        
+        // still usable by the other helper
+        assertTrue(jmxHelper.isConnected());
+        assertEquals(jmxHelper.getAttribute(jmxObjectName, "myattr"), "myval");
+        
+        jmxHelper.disconnect();
+        assertEquals(registry.getConnectionCount(), connectionCount-1);
+    }
+
     @Test(expectedExceptions = {IllegalStateException.class})
     public void testJmxCheckInstanceExistsEventuallyThrowsIfNotFound() throws Exception {
         jmxHelper.assertMBeanExistsEventually(new ObjectName("Brooklyn:type=DoesNotExist,name=doesNotExist"), 1L);
@@ -225,6 +254,35 @@ public class JmxHelperTest {
             }});
     }
 
+    @Test
+    public void testNotificationListenerStillSubscribedAfterReconnect() throws Exception {
+        StandardEmitterMBean mbean = jmxService.registerMBean(ImmutableList.of("one"), objectName);
+        int sequence = 0;
+        final List<Notification> received = new CopyOnWriteArrayList<Notification>();
+
+        jmxHelper.addNotificationListener(jmxObjectName, new NotificationListener() {
+            public void handleNotification(Notification notif, Object callback) {
+                received.add(notif);
+            }});
+        
+        // replaces the shared connector, closing the one the listener was added on
+        MBeanServerConnection oldConnection = jmxHelper.getConnection();
+        jmxHelper.reconnect();
+        assertNotSame(jmxHelper.getConnection(), oldConnection);
+
+        final Notification notif = sendNotification(mbean, "one", sequence++, "abc");
+
+        TestUtils.executeUntilSucceeds(ImmutableMap.of("timeout", TIMEOUT_MS), new Runnable() {
+            public void run() {
+                assertEquals(received.size(), 1);
+                assertNotificationsEqual(received.get(0), notif);
+            }});
+        
+        // and only added once
+        Thread.sleep(SHORT_WAIT_MS);
+        assertEquals(received.size(), 1);
+    }
+
     // Visual-inspection test that LOG.warn happens only once; TODO setup a listener to the logging output
     @Test
     public void testMBeanNotFoundLoggedOnlyOncePerUrl() throws Exception {
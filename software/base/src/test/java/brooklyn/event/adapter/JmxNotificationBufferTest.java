@@ -0,0 +1,105 @@
+package brooklyn.event.adapter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.event.adapter.JmxNotificationBuffer.OverflowPolicy;
+
+import com.google.common.collect.Lists;
+
+public class JmxNotificationBufferTest {
+
+    private List<Runnable> pendingTasks;
+    private Executor executor;
+    private List<Object> delivered;
+    private NotificationListener listener;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        pendingTasks = Lists.newArrayList();
+        executor = new Executor() {
+            public void execute(Runnable command) {
+                pendingTasks.add(command);
+            }};
+        delivered = Lists.newArrayList();
+        listener = new NotificationListener() {
+            public void handleNotification(Notification notification, Object handback) {
+                delivered.add(notification.getUserData());
+            }};
+    }
+
+    @Test
+    public void testDeliversInOrderWithSingleTask() {
+        JmxNotificationBuffer buffer = new JmxNotificationBuffer(executor, 10, OverflowPolicy.DROP_OLDEST);
+        buffer.offer(listener, newNotification("a", 1));
+        buffer.offer(listener, newNotification("a", 2));
+        assertEquals(pendingTasks.size(), 1);
+        assertEquals(buffer.getSize(), 2);
+
+        runPendingTasks();
+        assertEquals(delivered, Lists.<Object>newArrayList(1, 2));
+        assertEquals(buffer.getDeliveredCount(), 2);
+
+        // once drained, a new task is submitted for subsequent notifications
+        buffer.offer(listener, newNotification("a", 3));
+        assertEquals(pendingTasks.size(), 1);
+    }
+
+    @Test
+    public void testDropOldestWhenFull() {
+        JmxNotificationBuffer buffer = new JmxNotificationBuffer(executor, 2, OverflowPolicy.DROP_OLDEST);
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(buffer.offer(listener, newNotification("a", i)));
+        }
+        runPendingTasks();
+        assertEquals(delivered, Lists.<Object>newArrayList(3, 4));
+        assertEquals(buffer.getReceivedCount(), 4);
+        assertEquals(buffer.getDroppedCount(), 2);
+    }
+
+    @Test
+    public void testDropNewestWhenFull() {
+        JmxNotificationBuffer buffer = new JmxNotificationBuffer(executor, 2, OverflowPolicy.DROP_NEWEST);
+        buffer.offer(listener, newNotification("a", 1));
+        buffer.offer(listener, newNotification("a", 2));
+        assertFalse(buffer.offer(listener, newNotification("a", 3)));
+        runPendingTasks();
+        assertEquals(delivered, Lists.<Object>newArrayList(1, 2));
+        assertEquals(buffer.getDroppedCount(), 1);
+    }
+
+    @Test
+    public void testCoalescesSameTypeForSameListener() {
+        JmxNotificationBuffer buffer = new JmxNotificationBuffer(executor, 10, OverflowPolicy.COALESCE);
+        buffer.offer(listener, newNotification("a", 1));
+        buffer.offer(listener, newNotification("b", 2));
+        buffer.offer(listener, newNotification("a", 3));
+        assertEquals(buffer.getSize(), 2);
+        runPendingTasks();
+        assertEquals(delivered, Lists.<Object>newArrayList(3, 2));
+        assertEquals(buffer.getCoalescedCount(), 1);
+        assertEquals(buffer.getDroppedCount(), 0);
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    private Notification newNotification(String type, Object userData) {
+        Notification result = new Notification(type, "source", 0);
+        result.setUserData(userData);
+        return result;
+    }
+}
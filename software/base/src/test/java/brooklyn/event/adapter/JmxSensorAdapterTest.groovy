@@ -119,6 +119,65 @@ public class JmxSensorAdapterTest {
         }
     }
 
+    @Test
+    public void jmxBatchedAttributePollerReturnsMBeanAttributes() {
+        JmxSensorAdapter batchedAdapter = registry.register(new JmxSensorAdapter(period: 50*TimeUnit.MILLISECONDS, batchAttributes: true));
+        GeneralisedDynamicMBean mbean = jmxService.registerMBean(objectName, (attributeName): 42, myStringAttrib: "a")
+
+        batchedAdapter.objectName(objectName).with {
+            attribute(attributeName).subscribe(intAttribute)
+            attribute("myStringAttrib").subscribe(stringAttribute)
+        }
+        registry.activateAdapters()
+        
+        TestUtils.executeUntilSucceeds(timeout:TIMEOUT) {
+            assertEquals entity.getAttribute(intAttribute), 42
+            assertEquals entity.getAttribute(stringAttribute), "a"
+        }
+
+        mbean.updateAttributeValue(attributeName, 64)
+        mbean.updateAttributeValue("myStringAttrib", "b")
+        TestUtils.executeUntilSucceeds(timeout:TIMEOUT) {
+            assertEquals entity.getAttribute(intAttribute), 64
+            assertEquals entity.getAttribute(stringAttribute), "b"
+        }
+        assertTrue(batchedAdapter.getRoundTripCount() > 0)
+    }
+
+    @Test
+    public void jmxBatchedAttributePollerMakesOneCallPerObjectNamePerPoll() {
+        // polled once on activation, then (within the test) only when asked
+        JmxSensorAdapter batchedAdapter = registry.register(new JmxSensorAdapter(period: 60*TimeUnit.MINUTES, batchAttributes: true));
+        GeneralisedDynamicMBean mbean = jmxService.registerMBean(objectName, (attributeName): 42, myStringAttrib: "a")
+        jmxService.registerMBean(wrongObjectName, myBoolAttrib: true)
+
+        batchedAdapter.objectName(objectName).with {
+            attribute(attributeName).subscribe(intAttribute)
+            attribute("myStringAttrib").subscribe(stringAttribute)
+        }
+        batchedAdapter.objectName(wrongObjectName).with {
+            attribute("myBoolAttrib").subscribe(boolAttribute)
+        }
+        registry.activateAdapters()
+
+        TestUtils.executeUntilSucceeds(timeout:TIMEOUT) {
+            assertEquals entity.getAttribute(intAttribute), 42
+            assertEquals entity.getAttribute(stringAttribute), "a"
+            assertEquals entity.getAttribute(boolAttribute), true
+        }
+
+        long before = batchedAdapter.getRoundTripCount()
+        batchedAdapter.attributeBatch.executePoll()
+        assertEquals(batchedAdapter.getRoundTripCount() - before, 2)
+        assertFalse(batchedAdapter.attributeBatch.valuesChanged)
+
+        // a change seen by a member counts as a change for the batch (so an adaptive period resets)
+        mbean.updateAttributeValue(attributeName, 64)
+        batchedAdapter.attributeBatch.executePoll()
+        assertEquals entity.getAttribute(intAttribute), 64
+        assertTrue(batchedAdapter.attributeBatch.valuesChanged)
+    }
+
     @Test
     public void jmxPollerWillPollEvenIfOnlyConnectsAfterActivatingAdapters() {
         jmxService.shutdown();
@@ -322,6 +381,32 @@ public class JmxSensorAdapterTest {
         assertEquals entity.getAttribute(intAttribute), 123
     }
     
+    @Test
+    public void jmxBufferedNotificationSubscriptionForSensor() {
+        String one = 'notification.one'
+        StandardEmitterMBean mbean = jmxService.registerMBean([ one ], objectName)
+        int sequence = 0
+
+        SensorRegistry registry2 = new SensorRegistry(entity)
+        JmxSensorAdapter bufferedAdapter = registry2.register(new JmxSensorAdapter(notificationBufferSize:10))
+        try {
+            bufferedAdapter.objectName(objectName).with {
+                notification(one).subscribe(intAttribute)
+            }
+            registry2.activateAdapters()
+            
+            sendNotification(mbean, one, sequence++, 123)
+    
+            TestUtils.executeUntilSucceeds(timeout:TIMEOUT) {
+                assertEquals entity.getAttribute(intAttribute), 123
+            }
+            assertEquals bufferedAdapter.notificationBuffer.receivedCount, 1
+            assertEquals bufferedAdapter.notificationBuffer.droppedCount, 0
+        } finally {
+            registry2.deactivateAdapters()
+        }
+    }
+    
     @Test
     public void jmxNotificationSubscriptionUsingListener() {
         String one = 'notification.one', two = 'notification.two'
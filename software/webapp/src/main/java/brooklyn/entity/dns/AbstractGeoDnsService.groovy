@@ -3,8 +3,6 @@ package brooklyn.entity.dns
 import brooklyn.entity.Entity;
 import java.util.Map
 import java.util.Set
-import java.util.concurrent.Executors
-import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
 
 import org.slf4j.Logger
@@ -21,8 +19,8 @@ import brooklyn.entity.webapp.WebAppService
 import brooklyn.event.Sensor;
 import brooklyn.event.basic.BasicAttributeSensor
 import brooklyn.location.geo.HostGeoInfo
+import brooklyn.management.internal.PolicyScheduler
 
-import com.google.common.base.Throwables
 import com.google.common.collect.ImmutableMap
 
 
@@ -76,7 +74,9 @@ abstract class AbstractGeoDnsService extends AbstractEntity {
     }
     
     // TODO: remove polling once locations can be determined via subscriptions
-    ScheduledFuture poll;
+    // key of the poll job on the policy scheduler, if polling
+    String poll;
+    private PolicyScheduler pollScheduler;
     protected void beginPoll() {
         if (log.isDebugEnabled()) log.debug("GeoDns $this starting poll");
         if (poll!=null) {
@@ -87,7 +87,9 @@ abstract class AbstractGeoDnsService extends AbstractEntity {
             log.warn("GeoDns $this has no targetEntityProvider, ignoring")
             return;
         }
-        poll = Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(
+        poll = "geodns-poll-"+id
+        pollScheduler = PolicyScheduler.forEntity(this)
+        pollScheduler.scheduleWithFixedDelay(poll, this, 0, TimeUnit.SECONDS.toMillis(5),
             new Runnable() {
                 public void run() {
                     try {
@@ -96,16 +98,14 @@ abstract class AbstractGeoDnsService extends AbstractEntity {
                         Thread.currentThread().interrupt();
                     } catch (Throwable t) {
                         log.warn("Error refreshing group membership", t)
-                        Throwables.propagate(t)
                     }
                 }
-            }, 0, 5, TimeUnit.SECONDS
-        );
+            });
     }
     protected void endPoll() {
         if (poll!=null) {
             if (log.isDebugEnabled()) log.debug("GeoDns $this ending poll");
-            poll.cancel(true);
+            pollScheduler.cancel(poll);
             poll = null;
         }
     }
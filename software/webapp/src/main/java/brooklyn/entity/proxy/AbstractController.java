@@ -6,6 +6,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 
@@ -32,6 +33,7 @@ import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.event.basic.BasicAttributeSensorAndConfigKey;
 import brooklyn.event.basic.BasicConfigKey;
 import brooklyn.event.basic.PortAttributeSensorAndConfigKey;
+import brooklyn.management.internal.PolicyScheduler;
 import brooklyn.mementos.EntityMemento;
 import brooklyn.util.MutableMap;
 import brooklyn.util.flags.SetFromFlag;
@@ -76,6 +78,11 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
     public static final BasicConfigKey<ProxySslConfig> SSL_CONFIG = 
         new BasicConfigKey<ProxySslConfig>(ProxySslConfig.class, "proxy.ssl.config", "configuration (e.g. certificates) for SSL; will use SSL if set, not use SSL if not set");
 
+    @SetFromFlag("updateDebouncePeriod")
+    public static final BasicConfigKey<Long> UPDATE_DEBOUNCE_PERIOD = new BasicConfigKey<Long>(
+            Long.class, "proxy.update.debouncePeriod", "Time (in ms) to wait after a change to the server pool before updating, " +
+            "so that several changes (e.g. during a resize) are applied in a single update; 0 to update immediately", 0L);
+
     public static final BasicAttributeSensor<String> ROOT_URL = WebAppService.ROOT_URL;
     
     public static final BasicAttributeSensor<Set<String>> SERVER_POOL_TARGETS = new BasicAttributeSensor(
@@ -91,6 +98,7 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
     
     protected volatile boolean isActive;
     protected volatile boolean updateNeeded = true;
+    private final AtomicBoolean updateQueued = new AtomicBoolean(false);
 
     protected AbstractMembershipTrackingPolicy serverPoolMemberTrackerPolicy;
     protected Set<String> serverPoolAddresses = Sets.newLinkedHashSet();
@@ -251,6 +259,14 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
      */
     protected abstract void reconfigureService();
     
+    /**
+     * Whether the configuration written by the last {@link #reconfigureService()} differs from that which
+     * the service is running with, so requires a reload. By default always true.
+     */
+    protected boolean isReloadRequired() {
+        return true;
+    }
+    
     @Description("Updates the entities configuration, and then forces reload of that configuration")
     public synchronized void update() {
         if (!isActive()) updateNeeded = true;
@@ -258,12 +274,36 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
             updateNeeded = false;
             LOG.debug("Updating {} in response to changes", this);
             reconfigureService();
-            LOG.debug("Reloading {} in response to changes", this);
-            invokeFromJava(RELOAD);
+            if (isReloadRequired()) {
+                LOG.debug("Reloading {} in response to changes", this);
+                invokeFromJava(RELOAD);
+            } else {
+                LOG.debug("Not reloading {}, as configuration unchanged", this);
+            }
         }
         setAttribute(SERVER_POOL_TARGETS, serverPoolAddresses);
     }
 
+    /**
+     * Updates in response to a change, either immediately or (if {@link #UPDATE_DEBOUNCE_PERIOD} is set)
+     * after that period, coalescing with any other changes in the meantime.
+     */
+    protected void requestUpdate() {
+        Long debouncePeriod = getConfig(UPDATE_DEBOUNCE_PERIOD);
+        if (debouncePeriod == null || debouncePeriod <= 0) {
+            update();
+        } else if (updateQueued.compareAndSet(false, true)) {
+            if (LOG.isTraceEnabled()) LOG.trace("Scheduling update of {} in {}ms", this, debouncePeriod);
+            PolicyScheduler.forEntity(this).schedule("controller-update-"+getId(), this, debouncePeriod, new Runnable() {
+                @Override public void run() {
+                    updateQueued.set(false);
+                    update();
+                }});
+        } else {
+            if (LOG.isTraceEnabled()) LOG.trace("Update of {} already scheduled", this);
+        }
+    }
+
     protected synchronized void resetServerPoolMemberTrackerPolicy() {
         serverPoolMemberTrackerPolicy.reset();
         serverPoolAddresses.clear();
@@ -328,7 +368,7 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
 
         LOG.info("Adding to {}, new member {} with address {}", new Object[] {this, member, address});
         
-        update();
+        requestUpdate();
         serverPoolTargets.add(member);
     }
     
@@ -345,7 +385,7 @@ public abstract class AbstractController extends SoftwareProcessEntity implement
         
         LOG.info("Removing from {}, member {} with address {}", new Object[] {this, member, address});
         
-        update();
+        requestUpdate();
         serverPoolTargets.remove(member);
     }
     
@@ -46,6 +46,11 @@ import com.google.common.collect.Multimap
  * per-Url is useful if different certificates are used for different server names,
  * or different ports if that is supported.
  * see more info on Ssl in {@link ProxySslConfig}.
+ * <p>
+ * Config files are only copied to the server (and nginx reloaded) when their contents have changed. 
+ * With <code>upstreamIncludes</code>, the servers of each upstream are written to separate files, so that changes
+ * to the server pool only copy those; with <code>updateDebouncePeriod</code>, a burst of changes to the server pool
+ * (e.g. during a resize) results in a single update.
  */
 public class NginxController extends AbstractController {
 
@@ -67,6 +72,12 @@ public class NginxController extends AbstractController {
     public static final BasicConfigKey<Long> HTTP_POLL_PERIOD =
         new BasicConfigKey<Long>(Long.class, "nginx.sensorpoll.http", "poll period (in milliseconds)", 1000);
 
+    @SetFromFlag("upstreamIncludes")
+    public static final BasicConfigKey<Boolean> UPSTREAM_INCLUDES =
+        new BasicConfigKey<Boolean>(Boolean.class, "nginx.config.upstreamIncludes", 
+            "whether to write the servers of each upstream to its own file, included from the main config, so that " +
+            "changes to the server pool only copy the (small) upstream files that have changed", false);
+
     public NginxController(Entity owner) {
         this(new LinkedHashMap(), owner);
     }
@@ -88,13 +99,13 @@ public class NginxController extends AbstractController {
         Group urlMappings = getConfig(URL_MAPPINGS);
         if (urlMappings != null) {
             // Listen to the targets of each url-mapping changing
-            subscribeToMembers(urlMappings, UrlMapping.TARGET_ADDRESSES, { update(); } as SensorEventListener);
+            subscribeToMembers(urlMappings, UrlMapping.TARGET_ADDRESSES, { requestUpdate(); } as SensorEventListener);
             
             // Listen to url-mappings being added and removed
             AbstractMembershipTrackingPolicy policy = new AbstractMembershipTrackingPolicy() {
-                @Override protected void onEntityChange(Entity member) { update(); }
-                @Override protected void onEntityAdded(Entity member) { update(); }
-                @Override protected void onEntityRemoved(Entity member) { update(); }
+                @Override protected void onEntityChange(Entity member) { requestUpdate(); }
+                @Override protected void onEntityAdded(Entity member) { requestUpdate(); }
+                @Override protected void onEntityRemoved(Entity member) { requestUpdate(); }
             };
             addPolicy(policy);
             policy.setGroup(urlMappings);
@@ -143,6 +154,7 @@ public class NginxController extends AbstractController {
         // And don't want stop to race with the last poll.
         super.stop();
         setAttribute(SERVICE_UP, false);
+        synchronized (pushedConfigs) { pushedConfigs.clear(); }
     }
     
     @Override
@@ -159,10 +171,22 @@ public class NginxController extends AbstractController {
         return getConfigFile();
     }
     
+    /** config file contents last copied to the server, keyed by path; used to skip unchanged files (and reloads) */
+    private final Map<String,String> pushedConfigs = [:];
+    
+    private volatile boolean reloadRequired = true;
+    
+    @Override
+    protected boolean isReloadRequired() {
+        return reloadRequired;
+    }
+    
     @Override
     protected void reconfigureService() {
-
-        String cfg = getConfigFile();
+        reloadRequired = true;
+        
+        Map<String,String> upstreamFiles = getConfig(UPSTREAM_INCLUDES) ? new LinkedHashMap<String,String>() : null;
+        String cfg = generateConfigFile(upstreamFiles);
         if (cfg==null) return;
         
         if (LOG.isDebugEnabled()) LOG.debug("Reconfiguring {}, targetting {} and {}", this, serverPoolAddresses, findUrlMappings());
@@ -174,13 +198,34 @@ public class NginxController extends AbstractController {
             return;
         }
         
-        driver.machine.copyTo(new ByteArrayInputStream(cfg.getBytes()), driver.getRunDir()+"/conf/server.conf");
+        // upstream files first, as the main config includes them
+        boolean changed = false;
+        if (upstreamFiles != null) {
+            for (Map.Entry<String,String> entry : upstreamFiles.entrySet()) {
+                changed |= copyConfigIfChanged(driver, entry.getKey(), entry.getValue());
+            }
+        }
+        changed |= copyConfigIfChanged(driver, driver.getRunDir()+"/conf/server.conf", cfg);
         
-        installSslKeys("global", getConfig(SSL_CONFIG));
+        changed |= installSslKeys("global", getConfig(SSL_CONFIG));
         
         for (UrlMapping mapping: findUrlMappings()) {
             //cache ensures only the first is installed, which is what is assumed below
-            installSslKeys(mapping.getDomain(), mapping.getConfig(UrlMapping.SSL_CONFIG));
+            changed |= installSslKeys(mapping.getDomain(), mapping.getConfig(UrlMapping.SSL_CONFIG));
+        }
+        reloadRequired = changed;
+    }
+    
+    /** copies the given contents to the given path on the server, unless identical to those last copied there */
+    private boolean copyConfigIfChanged(NginxSshDriver driver, String path, String contents) {
+        synchronized (pushedConfigs) {
+            if (contents.equals(pushedConfigs.get(path))) {
+                if (LOG.isTraceEnabled()) LOG.trace("Not copying {} to {}, as unchanged", path, this);
+                return false;
+            }
+            driver.machine.copyTo(new ByteArrayInputStream(contents.getBytes()), path);
+            pushedConfigs.put(path, contents);
+            return true;
         }
     }
     
@@ -188,11 +233,14 @@ public class NginxController extends AbstractController {
 
     /** installs SSL keys named as  ID.{crt,key}  where nginx can find them;
      * currently skips re-installs (does not support changing)
+     * @return true if any files were copied (so nginx must be reloaded to use them)
      */
-    protected void installSslKeys(String id, ProxySslConfig ssl) {
-        if (ssl == null) return;
+    protected boolean installSslKeys(String id, ProxySslConfig ssl) {
+        if (ssl == null) return false;
 
-        if (installedKeysCache.contains(id)) return;
+        if (installedKeysCache.contains(id)) return false;
+
+        boolean copied = false;
 
         NginxSshDriver driver = (NginxSshDriver) getDriver();
 
@@ -201,6 +249,7 @@ public class NginxController extends AbstractController {
             driver.machine.copyTo(permissions: "0400",
                     new ResourceUtils(this).getResourceFromUrl(ssl.certificateSourceUrl),
                     certificateDestination);
+            copied = true;
         }
 
         if (!Strings.isEmpty(ssl.keySourceUrl)) {
@@ -208,12 +257,22 @@ public class NginxController extends AbstractController {
             driver.machine.copyTo(permissions: "0400",
                     new ResourceUtils(this).getResourceFromUrl(ssl.keySourceUrl),
                     keyDestination);
+            copied = true;
         }
 
         installedKeysCache.add(id);
+        return copied;
     }
 
     public String getConfigFile() {
+        return generateConfigFile(null);
+    }
+    
+    /**
+     * Generates the main config file. If a map is supplied, the servers of each upstream block are instead 
+     * written to an include file, whose path and contents are put in the map.
+     */
+    protected String generateConfigFile(Map<String,String> upstreamFiles) {
         // TODO should refactor this method to a new class with methods e.g. NginxConfigFileGenerator...
         
         NginxSshDriver driver = (NginxSshDriver)getDriver();
@@ -251,14 +310,7 @@ public class NginxController extends AbstractController {
         
         // For basic round-robin across the server-pool
         if (serverPoolAddresses) {
-            config.append(format("  upstream "+getId()+" {\n"))
-            if (sticky){
-                config.append("    sticky;\n");
-            }
-            for (String address: serverPoolAddresses){
-                config.append("    server "+address+";\n")
-            }
-            config.append("  }\n")
+            appendUpstream(config, getId(), serverPoolAddresses, driver, upstreamFiles)
             config.append("  server {\n");
             config.append(getCodeForServerConfig());
             config.append("    listen "+getPort()+";\n")
@@ -284,14 +336,7 @@ public class NginxController extends AbstractController {
             Collection<String> addrs = um.getAttribute(UrlMapping.TARGET_ADDRESSES);
             if (addrs) {
                 String location = um.getPath() != null ? um.getPath() : "/";
-                config.append(format("  upstream "+um.uniqueLabel+" {\n"))
-                if (sticky){
-                    config.append("    sticky;\n");
-                }
-                for (String address: addrs) {
-                    config.append("    server "+address+";\n")
-                }
-                config.append("  }\n")
+                appendUpstream(config, um.uniqueLabel, addrs, driver, upstreamFiles)
             }
         }
         
@@ -372,6 +417,27 @@ public class NginxController extends AbstractController {
         return config.toString();
     }
 
+    protected void appendUpstream(StringBuilder config, String name, Collection<String> addresses, NginxSshDriver driver, 
+            Map<String,String> upstreamFiles) {
+        StringBuilder servers = new StringBuilder();
+        for (String address: addresses) {
+            servers.append("    server "+address+";\n")
+        }
+        
+        config.append(format("  upstream "+name+" {\n"))
+        if (sticky){
+            config.append("    sticky;\n");
+        }
+        if (upstreamFiles != null) {
+            String path = driver.getRunDir()+"/conf/upstream-"+name+".conf";
+            upstreamFiles.put(path, servers.toString());
+            config.append("    include "+path+";\n")
+        } else {
+            config.append(servers)
+        }
+        config.append("  }\n")
+    }
+    
     protected String getCodeForServerConfig() {
         return ''+
             // this prevents nginx from reporting version number on error pages
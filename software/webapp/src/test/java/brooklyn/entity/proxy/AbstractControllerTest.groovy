@@ -4,7 +4,6 @@ import static brooklyn.test.TestUtils.*
 import static org.testng.Assert.*
 
 import java.util.concurrent.CopyOnWriteArrayList
-import java.util.concurrent.atomic.AtomicInteger
 
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
@@ -13,6 +12,7 @@ import org.testng.annotations.Test
 
 import brooklyn.entity.Entity
 import brooklyn.entity.basic.Attributes
+import brooklyn.entity.basic.Entities
 import brooklyn.entity.basic.EntityLocal
 import brooklyn.entity.driver.MockSshBasedSoftwareSetup
 import brooklyn.entity.group.Cluster
@@ -48,15 +48,18 @@ class AbstractControllerTest {
         loc = new FixedListMachineProvisioningLocation<SshMachineLocation>(machines:machines)
         updates = new CopyOnWriteArrayList();
         
+        startApp([:])
+    }
+    
+    private void startApp(Map controllerFlags) {
         app = new TestApplication()
         cluster = new DynamicCluster(owner:app, initialSize:0, factory:{flags,parent -> new ClusteredEntity(flags, parent)})
         
-        final AtomicInteger invokeCountForStart = new AtomicInteger(0);
-        controller = new AbstractController(
+        controller = new AbstractController([
                 owner:app, 
                 serverPool:cluster, 
                 portNumberSensor:ClusteredEntity.HTTP_PORT,
-                domain:"mydomain") {
+                domain:"mydomain"] + controllerFlags) {
 
             @Override
             public void connectSensors() {
@@ -138,6 +141,24 @@ class AbstractControllerTest {
         assertEventuallyAddressesMatchCluster()
     }
 
+    @Test
+    public void testDebouncedUpdateCoalescesMembershipChanges() {
+        // replace the app started by setUp with one whose controller debounces updates
+        Entities.unmanage(app)
+        updates.clear()
+        startApp([updateDebouncePeriod:1000L])
+        
+        cluster.resize(3)
+        cluster.ownedChildren.each {
+            it.setAttribute(ClusteredEntity.HTTP_PORT, 1234)
+            it.setAttribute(Startable.SERVICE_UP, true)
+        }
+        assertEventuallyAddressesMatchCluster()
+        
+        // all three members came up within the debounce period, so should have been applied in a single update
+        assertEquals(updates.size(), 1, "updates="+updates)
+    }
+
     private void assertEventuallyAddressesMatchCluster() {
         executeUntilSucceeds(timeout:5000) {
             def u = new ArrayList(updates);
@@ -5,25 +5,35 @@ import java.net.InetAddress;
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 
 import javax.servlet.DispatcherType;
 
-import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.GzipHandler;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
 import org.eclipse.jetty.server.ssl.SslSocketConnector;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.webapp.WebAppContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import brooklyn.config.BrooklynProperties;
 import brooklyn.config.BrooklynServiceAttributes;
+import brooklyn.config.ConfigKey;
+import brooklyn.config.StringConfigMap;
 import brooklyn.location.PortRange;
 import brooklyn.location.basic.LocalhostMachineProvisioningLocation;
 import brooklyn.location.basic.PortRanges;
 import brooklyn.management.ManagementContext;
 import brooklyn.rest.BrooklynRestApi;
+import brooklyn.rest.BrooklynWebConfig;
 import brooklyn.rest.security.BrooklynPropertiesSecurityFilter;
 import brooklyn.util.BrooklynLanguageExtensions;
 import brooklyn.util.MutableMap;
@@ -41,7 +51,11 @@ import com.sun.jersey.api.core.ResourceConfig;
 import com.sun.jersey.spi.container.servlet.ServletContainer;
 
 /**
- * Starts the web-app running, connected to the given management context
+ * Starts the web-app running, connected to the given management context.
+ * <p>
+ * The server's thread pool, connector and response compression are configured from the
+ * management context's brooklyn properties (see the <code>SERVER_*</code> keys in {@link BrooklynWebConfig}),
+ * and statistics of the requests it serves are available from {@link #getRequestStatistics()}.
  */
 public class BrooklynWebServer {
     private static final Logger log = LoggerFactory.getLogger(BrooklynWebServer.class);
@@ -89,6 +103,8 @@ public class BrooklynWebServer {
 
     private Class<BrooklynPropertiesSecurityFilter> securityFilterClazz;
 
+    private StatisticsHandler requestStatistics;
+
     public BrooklynWebServer(ManagementContext managementContext) {
         this(Maps.newLinkedHashMap(), managementContext);
     }
@@ -214,15 +230,15 @@ public class BrooklynWebServer {
         if (log.isDebugEnabled())
             log.debug("Starting Brooklyn console at "+getRootUrl()+", running " + war + (wars != null ? " and " + wars.values() : ""));
 
-        server = new Server(actualPort);
-
-        if(httpsEnabled){
-            //by default the server is configured with a http connector, this needs to be removed since we are going
-            //to provide https
-            for(Connector c: server.getConnectors()){
-                server.removeConnector(c);
-            }
+        server = new Server();
+        server.setThreadPool(newThreadPool());
 
+        if(!httpsEnabled){
+            SelectChannelConnector connector = new SelectChannelConnector();
+            connector.setPort(actualPort);
+            configureConnector(connector);
+            server.addConnector(connector);
+        } else {
             SslContextFactory sslContextFactory = new SslContextFactory();
             sslContextFactory.setKeyStorePath(checkFileExists(keystorePath, "keystore"));
             sslContextFactory.setKeyStorePassword(keystorePassword);
@@ -233,6 +249,7 @@ public class BrooklynWebServer {
 
             SslSocketConnector sslSocketConnector = new SslSocketConnector(sslContextFactory);
             sslSocketConnector.setPort(actualPort);
+            configureConnector(sslSocketConnector);
             server.addConnector(sslSocketConnector);
         }
 
@@ -250,7 +267,7 @@ public class BrooklynWebServer {
         }
         installAsServletFilter(rootContext);
 
-        server.setHandler(handlers);
+        server.setHandler(newHandlerChain(handlers));
         server.start();
         //reinit required because grails wipes our language extension bindings
         BrooklynLanguageExtensions.reinit();
@@ -258,6 +275,42 @@ public class BrooklynWebServer {
         log.info("Started Brooklyn console at "+getRootUrl()+", running " + war + (wars != null ? " and " + wars.values() : ""));
     }
 
+    private <T> T getConfig(ConfigKey<T> key) {
+        StringConfigMap config = (managementContext != null) ? managementContext.getConfig() : BrooklynProperties.Factory.newEmpty();
+        return config.getConfig(key);
+    }
+
+    /** bounded, so that a flood of requests is rejected rather than starving the management plane of threads and memory */
+    private QueuedThreadPool newThreadPool() {
+        int maxThreads = getConfig(BrooklynWebConfig.SERVER_THREADS_MAX);
+        QueuedThreadPool pool = new QueuedThreadPool(new ArrayBlockingQueue<Runnable>(getConfig(BrooklynWebConfig.SERVER_THREADS_QUEUE)));
+        pool.setName("brooklyn-webconsole");
+        pool.setMaxThreads(maxThreads);
+        pool.setMinThreads(Math.min(getConfig(BrooklynWebConfig.SERVER_THREADS_MIN), maxThreads));
+        return pool;
+    }
+
+    private void configureConnector(AbstractConnector connector) {
+        connector.setAcceptors(getConfig(BrooklynWebConfig.SERVER_ACCEPTORS));
+        connector.setMaxIdleTime(getConfig(BrooklynWebConfig.SERVER_IDLE_TIMEOUT));
+        connector.setLowResourcesMaxIdleTime(getConfig(BrooklynWebConfig.SERVER_LOW_RESOURCES_IDLE_TIMEOUT));
+    }
+
+    /** wraps the webapps in the request statistics handler and (if enabled) in compression of responses */
+    private Handler newHandlerChain(Handler webapps) {
+        Handler result = webapps;
+        if (getConfig(BrooklynWebConfig.SERVER_GZIP)) {
+            GzipHandler gzip = new GzipHandler();
+            gzip.setMimeTypes(getConfig(BrooklynWebConfig.SERVER_GZIP_MIME_TYPES));
+            gzip.setMinGzipSize(getConfig(BrooklynWebConfig.SERVER_GZIP_MIN_SIZE));
+            gzip.setHandler(result);
+            result = gzip;
+        }
+        requestStatistics = new StatisticsHandler();
+        requestStatistics.setHandler(result);
+        return requestStatistics;
+    }
+
     private String checkFileExists(String path, String name) {
         if(!new File(path).exists()){
             throw new IllegalArgumentException("Could not find "+name+": "+path);
@@ -282,6 +335,7 @@ public class BrooklynWebServer {
             /* NPE may be thrown e.g. if threadpool not started */
         }
         server = null;
+        requestStatistics = null;
         LocalhostMachineProvisioningLocation.releasePort(getAddress(), actualPort);
         actualPort = -1;
         if (log.isDebugEnabled())
@@ -349,4 +403,13 @@ public class BrooklynWebServer {
     public WebAppContext getRootContext() {
         return rootContext;
     }
+
+    /**
+     * Statistics of the requests served since the server started (or since they were last reset),
+     * e.g. {@link StatisticsHandler#getRequestsActive()} and {@link StatisticsHandler#getRequestTimeMean()};
+     * null if the server is not running.
+     */
+    public StatisticsHandler getRequestStatistics() {
+        return requestStatistics;
+    }
 }
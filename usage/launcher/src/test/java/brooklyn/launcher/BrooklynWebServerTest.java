@@ -2,6 +2,7 @@ package brooklyn.launcher;
 
 import brooklyn.config.BrooklynProperties;
 import brooklyn.management.internal.LocalManagementContext;
+import brooklyn.rest.BrooklynWebConfig;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -9,6 +10,8 @@ import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.ssl.AllowAllHostnameVerifier;
 import org.apache.http.conn.ssl.SSLSocketFactory;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.BeforeMethod;
@@ -21,6 +24,9 @@ import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
 public class BrooklynWebServerTest {
 
     public static final Logger log = LoggerFactory.getLogger(BrooklynWebServer.class);
@@ -57,6 +63,27 @@ public class BrooklynWebServerTest {
         InputStream instream = entity.getContent();
     }
 
+    @Test
+    public void verifyServerConfiguredFromProperties() throws Exception {
+        brooklynProperties.put(BrooklynWebConfig.SERVER_THREADS_MAX, 10);
+        brooklynProperties.put(BrooklynWebConfig.SERVER_THREADS_MIN, 2);
+        BrooklynWebServer webServer = new BrooklynWebServer(new LocalManagementContext(brooklynProperties));
+        webServer.start();
+        try {
+            QueuedThreadPool pool = (QueuedThreadPool) webServer.getServer().getThreadPool();
+            assertEquals(pool.getMaxThreads(), 10);
+            assertEquals(pool.getMinThreads(), 2);
+
+            DefaultHttpClient httpclient = new DefaultHttpClient();
+            HttpResponse response = httpclient.execute(new HttpGet(webServer.getRootUrl()));
+            EntityUtils.consume(response.getEntity());
+
+            assertTrue(webServer.getRequestStatistics().getRequests() >= 1);
+        } finally {
+            webServer.stop();
+        }
+    }
+
     private BrooklynWebServer buildWebServer() throws Exception {
         Map flags = new HashMap();
         flags.put("httpsEnabled", true);
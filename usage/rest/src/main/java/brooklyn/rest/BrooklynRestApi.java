@@ -10,6 +10,7 @@ import brooklyn.rest.resources.AbstractBrooklynRestResource;
 import brooklyn.rest.resources.ActivityResource;
 import brooklyn.rest.resources.ApidocResource;
 import brooklyn.rest.resources.ApplicationResource;
+import brooklyn.rest.resources.BatchEffectorResource;
 import brooklyn.rest.resources.CatalogResource;
 import brooklyn.rest.resources.ConfigResource;
 import brooklyn.rest.resources.EffectorResource;
@@ -18,6 +19,7 @@ import brooklyn.rest.resources.LocationResource;
 import brooklyn.rest.resources.PolicyResource;
 import brooklyn.rest.resources.ScriptResource;
 import brooklyn.rest.resources.SensorResource;
+import brooklyn.rest.resources.SensorStreamResource;
 import brooklyn.rest.resources.VersionResource;
 
 import com.google.common.collect.Iterables;
@@ -32,7 +34,9 @@ public class BrooklynRestApi {
         resources.add(new EntityResource());
         resources.add(new ConfigResource());
         resources.add(new SensorResource());
+        resources.add(new SensorStreamResource());
         resources.add(new EffectorResource());
+        resources.add(new BatchEffectorResource());
         resources.add(new PolicyResource());
         resources.add(new ActivityResource());
         resources.add(new ScriptResource());
@@ -28,6 +28,44 @@ public class BrooklynWebConfig {
     public final static ConfigKey<String> LDAP_REALM = new BasicConfigKey<String>(String.class,
             BASE_NAME+".security.ldap.realm");
 
+    /** maximum number of threads serving requests to the web console (and REST API) */
+    public final static ConfigKey<Integer> SERVER_THREADS_MAX = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.threads.max", "maximum number of threads serving requests", 50);
+
+    public final static ConfigKey<Integer> SERVER_THREADS_MIN = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.threads.min", "number of threads kept ready to serve requests", 4);
+
+    /** requests beyond this many waiting for a thread are rejected, rather than queueing without bound */
+    public final static ConfigKey<Integer> SERVER_THREADS_QUEUE = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.threads.queue", "maximum number of requests waiting for a thread", 500);
+
+    /** threads accepting connections; for the (non-SSL) connector this is also the number of selectors */
+    public final static ConfigKey<Integer> SERVER_ACCEPTORS = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.acceptors", "number of threads accepting (and selecting on) connections", 1);
+
+    public final static ConfigKey<Integer> SERVER_IDLE_TIMEOUT = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.idleTimeout", "milliseconds after which an idle connection is closed", 30*1000);
+
+    /** idle timeout used instead when the thread pool is exhausted, to free connections sooner */
+    public final static ConfigKey<Integer> SERVER_LOW_RESOURCES_IDLE_TIMEOUT = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.lowResourcesIdleTimeout", "milliseconds after which an idle connection is closed when short of threads", 5*1000);
+
+    /** whether to gzip responses (of the types in SERVER_GZIP_MIME_TYPES) for clients which accept it */
+    public final static ConfigKey<Boolean> SERVER_GZIP = new BasicConfigKey<Boolean>(Boolean.class,
+            BASE_NAME+".server.gzip", "whether to compress responses", true);
+
+    /** comma-separated; deliberately excludes text/event-stream, which must not be buffered */
+    public final static ConfigKey<String> SERVER_GZIP_MIME_TYPES = new BasicConfigKey<String>(String.class,
+            BASE_NAME+".server.gzip.mimeTypes", "content types of responses to compress",
+            "application/json,text/html,text/plain,text/css,text/javascript,application/javascript");
+
+    public final static ConfigKey<Integer> SERVER_GZIP_MIN_SIZE = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".server.gzip.minSize", "minimum size in bytes of responses to compress", 1024);
+
+    /** each sensor stream holds a server thread for as long as it is open, so they are limited to leave threads for other requests */
+    public final static ConfigKey<Integer> SENSOR_STREAMS_MAX = new BasicConfigKey<Integer>(Integer.class,
+            BASE_NAME+".sensorStreams.max", "maximum number of sensor streams open at once", 10);
+
     public final static ConfigKey<String> SECURITY_PROVIDER_EXPLICIT__PASSWORD(String user) {
         return new BasicConfigKey<String>(String.class, BASE_NAME+".security.explicit.user."+user);
     }
@@ -0,0 +1,100 @@
+package brooklyn.rest.domain;
+
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Effectors to invoke on many entities of an application, as a single task.
+ * <p>
+ * Either lists the invocations explicitly, or names an effector (and its parameters) to invoke on every entity
+ * in the application which has it, optionally only those of the given type.
+ */
+@JsonSerialize(include = JsonSerialize.Inclusion.NON_NULL)
+public class BatchEffectorSpec {
+
+  private final List<EffectorInvocationSpec> invocations;
+  private final String effector;
+  private final Map<String, String> parameters;
+  private final String entityType;
+  private final Integer maxConcurrency;
+
+  public BatchEffectorSpec(
+      @JsonProperty("invocations") List<EffectorInvocationSpec> invocations,
+      @JsonProperty("effector") String effector,
+      @JsonProperty("parameters") Map<String, String> parameters,
+      @JsonProperty("entityType") String entityType,
+      @JsonProperty("maxConcurrency") Integer maxConcurrency
+  ) {
+    this.invocations = (invocations != null) ? ImmutableList.copyOf(invocations) : ImmutableList.<EffectorInvocationSpec>of();
+    this.effector = effector;
+    this.parameters = (parameters != null) ? ImmutableMap.copyOf(parameters) : ImmutableMap.<String, String>of();
+    this.entityType = entityType;
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public List<EffectorInvocationSpec> getInvocations() {
+    return invocations;
+  }
+
+  /** effector to invoke on all (matching) entities, if invocations are not listed */
+  public String getEffector() {
+    return effector;
+  }
+
+  public Map<String, String> getParameters() {
+    return parameters;
+  }
+
+  /** type (class or interface name) of the entities to invoke the effector on; all entities if null */
+  public String getEntityType() {
+    return entityType;
+  }
+
+  /** maximum number of invocations to run at once; unlimited if null */
+  public Integer getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    BatchEffectorSpec that = (BatchEffectorSpec) o;
+
+    if (!invocations.equals(that.invocations)) return false;
+    if (effector != null ? !effector.equals(that.effector) : that.effector != null) return false;
+    if (!parameters.equals(that.parameters)) return false;
+    if (entityType != null ? !entityType.equals(that.entityType) : that.entityType != null) return false;
+    if (maxConcurrency != null ? !maxConcurrency.equals(that.maxConcurrency) : that.maxConcurrency != null) return false;
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = invocations.hashCode();
+    result = 31 * result + (effector != null ? effector.hashCode() : 0);
+    result = 31 * result + parameters.hashCode();
+    result = 31 * result + (entityType != null ? entityType.hashCode() : 0);
+    result = 31 * result + (maxConcurrency != null ? maxConcurrency.hashCode() : 0);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "BatchEffectorSpec{" +
+        "invocations=" + invocations +
+        ", effector='" + effector + '\'' +
+        ", parameters=" + parameters +
+        ", entityType='" + entityType + '\'' +
+        ", maxConcurrency=" + maxConcurrency +
+        '}';
+  }
+}
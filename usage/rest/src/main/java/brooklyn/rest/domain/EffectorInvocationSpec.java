@@ -0,0 +1,71 @@
+package brooklyn.rest.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import org.codehaus.jackson.annotate.JsonProperty;
+
+import com.google.common.collect.ImmutableMap;
+
+/** An effector to invoke on an entity, as part of a {@link BatchEffectorSpec}. */
+public class EffectorInvocationSpec {
+
+  private final String entity;
+  private final String effector;
+  private final Map<String, String> parameters;
+
+  public EffectorInvocationSpec(
+      @JsonProperty("entity") String entity,
+      @JsonProperty("effector") String effector,
+      @JsonProperty("parameters") Map<String, String> parameters
+  ) {
+    this.entity = checkNotNull(entity, "entity");
+    this.effector = checkNotNull(effector, "effector");
+    this.parameters = (parameters != null) ? ImmutableMap.copyOf(parameters) : ImmutableMap.<String, String>of();
+  }
+
+  /** ID or name of the entity */
+  public String getEntity() {
+    return entity;
+  }
+
+  public String getEffector() {
+    return effector;
+  }
+
+  public Map<String, String> getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    EffectorInvocationSpec that = (EffectorInvocationSpec) o;
+
+    if (!entity.equals(that.entity)) return false;
+    if (!effector.equals(that.effector)) return false;
+    if (!parameters.equals(that.parameters)) return false;
+
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = entity.hashCode();
+    result = 31 * result + effector.hashCode();
+    result = 31 * result + parameters.hashCode();
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "EffectorInvocationSpec{" +
+        "entity='" + entity + '\'' +
+        ", effector='" + effector + '\'' +
+        ", parameters=" + parameters +
+        '}';
+  }
+}
@@ -63,8 +63,16 @@ public class TaskSummary {
     this.detailedStatus = detailedStatus;
 }
 
-  @SuppressWarnings({ "unchecked", "rawtypes" })
 public TaskSummary(Task task) {
+    this(task, true);
+  }
+
+  /**
+   * @param detailed whether to include the detailed status, which for a running task is derived from its
+   * thread's stack (so is relatively expensive); if false the detailed status is null
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public TaskSummary(Task task, boolean detailed) {
     Preconditions.checkNotNull(task);
     // 'ported' from groovy web console TaskSummary.groovy , not sure if always works as intended
     Entity entity = (Entity) Iterables.tryFind(task.getTags(), Predicates.instanceOf(Entity.class)).orNull();
@@ -85,7 +93,7 @@ public TaskSummary(Task task) {
     this.startTimeUtc = (task.getStartTimeUtc() == -1) ? "" : formatter.get().format(new Date(task.getStartTimeUtc()));
     this.endTimeUtc = (task.getEndTimeUtc() == -1) ? "" : formatter.get().format(new Date(task.getEndTimeUtc()));
     this.currentStatus = task.getStatusSummary();
-    this.detailedStatus = task.getStatusDetail(true);
+    this.detailedStatus = detailed ? task.getStatusDetail(true) : null;
   }
 
   public static final TaskSummary fromTask(Task<?> task) { return new TaskSummary(task); }
@@ -94,6 +102,12 @@ public TaskSummary(Task task) {
       @Override
       public TaskSummary apply(@Nullable Task<?> input) { return fromTask(input); }
   };
+
+  /** as {@link #FROM_TASK} but without the detailed status */
+  public static final Function<Task<?>, TaskSummary> FROM_TASK_WITHOUT_DETAIL = new Function<Task<?>, TaskSummary>() {
+      @Override
+      public TaskSummary apply(@Nullable Task<?> input) { return new TaskSummary(input, false); }
+  };
     
   // formatter is not thread-safe; use thread-local storage
   private static final ThreadLocal<DateFormat> formatter = new ThreadLocal<DateFormat>() {
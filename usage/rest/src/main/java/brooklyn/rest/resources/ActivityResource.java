@@ -2,18 +2,24 @@ package brooklyn.rest.resources;
 
 import java.util.Set;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jackson.map.ObjectMapper;
 
 import brooklyn.entity.Entity;
 import brooklyn.management.Task;
 import brooklyn.rest.apidoc.Apidoc;
-import brooklyn.rest.domain.TaskSummary;
+import brooklyn.rest.util.JsonPaging;
+import brooklyn.rest.util.TaskSummaryCache;
 
-import com.google.common.collect.Collections2;
+import com.google.common.base.Function;
 import com.wordnik.swagger.core.ApiOperation;
 
 @Path("/v1/applications/{application}/entities/{entity}/activities")
@@ -21,15 +27,33 @@ import com.wordnik.swagger.core.ApiOperation;
 @Produces(MediaType.APPLICATION_JSON)
 public class ActivityResource extends AbstractBrooklynRestResource {
 
+  /** the key by which tasks are paged: submit time (zero-padded, so ordered as strings) then id */
+  private static final Function<Task<?>, String> SUBMIT_TIME_AND_ID = new Function<Task<?>, String>() {
+    @Override
+    public String apply(Task<?> task) {
+      return String.format("%020d-%s", task.getSubmitTimeUtc(), task.getId());
+    }
+  };
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final TaskSummaryCache summaries = new TaskSummaryCache();
+
   @GET
   @ApiOperation(
-      value = "Fetch list of activities for this application"
+      value = "Fetch list of activities for this application",
+      notes = "Use 'limit' and 'cursor' to page through the activities in order of submission; "
+          + "use 'detail=false' to omit the detailed status, which is expensive for running activities"
   )
-  public Iterable<TaskSummary> list(@PathParam("application") String applicationId,
-                                    @PathParam("entity") String entityId) {
+  public Response list(@PathParam("application") String applicationId,
+                       @PathParam("entity") String entityId,
+                       @QueryParam("limit") Integer limit,
+                       @QueryParam("cursor") String cursor,
+                       @QueryParam("fields") String fields,
+                       @QueryParam("detail") @DefaultValue("true") boolean detail) {
       Entity entity = brooklyn().getEntity(applicationId, entityId);
       Set<Task<?>> tasks = mgmt().getExecutionManager().getTasksWithTag(entity);
-      return Collections2.transform(tasks, TaskSummary.FROM_TASK);
+      return JsonPaging.list(mapper, tasks, SUBMIT_TIME_AND_ID, summaries.summarizer(detail), cursor, limit, fields);
   }
   
 }
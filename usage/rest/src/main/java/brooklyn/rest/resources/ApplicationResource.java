@@ -4,7 +4,9 @@ import static javax.ws.rs.core.Response.created;
 import static javax.ws.rs.core.Response.status;
 import static javax.ws.rs.core.Response.Status.ACCEPTED;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
 
 import javax.validation.Valid;
 import javax.ws.rs.DELETE;
@@ -13,13 +15,15 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
-import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.node.ArrayNode;
-import org.codehaus.jackson.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,9 +36,11 @@ import brooklyn.rest.domain.ApplicationSummary;
 import brooklyn.rest.domain.EntitySpec;
 import brooklyn.rest.domain.TaskSummary;
 import brooklyn.rest.util.BrooklynRestResourceUtils;
+import brooklyn.rest.util.EntityETags;
+import brooklyn.rest.util.JsonPaging;
 import brooklyn.rest.util.WebResourceUtils;
 
-import com.google.common.collect.Collections2;
+import com.google.common.base.Supplier;
 import com.wordnik.swagger.core.ApiError;
 import com.wordnik.swagger.core.ApiErrors;
 import com.wordnik.swagger.core.ApiOperation;
@@ -53,39 +59,75 @@ public class ApplicationResource extends AbstractBrooklynRestResource {
   @GET
   @Path("/tree")
   @ApiOperation(
-      value = "Fetch applications and entities tree hierarchy"
+      value = "Fetch applications and entities tree hierarchy",
+      notes = "Written as it is generated; use 'limit' and 'cursor' to page through the applications"
   )
-  public JsonNode applicationTree() {
-    ArrayNode apps = mapper.createArrayNode();
-    for (Application application : mgmt().getApplications())
-      apps.add(recursiveTreeFromEntity(application));
-    return apps;
+  public Response applicationTree(
+          @Context Request request,
+          @ApiParam(value = "Maximum number of applications to return (all if not set)", required = false)
+          @QueryParam("limit") final Integer limit,
+          @ApiParam(value = "Return applications after this one, as given by the "+JsonPaging.NEXT_CURSOR_HEADER+" header of the previous page", required = false)
+          @QueryParam("cursor") final String cursor) {
+    final Collection<Application> applications = mgmt().getApplications();
+    return EntityETags.conditional(request, applicationsTag(applications), new Supplier<Response>() {
+      @Override
+      public Response get() {
+        final JsonPaging.Page<Application> page = JsonPaging.page(applications, EntityResource.ENTITY_ID, cursor, limit);
+        return JsonPaging.response(mapper, new JsonPaging.JsonWriter() {
+          @Override
+          public void write(JsonGenerator generator) throws IOException {
+            generator.writeStartArray();
+            for (Application application : page.getItems())
+              writeTree(generator, application);
+            generator.writeEndArray();
+          }
+        }, page.getNextCursor());
+      }
+    });
   }
-  private JsonNode recursiveTreeFromEntity(Entity entity) {
-    ObjectNode aRoot = mapper.createObjectNode();
-    aRoot.put("name", entity.getDisplayName());
-    aRoot.put("id", entity.getId());
-    aRoot.put("type", entity.getEntityType().getName());
+  private void writeTree(JsonGenerator generator, Entity entity) throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("name", entity.getDisplayName());
+    generator.writeStringField("id", entity.getId());
+    generator.writeStringField("type", entity.getEntityType().getName());
     if (entity.getOwnedChildren().size() != 0) {
-      aRoot.put("children", childEntitiesAsArray(entity));
-    }
-    return aRoot;
-  }
-  private ArrayNode childEntitiesAsArray(Entity entity) {
-    ArrayNode node = mapper.createArrayNode();
-    for (Entity e : entity.getOwnedChildren()) {
-      node.add(recursiveTreeFromEntity(e));
+      generator.writeArrayFieldStart("children");
+      for (Entity e : entity.getOwnedChildren()) {
+        writeTree(generator, e);
+      }
+      generator.writeEndArray();
     }
-    return node;
+    generator.writeEndObject();
   }
 
   @GET
   @ApiOperation(
       value = "Fetch list of applications",
-      responseClass = "brooklyn.rest.domain.ApplicationSummary"
+      responseClass = "brooklyn.rest.domain.ApplicationSummary",
+      multiValueResponse = true
   )
-  public Iterable<ApplicationSummary> list() {
-    return Collections2.transform(mgmt().getApplications(), ApplicationSummary.FROM_APPLICATION);
+  public Response list(
+          @Context Request request,
+          @ApiParam(value = "Maximum number of applications to return (all if not set)", required = false)
+          @QueryParam("limit") final Integer limit,
+          @ApiParam(value = "Return applications after this one, as given by the "+JsonPaging.NEXT_CURSOR_HEADER+" header of the previous page", required = false)
+          @QueryParam("cursor") final String cursor,
+          @ApiParam(value = "Comma-separated names of the fields to return for each application (all if not set)", required = false)
+          @QueryParam("fields") final String fields) {
+    final Collection<Application> applications = mgmt().getApplications();
+    return EntityETags.conditional(request, applicationsTag(applications), new Supplier<Response>() {
+      @Override
+      public Response get() {
+        return JsonPaging.list(mapper, applications, EntityResource.ENTITY_ID,
+            ApplicationSummary.FROM_APPLICATION, cursor, limit, fields);
+      }
+    });
+  }
+
+  private static EntityTag applicationsTag(Collection<Application> applications) {
+    EntityETags tag = new EntityETags();
+    for (Application application : applications) tag.tree(application);
+    return tag.build();
   }
 
   @GET
@@ -97,12 +139,19 @@ public class ApplicationResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Application not found")
   })
-  public ApplicationSummary get(
+  public Response get(
+          @Context Request request,
           @ApiParam(
               value = "ID or name of application whose details will be returned",
               required = true)
           @PathParam("application") String application) {
-      return ApplicationSummary.fromApplication(brooklyn().getApplication(application));
+      final Application app = brooklyn().getApplication(application);
+      return EntityETags.conditional(request, new EntityETags().tree(app).build(), new Supplier<ApplicationSummary>() {
+        @Override
+        public ApplicationSummary get() {
+          return ApplicationSummary.fromApplication(app);
+        }
+      });
   }
 
   @POST
@@ -0,0 +1,195 @@
+package brooklyn.rest.resources;
+
+import static javax.ws.rs.core.Response.Status.ACCEPTED;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.Valid;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Application;
+import brooklyn.entity.Effector;
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.EffectorUtils;
+import brooklyn.entity.basic.EntityLocal;
+import brooklyn.management.Task;
+import brooklyn.rest.apidoc.Apidoc;
+import brooklyn.rest.domain.BatchEffectorSpec;
+import brooklyn.rest.domain.EffectorInvocationSpec;
+import brooklyn.rest.domain.TaskSummary;
+import brooklyn.rest.util.WebResourceUtils;
+import brooklyn.util.MutableMap;
+import brooklyn.util.task.ParallelTask;
+
+import com.google.common.base.Predicates;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.wordnik.swagger.core.ApiError;
+import com.wordnik.swagger.core.ApiErrors;
+import com.wordnik.swagger.core.ApiOperation;
+import com.wordnik.swagger.core.ApiParam;
+
+/**
+ * Invokes effectors on many entities of an application in a single request, as a single task
+ * whose progress (that of each invocation) can then be polled.
+ */
+@Path("/v1/applications/{application}/effectors/batch")
+@Apidoc("Batch effectors")
+@Produces("application/json")
+public class BatchEffectorResource extends AbstractBrooklynRestResource {
+
+  private static final Logger log = LoggerFactory.getLogger(BatchEffectorResource.class);
+
+  /** the invocation tasks of each batch, by batch task id; kept for a while after they were last looked at */
+  private final Cache<String, List<Task<?>>> batches = CacheBuilder.newBuilder()
+      .expireAfterAccess(1, TimeUnit.HOURS)
+      .<String, List<Task<?>>>build();
+
+  @POST
+  @ApiOperation(value = "Trigger effectors on many entities",
+      notes = "Returns the batch activity task (status 202), whose result is the list of the invocations' results; "
+          + "the invocations can be polled with GET on the returned location",
+      responseClass = "brooklyn.rest.domain.TaskSummary")
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find application, entity or effector"),
+      @ApiError(code = 412, reason = "Neither invocations nor an effector were given")
+  })
+  public Response invoke(
+      @ApiParam(name = "application", value = "Application ID or name", required = true)
+      @PathParam("application") String application,
+
+      @ApiParam(name = "batchEffectorSpec", value = "Effectors to invoke, and how many to run at once", required = true)
+      @Valid BatchEffectorSpec spec
+  ) {
+    final Application app = brooklyn().getApplication(application);
+    List<Invocation> invocations = (spec.getInvocations().isEmpty()) ? selectInvocations(app, spec) : resolveInvocations(application, spec);
+
+    final List<Task<?>> invocationTasks = Collections.synchronizedList(new ArrayList<Task<?>>());
+    List<Callable<Object>> jobs = Lists.newArrayList();
+    for (final Invocation invocation : invocations) {
+      jobs.add(new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          Task<?> task = invocation.entity.invoke(invocation.effector, invocation.parameters);
+          invocationTasks.add(task);
+          return task.get();
+        }
+      });
+    }
+
+    MutableMap<String, Object> flags = MutableMap.<String, Object>of(
+        "displayName", "Batch invoke "+invocations.size()+" effector"+(invocations.size() == 1 ? "" : "s"),
+        "description", "Invoking effectors through the REST API: "+spec);
+    if (spec.getMaxConcurrency() != null) flags.put("maxConcurrency", spec.getMaxConcurrency());
+
+    log.info("REST batch invocation of {} effectors on {} (max concurrency {})",
+        new Object[] {invocations.size(), app, spec.getMaxConcurrency()});
+    Task<List<Object>> batch = mgmt().getExecutionContext(app).submit(new ParallelTask<Object>(flags, jobs));
+    batches.put(batch.getId(), invocationTasks);
+
+    URI ref = URI.create("/v1/applications/"+app.getId()+"/effectors/batch/"+batch.getId());
+    return Response.status(ACCEPTED).location(ref).entity(TaskSummary.fromTask(batch)).build();
+  }
+
+  @GET
+  @Path("/{task}")
+  @ApiOperation(value = "Fetch the invocations of a batch which have started",
+      responseClass = "brooklyn.rest.domain.TaskSummary",
+      multiValueResponse = true)
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find the batch (or it finished over an hour ago)")
+  })
+  public List<TaskSummary> getInvocations(
+      @ApiParam(name = "application", value = "Application ID or name", required = true)
+      @PathParam("application") String application,
+
+      @ApiParam(name = "task", value = "ID of the batch activity task", required = true)
+      @PathParam("task") String taskId
+  ) {
+    List<Task<?>> invocationTasks = batches.getIfPresent(taskId);
+    if (invocationTasks == null) {
+      throw WebResourceUtils.notFound("Batch '%s' not found", taskId);
+    }
+    synchronized (invocationTasks) {
+      return Lists.newArrayList(Iterables.transform(invocationTasks, TaskSummary.FROM_TASK));
+    }
+  }
+
+  private static class Invocation {
+    final EntityLocal entity;
+    final Effector<?> effector;
+    final Map<String, String> parameters;
+
+    Invocation(EntityLocal entity, Effector<?> effector, Map<String, String> parameters) {
+      this.entity = entity;
+      this.effector = effector;
+      this.parameters = parameters;
+    }
+  }
+
+  private List<Invocation> resolveInvocations(String application, BatchEffectorSpec spec) {
+    List<Invocation> result = Lists.newArrayList();
+    for (EffectorInvocationSpec invocation : spec.getInvocations()) {
+      EntityLocal entity = brooklyn().getEntity(application, invocation.getEntity());
+      Effector<?> effector = EffectorUtils.findEffectorMatching(entity.getEntityType().getEffectors(),
+          invocation.getEffector(), invocation.getParameters());
+      if (effector == null) {
+        throw WebResourceUtils.notFound("Entity '%s' has no effector with name '%s'", invocation.getEntity(), invocation.getEffector());
+      }
+      result.add(new Invocation(entity, effector, invocation.getParameters()));
+    }
+    return result;
+  }
+
+  private List<Invocation> selectInvocations(Application app, BatchEffectorSpec spec) {
+    if (spec.getEffector() == null) {
+      throw WebResourceUtils.preconditionFailed("Batch must give either invocations or an effector");
+    }
+    List<Invocation> result = Lists.newArrayList();
+    for (Entity entity : mgmt().getEntitiesInApplication(app.getId())) {
+      if (spec.getEntityType() != null && !isOfType(entity, spec.getEntityType())) continue;
+      Effector<?> effector = EffectorUtils.findEffectorMatching(entity.getEntityType().getEffectors(),
+          spec.getEffector(), spec.getParameters());
+      if (effector != null) result.add(new Invocation((EntityLocal) entity, effector, spec.getParameters()));
+    }
+    if (result.isEmpty()) {
+      throw WebResourceUtils.notFound("No entities%s have an effector with name '%s'",
+          (spec.getEntityType() != null ? " of type '"+spec.getEntityType()+"'" : ""), spec.getEffector());
+    }
+    return result;
+  }
+
+  /** whether the entity's class, or any of its superclasses or interfaces, has the given name */
+  private static boolean isOfType(Entity entity, String typeName) {
+    for (Class<?> type = entity.getClass(); type != null; type = type.getSuperclass()) {
+      if (type.getName().equals(typeName)) return true;
+      if (Iterables.any(allInterfaces(type), Predicates.equalTo(typeName))) return true;
+    }
+    return false;
+  }
+
+  private static List<String> allInterfaces(Class<?> type) {
+    List<String> result = Lists.newArrayList();
+    for (Class<?> iface : type.getInterfaces()) {
+      result.add(iface.getName());
+      result.addAll(allInterfaces(iface));
+    }
+    return result;
+  }
+}
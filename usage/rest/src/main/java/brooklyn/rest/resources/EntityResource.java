@@ -1,20 +1,27 @@
 package brooklyn.rest.resources;
 
-import static com.google.common.collect.Iterables.transform;
-
-import java.util.List;
+import java.util.Collection;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jackson.map.ObjectMapper;
 
 import brooklyn.entity.Entity;
 import brooklyn.rest.apidoc.Apidoc;
 import brooklyn.rest.domain.EntitySummary;
+import brooklyn.rest.util.EntityETags;
+import brooklyn.rest.util.JsonPaging;
 
 import com.google.common.base.Function;
-import com.google.common.collect.Lists;
+import com.google.common.base.Supplier;
 import com.wordnik.swagger.core.ApiError;
 import com.wordnik.swagger.core.ApiErrors;
 import com.wordnik.swagger.core.ApiOperation;
@@ -25,6 +32,23 @@ import com.wordnik.swagger.core.ApiParam;
 @Produces("application/json")
 public class EntityResource extends AbstractBrooklynRestResource {
 
+  /** the key by which entities are paged */
+  static final Function<Entity, String> ENTITY_ID = new Function<Entity, String>() {
+    @Override
+    public String apply(Entity entity) {
+      return entity.getId();
+    }
+  };
+
+  private static final Function<Entity, EntitySummary> TO_SUMMARY = new Function<Entity, EntitySummary>() {
+    @Override
+    public EntitySummary apply(Entity entity) {
+      return EntitySummary.fromEntity(entity);
+    }
+  };
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
   @GET
   @ApiOperation(value = "Fetch the list of entities for a given application",
       responseClass = "brooklyn.rest.domain.EntitySummary",
@@ -32,10 +56,17 @@ public class EntityResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Application not found")
   })
-  public List<EntitySummary> list(
+  public Response list(
+      @Context Request request,
       @ApiParam(value = "Application ID or name", required = true)
-      @PathParam("application") final String application) {
-    return summaryForChildrenEntities(brooklyn().getApplication(application));
+      @PathParam("application") final String application,
+      @ApiParam(value = "Maximum number of entities to return (all if not set)", required = false)
+      @QueryParam("limit") Integer limit,
+      @ApiParam(value = "Return entities after this one, as given by the "+JsonPaging.NEXT_CURSOR_HEADER+" header of the previous page", required = false)
+      @QueryParam("cursor") String cursor,
+      @ApiParam(value = "Comma-separated names of the fields to return for each entity (all if not set)", required = false)
+      @QueryParam("fields") String fields) {
+    return summaryForChildrenEntities(request, brooklyn().getApplication(application), limit, cursor, fields);
   }
 
   @GET
@@ -45,33 +76,44 @@ public class EntityResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Application or entity missing")
   })
-  public EntitySummary get(
+  public Response get(
+      @Context Request request,
       @ApiParam(value = "Application ID or name", required = true)
       @PathParam("application") String application,
       @ApiParam(value = "Entity ID or name", required = true)
-      @PathParam("entity") String entity
+      @PathParam("entity") String entityToken
   ) {
-    return EntitySummary.fromEntity(brooklyn().getEntity(application, entity));
+    final Entity entity = brooklyn().getEntity(application, entityToken);
+    return EntityETags.conditional(request, new EntityETags().entity(entity).build(), new Supplier<EntitySummary>() {
+      @Override
+      public EntitySummary get() {
+        return EntitySummary.fromEntity(entity);
+      }
+    });
   }
 
   // TODO rename as "/children" ?
   @GET
   @Path("/{entity}/entities")
-  public Iterable<EntitySummary> getChildren(
+  public Response getChildren(
+      @Context Request request,
       @PathParam("application") final String application,
-      @PathParam("entity") final String entity
+      @PathParam("entity") final String entity,
+      @QueryParam("limit") Integer limit,
+      @QueryParam("cursor") String cursor,
+      @QueryParam("fields") String fields
   ) {
-    return summaryForChildrenEntities(brooklyn().getEntity(application, entity));
+    return summaryForChildrenEntities(request, brooklyn().getEntity(application, entity), limit, cursor, fields);
   }
 
-  private List<EntitySummary> summaryForChildrenEntities(Entity rootEntity) {
-    return Lists.newArrayList(transform(
-        rootEntity.getOwnedChildren(),
-        new Function<Entity, EntitySummary>() {
-          @Override
-          public EntitySummary apply(Entity entity) {
-            return EntitySummary.fromEntity(entity);
-          }
-        }));
+  private Response summaryForChildrenEntities(Request request, Entity rootEntity, final Integer limit, final String cursor, final String fields) {
+    final Collection<Entity> children = rootEntity.getOwnedChildren();
+    EntityTag tag = new EntityETags().entity(rootEntity).entities(children).build();
+    return EntityETags.conditional(request, tag, new Supplier<Response>() {
+      @Override
+      public Response get() {
+        return JsonPaging.list(mapper, children, ENTITY_ID, TO_SUMMARY, cursor, limit, fields);
+      }
+    });
   }
 }
@@ -11,6 +11,9 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -24,10 +27,12 @@ import brooklyn.policy.basic.AbstractPolicy;
 import brooklyn.policy.basic.Policies;
 import brooklyn.rest.apidoc.Apidoc;
 import brooklyn.rest.domain.PolicySummary;
+import brooklyn.rest.util.EntityETags;
 import brooklyn.rest.util.WebResourceUtils;
 import brooklyn.util.exceptions.Exceptions;
 
 import com.google.common.base.Function;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.wordnik.swagger.core.ApiError;
@@ -49,20 +54,26 @@ public class PolicyResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Could not find application or entity")
   })
-  public List<PolicySummary> list(
+  public Response list(
+      @Context Request request,
       @ApiParam(value = "Application ID or name", required = true)
       @PathParam("application") final String application,
       @ApiParam(value = "Entity ID or name", required = true)
       @PathParam("entity") final String entityToken
   ) {
     final Entity entity = brooklyn().getEntity(application, entityToken); 
-    return Lists.newArrayList(transform(entity.getPolicies(),
-        new Function<Policy, PolicySummary>() {
-          @Override
-          public PolicySummary apply(Policy policy) {
-            return PolicySummary.fromEntity(entity, policy);
-          }
-        }));
+    return EntityETags.conditional(request, policiesTag(entity), new Supplier<List<PolicySummary>>() {
+      @Override
+      public List<PolicySummary> get() {
+        return Lists.newArrayList(transform(entity.getPolicies(),
+            new Function<Policy, PolicySummary>() {
+              @Override
+              public PolicySummary apply(Policy policy) {
+                return PolicySummary.fromEntity(entity, policy);
+              }
+            }));
+      }
+    });
   }
 
   // TODO support parameters  ?show=value,summary&name=xxx
@@ -70,18 +81,24 @@ public class PolicyResource extends AbstractBrooklynRestResource {
   @GET
   @Path("/current-state")
   @ApiOperation(value = "Fetch policy states in batch", notes="Returns a map of policy ID to whether it is active")
-  public Map<String, Boolean> batchConfigRead(
+  public Response batchConfigRead(
+      @Context Request request,
       @ApiParam(value = "Application ID or name", required = true)
       @PathParam("application") String application,
       @ApiParam(value = "Entity ID or name", required = true)
       @PathParam("entity") String entityToken) {
     // TODO: add test
-    EntityLocal entity = brooklyn().getEntity(application, entityToken);
-    Map<String, Boolean> result = Maps.newLinkedHashMap();
-    for (Policy p: entity.getPolicies()) {
-        result.put(p.getId(), !p.isSuspended());
-    }
-    return result;
+    final EntityLocal entity = brooklyn().getEntity(application, entityToken);
+    return EntityETags.conditional(request, policiesTag(entity), new Supplier<Map<String, Boolean>>() {
+      @Override
+      public Map<String, Boolean> get() {
+        Map<String, Boolean> result = Maps.newLinkedHashMap();
+        for (Policy p: entity.getPolicies()) {
+            result.put(p.getId(), !p.isSuspended());
+        }
+        return result;
+      }
+    });
   }
   
   @POST
@@ -129,7 +146,8 @@ public class PolicyResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Could not find application, entity or policy")
   })
-  public Lifecycle getStatus(
+  public Response getStatus(
+      @Context Request request,
       @ApiParam(name = "application", value = "Application ID or name", required = true)
       @PathParam("application") String application,
       
@@ -140,7 +158,17 @@ public class PolicyResource extends AbstractBrooklynRestResource {
       @PathParam("policy") String policyId
   ) {
       EntityLocal entity = brooklyn().getEntity(application, entityToken);
-      return Policies.getPolicyStatus(findPolicy(policyId, entity));
+      final Policy policy = findPolicy(policyId, entity);
+      return EntityETags.conditional(request, policiesTag(entity), new Supplier<Lifecycle>() {
+        @Override
+        public Lifecycle get() {
+          return Policies.getPolicyStatus(policy);
+        }
+      });
+  }
+
+  private static EntityTag policiesTag(Entity entity) {
+    return new EntityETags().entity(entity).policies(entity).build();
   }
 
   @POST
@@ -3,14 +3,22 @@ package brooklyn.rest.resources;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
 
 import brooklyn.entity.basic.EntityLocal;
 import brooklyn.event.AttributeSensor;
@@ -18,11 +26,13 @@ import brooklyn.event.Sensor;
 import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.rest.apidoc.Apidoc;
 import brooklyn.rest.domain.SensorSummary;
+import brooklyn.rest.util.EntityETags;
+import brooklyn.rest.util.JsonPaging;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.wordnik.swagger.core.ApiError;
 import com.wordnik.swagger.core.ApiErrors;
 import com.wordnik.swagger.core.ApiOperation;
@@ -33,6 +43,15 @@ import com.wordnik.swagger.core.ApiParam;
 @Produces("application/json")
 public class SensorResource extends AbstractBrooklynRestResource {
 
+  private static final Function<Sensor<?>, String> SENSOR_NAME = new Function<Sensor<?>, String>() {
+    @Override
+    public String apply(Sensor<?> sensor) {
+      return sensor.getName();
+    }
+  };
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
   @GET
   @ApiOperation(value = "Fetch the sensor list for a specific application entity",
       responseClass = "brooklyn.rest.domain.SensorSummary",
@@ -40,7 +59,8 @@ public class SensorResource extends AbstractBrooklynRestResource {
   @ApiErrors(value = {
       @ApiError(code = 404, reason = "Could not find application or entity")
   })
-  public List<SensorSummary> list(
+  public Response list(
+      @Context Request request,
       @ApiParam(value = "Application ID or name", required = true)
       @PathParam("application") final String application,
       @ApiParam(value = "Entity ID or name", required = true)
@@ -48,48 +68,76 @@ public class SensorResource extends AbstractBrooklynRestResource {
   ) {
     final EntityLocal entity = brooklyn().getEntity(application, entityToken);
 
-    return Lists.newArrayList(transform(filter(
-        entity.getEntityType().getSensors(),
-        new Predicate<Sensor<?>>() {
-          @Override
-          public boolean apply(@Nullable Sensor<?> input) {
-            return input instanceof AttributeSensor;
-          }
-        }),
-        new Function<Sensor<?>, SensorSummary>() {
-          @Override
-          public SensorSummary apply(Sensor<?> sensor) {
-            return SensorSummary.fromEntity(entity, sensor);
-          }
-        }));
+    return EntityETags.conditional(request, new EntityETags().entity(entity).build(), new Supplier<List<SensorSummary>>() {
+      @Override
+      public List<SensorSummary> get() {
+        return Lists.newArrayList(transform(filter(
+            entity.getEntityType().getSensors(),
+            new Predicate<Sensor<?>>() {
+              @Override
+              public boolean apply(@Nullable Sensor<?> input) {
+                return input instanceof AttributeSensor;
+              }
+            }),
+            new Function<Sensor<?>, SensorSummary>() {
+              @Override
+              public SensorSummary apply(Sensor<?> sensor) {
+                return SensorSummary.fromEntity(entity, sensor);
+              }
+            }));
+      }
+    });
   }
 
   @GET
   @Path("/current-state")
-  @ApiOperation(value = "Fetch sensor values in batch", notes="Returns a map of sensor name to value")
-  public Map<String, String> batchSensorRead(
+  @ApiOperation(value = "Fetch sensor values in batch", notes="Returns a map of sensor name to value; "
+      + "use 'fields' to read only some sensors, and 'limit' and 'cursor' to page through them in order of name")
+  public Response batchSensorRead(
+          @Context Request request,
           @ApiParam(value = "Application ID or name", required = true)
           @PathParam("application") final String application,
           @ApiParam(value = "Entity ID or name", required = true)
-          @PathParam("entity") final String entityToken
+          @PathParam("entity") final String entityToken,
+          @ApiParam(value = "Maximum number of sensors to return (all if not set)", required = false)
+          @QueryParam("limit") final Integer limit,
+          @ApiParam(value = "Return sensors after this one, as given by the "+JsonPaging.NEXT_CURSOR_HEADER+" header of the previous page", required = false)
+          @QueryParam("cursor") final String cursor,
+          @ApiParam(value = "Comma-separated names of the sensors to return (all if not set)", required = false)
+          @QueryParam("fields") final String fields
       ) {
     final EntityLocal entity = brooklyn().getEntity(application, entityToken);
-    // TODO: add test
-    Map<String, String> sensorMap = Maps.newHashMap();
+    return EntityETags.conditional(request, new EntityETags().entity(entity).build(), new Supplier<Response>() {
+      @Override
+      public Response get() {
+        return sensorValues(entity, limit, cursor, fields);
+      }
+    });
+  }
+
+  private Response sensorValues(final EntityLocal entity, Integer limit, String cursor, String fields) {
+    final Set<String> names = JsonPaging.parseFields(fields);
     List<Sensor<?>> sensors = Lists.newArrayList(filter(entity.getEntityType().getSensors(),
         new Predicate<Sensor<?>>() {
           @Override
           public boolean apply(@Nullable Sensor<?> input) {
-            return input instanceof AttributeSensor;
+            return input instanceof AttributeSensor && (names == null || names.contains(input.getName()));
           }
         }));
 
-    for (Sensor<?> sensor : sensors) {
-      Object value = entity.getAttribute(findSensor(entity, sensor.getName()));
-      // TODO type
-      sensorMap.put(sensor.getName(), (value != null) ? value.toString() : "");
-    }
-    return sensorMap;
+    final JsonPaging.Page<Sensor<?>> page = JsonPaging.page(sensors, SENSOR_NAME, cursor, limit);
+    return JsonPaging.response(mapper, new JsonPaging.JsonWriter() {
+      @Override
+      public void write(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        for (Sensor<?> sensor : page.getItems()) {
+          Object value = entity.getAttribute(findSensor(entity, sensor.getName()));
+          // TODO type
+          generator.writeStringField(sensor.getName(), (value != null) ? value.toString() : "");
+        }
+        generator.writeEndObject();
+      }
+    }, page.getNextCursor());
   }
 
   @GET
@@ -99,17 +147,23 @@ public class SensorResource extends AbstractBrooklynRestResource {
       @ApiError(code = 404, reason = "Could not find application, entity or sensor")
   })
   @Produces("text/plain")
-  public String get(
+  public Response get(
+          @Context Request request,
           @ApiParam(value = "Application ID or name", required = true)
           @PathParam("application") final String application,
           @ApiParam(value = "Entity ID or name", required = true)
           @PathParam("entity") final String entityToken,
           @ApiParam(value = "Sensor name", required = true)
-          @PathParam("sensor") String sensorName
+          @PathParam("sensor") final String sensorName
   ) {
-      final EntityLocal entity = brooklyn().getEntity(application, entityToken);
-    Object value = entity.getAttribute(findSensor(entity, sensorName));
-    return (value != null) ? value.toString() : "";
+    final EntityLocal entity = brooklyn().getEntity(application, entityToken);
+    return EntityETags.conditional(request, new EntityETags().entity(entity).build(), new Supplier<String>() {
+      @Override
+      public String get() {
+        Object value = entity.getAttribute(findSensor(entity, sensorName));
+        return (value != null) ? value.toString() : "";
+      }
+    });
   }
 
   private AttributeSensor<?> findSensor(EntityLocal entity, String name) {
@@ -0,0 +1,175 @@
+package brooklyn.rest.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import brooklyn.entity.Application;
+import brooklyn.entity.Entity;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.Sensor;
+import brooklyn.management.SubscriptionHandle;
+import brooklyn.management.SubscriptionManager;
+import brooklyn.rest.BrooklynWebConfig;
+import brooklyn.rest.apidoc.Apidoc;
+import brooklyn.rest.util.CoalescingSensorListener;
+import brooklyn.rest.util.WebResourceUtils;
+
+import com.google.common.collect.ImmutableMap;
+import com.wordnik.swagger.core.ApiError;
+import com.wordnik.swagger.core.ApiErrors;
+import com.wordnik.swagger.core.ApiOperation;
+import com.wordnik.swagger.core.ApiParam;
+
+/**
+ * Pushes changes to sensor values of an application's entities as
+ * <a href="http://www.w3.org/TR/eventsource/">server-sent events</a>, as an alternative to polling
+ * <code>current-state</code> for each entity.
+ * <p>
+ * The first event contains the current values; thereafter each event contains only the values which changed,
+ * at most once per period. Each event's data is a JSON map of entity id to a map of sensor name to value.
+ * The stream ends after the timeout (EventSource clients reconnect automatically) or when the client disconnects.
+ * <p>
+ * Each open stream holds a server thread, so the timeout is at most {@link #MAX_TIMEOUT_MILLIS}, and at most
+ * {@link BrooklynWebConfig#SENSOR_STREAMS_MAX} streams are open at once (further requests get 503).
+ * A stream counts towards that limit only while it is being written.
+ */
+@Path("/v1/applications/{application}/sensors/stream")
+@Apidoc("Sensor streams")
+public class SensorStreamResource extends AbstractBrooklynRestResource {
+
+  private static final Logger log = LoggerFactory.getLogger(SensorStreamResource.class);
+
+  public static final String EVENT_STREAM = "text/event-stream";
+
+  /** interval at which a comment is sent when nothing has changed, so that disconnected clients are noticed */
+  private static final long KEEP_ALIVE_MILLIS = 15*1000;
+
+  public static final long MAX_TIMEOUT_MILLIS = 10*60*1000;
+
+  private final AtomicInteger openStreams = new AtomicInteger();
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @GET
+  @Produces(EVENT_STREAM)
+  @ApiOperation(value = "Stream changes to sensor values of entities in an application",
+      notes = "Server-sent events, each with data being a map of entity id to a map of sensor name to value; "
+          + "the first event has the current values, then only changed values are sent")
+  @ApiErrors(value = {
+      @ApiError(code = 404, reason = "Could not find application or entity"),
+      @ApiError(code = 503, reason = "Too many sensor streams are open")
+  })
+  public Response stream(
+      @ApiParam(value = "Application ID or name", required = true)
+      @PathParam("application") final String application,
+      @ApiParam(value = "IDs or names of the entities to watch (all in the application if not set)", required = false)
+      @QueryParam("entity") List<String> entityTokens,
+      @ApiParam(value = "Names of the sensors to watch (all if not set)", required = false)
+      @QueryParam("sensor") List<String> sensorNames,
+      @ApiParam(value = "Minimum interval between events, in milliseconds, within which changes are coalesced", required = false)
+      @QueryParam("period") @DefaultValue("500") final long period,
+      @ApiParam(value = "Time after which to end the stream, in milliseconds (0 for the maximum, 10 minutes)", required = false)
+      @QueryParam("timeout") @DefaultValue("300000") long timeout
+  ) {
+    final long streamTimeout = (timeout <= 0) ? MAX_TIMEOUT_MILLIS : Math.min(timeout, MAX_TIMEOUT_MILLIS);
+    final Collection<Entity> entities = new ArrayList<Entity>();
+    if (entityTokens == null || entityTokens.isEmpty()) {
+      Application app = brooklyn().getApplication(application);
+      entities.addAll(mgmt().getEntitiesInApplication(app.getId()));
+    } else {
+      for (String entityToken : entityTokens) {
+        entities.add(brooklyn().getEntity(application, entityToken));
+      }
+    }
+    final CoalescingSensorListener listener = new CoalescingSensorListener(
+        (sensorNames == null || sensorNames.isEmpty()) ? null : sensorNames);
+
+    final int maxStreams = mgmt().getConfig().getConfig(BrooklynWebConfig.SENSOR_STREAMS_MAX);
+    // checked here so that the client gets a 503 rather than an empty stream in the usual case;
+    // the slot itself is only taken once streaming starts, so it cannot leak if the output is never written
+    if (openStreams.get() >= maxStreams) {
+      throw WebResourceUtils.serviceUnavailable("Too many sensor streams open (at most %s); try again later", maxStreams);
+    }
+
+    StreamingOutput output = new StreamingOutput() {
+      @Override
+      public void write(OutputStream out) throws IOException, WebApplicationException {
+        if (openStreams.incrementAndGet() > maxStreams) {
+          openStreams.decrementAndGet();
+          throw WebResourceUtils.serviceUnavailable("Too many sensor streams open (at most %s); try again later", maxStreams);
+        }
+        SubscriptionManager subscriptions = mgmt().getSubscriptionManager();
+        try {
+          for (Entity entity : entities) {
+            subscriptions.subscribe(ImmutableMap.<String, Object>of("subscriber", listener), entity, null, listener);
+            for (Sensor<?> sensor : entity.getEntityType().getSensors()) {
+              if (sensor instanceof AttributeSensor) {
+                listener.put(entity, sensor.getName(), entity.getAttribute((AttributeSensor<?>) sensor));
+              }
+            }
+          }
+
+          Writer writer = new OutputStreamWriter(out, "UTF-8");
+          long end = System.currentTimeMillis() + streamTimeout;
+          long remaining;
+          while ((remaining = end - System.currentTimeMillis()) > 0) {
+            Map<String, Map<String, Object>> changes = listener.awaitChanges(period, Math.min(remaining, KEEP_ALIVE_MILLIS));
+            if (changes.isEmpty()) {
+              writer.write(":\n\n");
+            } else {
+              writer.write("data: ");
+              writer.write(mapper.writeValueAsString(toStrings(changes)));
+              writer.write("\n\n");
+            }
+            // fails once the client has gone
+            writer.flush();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          openStreams.decrementAndGet();
+          for (SubscriptionHandle handle : subscriptions.getSubscriptionsForSubscriber(listener)) {
+            subscriptions.unsubscribe(handle);
+          }
+          if (log.isDebugEnabled()) log.debug("Ended sensor stream for {} entities in {}", entities.size(), application);
+        }
+      }
+    };
+    return Response.ok(output, EVENT_STREAM).header("Cache-Control", "no-cache").build();
+  }
+
+  /** values as strings, as given by <code>current-state</code> */
+  private static Map<String, Map<String, String>> toStrings(Map<String, Map<String, Object>> changes) {
+    Map<String, Map<String, String>> result = new LinkedHashMap<String, Map<String, String>>();
+    for (Map.Entry<String, Map<String, Object>> entity : changes.entrySet()) {
+      Map<String, String> values = new LinkedHashMap<String, String>();
+      for (Map.Entry<String, Object> value : entity.getValue().entrySet()) {
+        values.put(value.getKey(), (value.getValue() != null) ? value.getValue().toString() : "");
+      }
+      result.put(entity.getKey(), values);
+    }
+    return result;
+  }
+}
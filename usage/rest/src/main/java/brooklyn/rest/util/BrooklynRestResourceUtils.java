@@ -64,7 +64,7 @@ public class BrooklynRestResourceUtils {
      * <p>
      * prefers ID based lookup in which case appId is optional, and if supplied will be enforced.
      * optionally the name can be supplied, for cases when paths should work across versions,
-     * in which case names will be searched recursively (and the application is required). 
+     * in which case the entity is looked up by name within the application (which is then required). 
      * 
      * @throws 404 or 412 (unless input is null in which case output is null) */
     public EntityLocal getEntity(String application, String entity) {
@@ -79,28 +79,39 @@ public class BrooklynRestResourceUtils {
         if (application==null)
             throw WebResourceUtils.notFound("Cannot find entity '%s': no known ID and application not supplied for searching", entity);
         assert app!=null : "null app should not be returned from getApplication";
-        e = searchForEntityNamed(app, entity);
+        e = findEntityNamed(app, entity);
         if (e!=null) return e;
         throw WebResourceUtils.notFound("Cannot find entity '%s' in application '%s' (%s)", entity, application, app);
     }
 
-    /** looks for the given application instance, first by ID then by name
+    /** looks for the given application instance, first by ID then by name (ignoring case)
      * 
      * @throws 404 if not found
      */
     public Application getApplication(String application) {
         Entity e = mgmt.getEntity(application);
         if (e!=null && e instanceof Application) return (Application)e;
-        for (Application app: mgmt.getApplications()) {
-            if (app.getId().equals(application)) return app;
-            if (application.equalsIgnoreCase(app.getDisplayName())) return app;
+        for (Entity named: mgmt.getEntitiesNamed(application)) {
+            if (named instanceof Application) return (Application)named;
         }
         throw notFound("Application '%s' not found", application);
     }
 
+    /** finds the managed entity in the application with the given name, using the management context's index of names;
+     * returns null if none found */
+    private EntityLocal findEntityNamed(Application app, String entity) {
+        for (Entity named: mgmt.getEntitiesNamed(entity)) {
+            if (entity.equals(named.getDisplayName()) && app.getId().equals(named.getApplicationId())) return (EntityLocal) named;
+        }
+        return null;
+    }
+
     /** walks the hierarchy (depth-first) at root (often an Application) looking for
      * an entity matching the given ID or name; returns the first such entity, or null if none found
+     * @deprecated since 0.5.0; walks the whole hierarchy, use {@link ManagementContext#getEntitiesNamed(String)}
+     *   (or {@link ManagementContext#getEntity(String)} for an ID)
      **/
+    @Deprecated
     public EntityLocal searchForEntityNamed(Entity root, String entity) {
         if (root.getId().equals(entity) || entity.equals(root.getDisplayName())) return (EntityLocal) root;
         for (Entity child: root.getOwnedChildren()) {
@@ -0,0 +1,90 @@
+package brooklyn.rest.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import brooklyn.entity.Entity;
+import brooklyn.event.AttributeSensor;
+import brooklyn.event.SensorEvent;
+import brooklyn.event.SensorEventListener;
+
+import com.google.common.base.Objects;
+
+/**
+ * Collects the latest values of attributes as they change, so that a client can be sent just the values
+ * which changed since it was last sent any, at most once per period however often they change.
+ * Values equal to those last returned (e.g. re-set by a sensor adapter on each poll) are not changes.
+ * <p>
+ * Values are keyed by entity id then sensor name.
+ */
+public class CoalescingSensorListener implements SensorEventListener<Object> {
+
+    private final Collection<String> sensorNames;
+
+    // guarded by this
+    private Map<String, Map<String, Object>> pending = new LinkedHashMap<String, Map<String, Object>>();
+    // guarded by this; the values last returned by awaitChanges
+    private final Map<String, Map<String, Object>> sent = new LinkedHashMap<String, Map<String, Object>>();
+
+    /** @param sensorNames the names of the attributes of interest, or null for all */
+    public CoalescingSensorListener(Collection<String> sensorNames) {
+        this.sensorNames = sensorNames;
+    }
+
+    @Override
+    public void onEvent(SensorEvent<Object> event) {
+        if (!(event.getSensor() instanceof AttributeSensor)) return;
+        put(event.getSource(), event.getSensor().getName(), event.getValue());
+    }
+
+    /** records the value as changed (if it is of interest), e.g. to send the current values initially */
+    public synchronized void put(Entity entity, String sensorName, Object value) {
+        if (sensorNames != null && !sensorNames.contains(sensorName)) return;
+        Map<String, Object> sentValues = sent.get(entity.getId());
+        if (sentValues != null && sentValues.containsKey(sensorName) && Objects.equal(sentValues.get(sensorName), value)) {
+            // unchanged, or changed back before being sent
+            Map<String, Object> values = pending.get(entity.getId());
+            if (values != null) {
+                values.remove(sensorName);
+                if (values.isEmpty()) pending.remove(entity.getId());
+            }
+            return;
+        }
+        Map<String, Object> values = pending.get(entity.getId());
+        if (values == null) {
+            values = new LinkedHashMap<String, Object>();
+            pending.put(entity.getId(), values);
+        }
+        values.put(sensorName, value);
+        notifyAll();
+    }
+
+    /**
+     * Waits up to the given timeout for a value to change, then for the given period so that other changes
+     * are sent with it, and returns the latest values of all those changed since last called
+     * (or an empty map if none changed before the timeout).
+     */
+    public Map<String, Map<String, Object>> awaitChanges(long periodMillis, long timeoutMillis) throws InterruptedException {
+        synchronized (this) {
+            long end = System.currentTimeMillis() + timeoutMillis;
+            while (pending.isEmpty()) {
+                long remaining = end - System.currentTimeMillis();
+                if (remaining <= 0) return Collections.emptyMap();
+                wait(remaining);
+            }
+        }
+        if (periodMillis > 0) Thread.sleep(periodMillis);
+        synchronized (this) {
+            Map<String, Map<String, Object>> result = pending;
+            pending = new LinkedHashMap<String, Map<String, Object>>();
+            for (Map.Entry<String, Map<String, Object>> entity : result.entrySet()) {
+                Map<String, Object> sentValues = sent.get(entity.getKey());
+                if (sentValues == null) sent.put(entity.getKey(), sentValues = new LinkedHashMap<String, Object>());
+                sentValues.putAll(entity.getValue());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package brooklyn.rest.util;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import brooklyn.entity.Entity;
+import brooklyn.entity.basic.AbstractEntity;
+import brooklyn.policy.Policy;
+import brooklyn.util.text.Identifiers;
+
+import com.google.common.base.Supplier;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Entity tags (ETags) for responses derived from entities, based on their modification counts
+ * (see {@link brooklyn.management.internal.EntityManagementSupport#getModificationCount()}),
+ * so that a client polling for something which has not changed can be told so (304 Not Modified)
+ * without the response being computed again.
+ */
+public class EntityETags {
+
+    /** distinguishes tags from different servers, and from entities rebound with the same ids */
+    private static final String SERVER_NONCE = Identifiers.makeRandomId(8);
+
+    private final Hasher hasher = Hashing.md5().newHasher();
+
+    /** includes the state of the entity itself */
+    public EntityETags entity(Entity entity) {
+        hasher.putString(entity.getId()).putLong(modificationCount(entity));
+        return this;
+    }
+
+    /** includes the state of each of the entities */
+    public EntityETags entities(Iterable<? extends Entity> entities) {
+        for (Entity entity : entities) entity(entity);
+        return this;
+    }
+
+    /** includes the state of the entity and all its descendants */
+    public EntityETags tree(Entity entity) {
+        entity(entity);
+        for (Entity child : entity.getOwnedChildren()) tree(child);
+        return this;
+    }
+
+    /** includes the state of the entity's policies, which can be suspended and resumed without telling the entity */
+    public EntityETags policies(Entity entity) {
+        for (Policy policy : entity.getPolicies()) {
+            hasher.putString(policy.getId()).putBoolean(policy.isSuspended());
+        }
+        return this;
+    }
+
+    /**
+     * A (weak) tag for the response; weak because equivalent responses are not necessarily byte-for-byte identical
+     * (e.g. in the order of map entries).
+     */
+    public EntityTag build() {
+        return new EntityTag(SERVER_NONCE+"-"+hasher.hash().toString(), true);
+    }
+
+    /**
+     * Returns 304 Not Modified if the request's If-None-Match header matches the tag, otherwise the response
+     * (only then computed), with the tag.
+     */
+    public static Response conditional(Request request, EntityTag tag, Supplier<?> response) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) return notModified.build();
+
+        Object result = response.get();
+        if (result instanceof Response) {
+            return Response.fromResponse((Response) result).tag(tag).build();
+        }
+        return Response.ok(result).tag(tag).build();
+    }
+
+    private static long modificationCount(Entity entity) {
+        if (entity instanceof AbstractEntity) {
+            return ((AbstractEntity) entity).getManagementSupport().getModificationCount();
+        }
+        // unknown, so never the same
+        return System.nanoTime();
+    }
+}
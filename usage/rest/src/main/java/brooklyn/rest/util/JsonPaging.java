@@ -0,0 +1,160 @@
+package brooklyn.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.google.common.base.Function;
+
+/**
+ * Support for list responses which are written as JSON straight to the response (rather than built in memory),
+ * optionally a page at a time and with only some fields of each item.
+ * <p>
+ * Query parameters:
+ * <ul>
+ * <li><code>limit</code> - the maximum number of items to return
+ * <li><code>cursor</code> - return items after this one; as given by the {@value #NEXT_CURSOR_HEADER} header
+ *     of the previous page
+ * <li><code>fields</code> - comma-separated names of the fields of each item to return (all if not set)
+ * </ul>
+ * When paging, items are ordered by a key (e.g. the id) and a page contains the items whose keys follow the cursor,
+ * so items added or removed between requests do not cause others to be skipped or repeated.
+ * Without a limit or cursor, all items are returned in their natural order.
+ */
+public class JsonPaging {
+
+    /** response header giving the cursor for the next page, if there are more items */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** a page of items, and the cursor for the next page (or null if this is the last) */
+    public static class Page<T> {
+        private final List<T> items;
+        private final String nextCursor;
+
+        public Page(List<T> items, String nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+        public List<T> getItems() {
+            return items;
+        }
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    /** writes a value to the response, given a generator for it */
+    public interface JsonWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    public static boolean isPaging(String cursor, Integer limit) {
+        return cursor != null || (limit != null && limit > 0);
+    }
+
+    /**
+     * Selects the page of items whose keys follow the cursor (or the first page if null), of at most
+     * <code>limit</code> items (or all if null or not positive).
+     */
+    public static <T> Page<T> page(Iterable<? extends T> items, final Function<? super T, String> key, String cursor, Integer limit) {
+        if (!isPaging(cursor, limit)) {
+            List<T> all = new ArrayList<T>();
+            for (T item : items) all.add(item);
+            return new Page<T>(all, null);
+        }
+
+        List<T> sorted = new ArrayList<T>();
+        for (T item : items) {
+            if (cursor == null || key.apply(item).compareTo(cursor) > 0) sorted.add(item);
+        }
+        Collections.sort(sorted, new Comparator<T>() {
+            @Override public int compare(T o1, T o2) {
+                return key.apply(o1).compareTo(key.apply(o2));
+            }});
+        if (limit == null || limit <= 0 || sorted.size() <= limit) {
+            return new Page<T>(sorted, null);
+        }
+        List<T> result = new ArrayList<T>(sorted.subList(0, limit));
+        return new Page<T>(result, key.apply(result.get(result.size()-1)));
+    }
+
+    /** the field names in a <code>fields</code> parameter, or null if all fields are wanted */
+    public static Set<String> parseFields(String fields) {
+        if (fields == null || fields.trim().isEmpty()) return null;
+        Set<String> result = new LinkedHashSet<String>();
+        for (String field : fields.split(",")) {
+            if (!field.trim().isEmpty()) result.add(field.trim());
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /** writes the value, or only the given fields of it if it is a JSON object and fields is non-null */
+    public static void writeProjected(ObjectMapper mapper, JsonGenerator generator, Object value, Set<String> fields) throws IOException {
+        if (fields == null) {
+            mapper.writeValue(generator, value);
+            return;
+        }
+        JsonNode node = mapper.valueToTree(value);
+        if (!node.isObject()) {
+            generator.writeTree(node);
+            return;
+        }
+        generator.writeStartObject();
+        for (String field : fields) {
+            JsonNode fieldValue = node.get(field);
+            if (fieldValue != null) {
+                generator.writeFieldName(field);
+                generator.writeTree(fieldValue);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * A response which writes the requested page of items as a JSON array, converting each to its summary
+     * (only as it is written) and projecting it onto the requested fields.
+     */
+    public static <T> Response list(final ObjectMapper mapper, Iterable<? extends T> items, Function<? super T, String> key,
+            final Function<? super T, ?> summary, String cursor, Integer limit, String fields) {
+        final Page<T> page = page(items, key, cursor, limit);
+        final Set<String> fieldSet = parseFields(fields);
+        return response(mapper, new JsonWriter() {
+            @Override public void write(JsonGenerator generator) throws IOException {
+                generator.writeStartArray();
+                for (T item : page.getItems()) {
+                    writeProjected(mapper, generator, summary.apply(item), fieldSet);
+                }
+                generator.writeEndArray();
+            }}, page.getNextCursor());
+    }
+
+    /** a JSON response written by the given writer, with the next-page cursor header if non-null */
+    public static Response response(final ObjectMapper mapper, final JsonWriter writer, String nextCursor) {
+        StreamingOutput output = new StreamingOutput() {
+            @Override public void write(OutputStream out) throws IOException, WebApplicationException {
+                JsonGenerator generator = mapper.getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
+                try {
+                    writer.write(generator);
+                } finally {
+                    generator.flush();
+                }
+            }};
+        Response.ResponseBuilder result = Response.ok(output);
+        if (nextCursor != null) result.header(NEXT_CURSOR_HEADER, nextCursor);
+        return result.build();
+    }
+}
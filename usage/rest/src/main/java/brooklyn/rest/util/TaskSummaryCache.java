@@ -0,0 +1,99 @@
+package brooklyn.rest.util;
+
+import brooklyn.management.Task;
+import brooklyn.rest.domain.TaskSummary;
+import brooklyn.util.task.BasicTask;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers the summary of each task, so that listing the activities of a busy entity does not
+ * build a summary (walking the thread stacks of running tasks) for every task on every request.
+ * <p>
+ * A summary is rebuilt when its task has changed state since it was built: submitted, started, ended,
+ * or changed its blocking details. The status of a task which has not ended also depends on
+ * what its thread is doing and how long it has waited, so its summary is only kept for {@link #MAX_ACTIVE_AGE_MILLIS}.
+ * Tasks are weakly referenced, so summaries go once their tasks are forgotten by the execution manager.
+ */
+public class TaskSummaryCache {
+
+    public static final long MAX_ACTIVE_AGE_MILLIS = 2*1000;
+
+    private static class Entry {
+        final State state;
+        final long createdTime = System.currentTimeMillis();
+        final TaskSummary summary;
+
+        Entry(State state, TaskSummary summary) {
+            this.state = state;
+            this.summary = summary;
+        }
+    }
+
+    /** the parts of a task which, when changed, invalidate its summary */
+    private static class State {
+        final long submitTimeUtc;
+        final long startTimeUtc;
+        final long endTimeUtc;
+        final boolean done;
+        final String blockingDetails;
+
+        State(Task<?> task) {
+            done = task.isDone();
+            submitTimeUtc = task.getSubmitTimeUtc();
+            startTimeUtc = task.getStartTimeUtc();
+            endTimeUtc = task.getEndTimeUtc();
+            blockingDetails = (task instanceof BasicTask) ? ((BasicTask<?>) task).getBlockingDetails() : null;
+        }
+
+        boolean isActive() {
+            return !done;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof State)) return false;
+            State other = (State) obj;
+            return submitTimeUtc == other.submitTimeUtc && startTimeUtc == other.startTimeUtc
+                    && endTimeUtc == other.endTimeUtc && done == other.done
+                    && Objects.equal(blockingDetails, other.blockingDetails);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(submitTimeUtc, startTimeUtc, endTimeUtc, done, blockingDetails);
+        }
+    }
+
+    private final Cache<Task<?>, Entry> detailed = CacheBuilder.newBuilder().weakKeys().<Task<?>, Entry>build();
+    private final Cache<Task<?>, Entry> brief = CacheBuilder.newBuilder().weakKeys().<Task<?>, Entry>build();
+
+    /** the summary of the task, as given by {@link TaskSummary#FROM_TASK} (or {@link TaskSummary#FROM_TASK_WITHOUT_DETAIL}) */
+    public TaskSummary get(Task<?> task, boolean withDetail) {
+        Cache<Task<?>, Entry> cache = withDetail ? detailed : brief;
+        // captured before the summary is built, so that a change while building it is seen next time
+        State state = new State(task);
+        Entry entry = cache.getIfPresent(task);
+        if (entry == null || !entry.state.equals(state) || isStale(entry)) {
+            entry = new Entry(state, new TaskSummary(task, withDetail));
+            cache.put(task, entry);
+        }
+        return entry.summary;
+    }
+
+    public Function<Task<?>, TaskSummary> summarizer(final boolean withDetail) {
+        return new Function<Task<?>, TaskSummary>() {
+            @Override
+            public TaskSummary apply(Task<?> task) {
+                return get(task, withDetail);
+            }
+        };
+    }
+
+    private static boolean isStale(Entry entry) {
+        return entry.state.isActive() && System.currentTimeMillis() - entry.createdTime > MAX_ACTIVE_AGE_MILLIS;
+    }
+}
@@ -1,6 +1,7 @@
 package brooklyn.rest.util;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
@@ -26,4 +27,12 @@ public class WebResourceUtils {
                 .entity(new ApiError(msg)).build());
     }
 
+    /** as JSON, as it may be given instead of some other type of content (e.g. a stream) */
+    public static WebApplicationException serviceUnavailable(String format, Object... args) {
+        String msg = String.format(format, args);
+        if (log.isInfoEnabled()) log.info("returning 503 serviceUnavailable("+msg+")");
+        throw new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .type(MediaType.APPLICATION_JSON_TYPE).entity(new ApiError(msg)).build());
+    }
+
 }
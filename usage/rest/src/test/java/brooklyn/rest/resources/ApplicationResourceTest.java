@@ -2,9 +2,11 @@ package brooklyn.rest.resources;
 
 import static com.google.common.collect.Iterables.find;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
@@ -17,14 +19,19 @@ import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
+import brooklyn.entity.basic.EntityLocal;
 import brooklyn.entity.basic.Lifecycle;
+import brooklyn.event.basic.BasicAttributeSensor;
 import brooklyn.location.Location;
 import brooklyn.location.basic.AbstractLocation;
 import brooklyn.location.geo.HostGeoInfo;
+import brooklyn.management.Task;
 import brooklyn.rest.domain.ApiError;
 import brooklyn.rest.domain.ApplicationSpec;
 import brooklyn.rest.domain.ApplicationSummary;
+import brooklyn.rest.domain.BatchEffectorSpec;
 import brooklyn.rest.domain.ConfigSummary;
+import brooklyn.rest.domain.EffectorInvocationSpec;
 import brooklyn.rest.domain.EffectorSummary;
 import brooklyn.rest.domain.EntitySpec;
 import brooklyn.rest.domain.EntitySummary;
@@ -34,8 +41,10 @@ import brooklyn.rest.domain.TaskSummary;
 import brooklyn.rest.testing.BrooklynRestResourceTest;
 import brooklyn.rest.testing.mocks.CapitalizePolicy;
 import brooklyn.rest.testing.mocks.RestMockSimpleEntity;
+import brooklyn.rest.util.JsonPaging;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -43,6 +52,7 @@ import com.google.common.collect.Maps;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.GenericType;
 import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
 
 @Test(singleThreaded = true)
 public class ApplicationResourceTest extends BrooklynRestResourceTest {
@@ -212,6 +222,32 @@ public class ApplicationResourceTest extends BrooklynRestResourceTest {
     assertEquals(result, "foo4");
   }
 
+  @Test(dependsOnMethods = "testTriggerSampleEffector")
+  public void testBatchInvokeEffector() throws Exception {
+    BatchEffectorSpec spec = new BatchEffectorSpec(
+        ImmutableList.of(new EffectorInvocationSpec("simple-ent", RestMockSimpleEntity.SAMPLE_EFFECTOR.getName(),
+            ImmutableMap.of("param1", "foo", "param2", "4"))),
+        null, null, null, 1);
+    ClientResponse response = client().resource("/v1/applications/simple-app/effectors/batch")
+        .post(ClientResponse.class, spec);
+    assertEquals(response.getStatus(), Response.Status.ACCEPTED.getStatusCode());
+    final TaskSummary batch = response.getEntity(TaskSummary.class);
+
+    Task<?> task = Iterables.find(getManagementContext().getExecutionManager().getTasksWithTag(
+        getManagementContext().getApplications().iterator().next()), new Predicate<Task<?>>() {
+          @Override
+          public boolean apply(Task<?> input) {
+            return input.getId().equals(batch.getId());
+          }
+        });
+    assertEquals(task.get(), ImmutableList.of("foo4"));
+
+    List<TaskSummary> invocations = client().resource(response.getLocation())
+        .get(new GenericType<List<TaskSummary>>() {});
+    assertEquals(invocations.size(), 1);
+    assertEquals(invocations.get(0).getEntityDisplayName(), "simple-ent");
+  }
+
   @Test(dependsOnMethods = "testTriggerSampleEffector")
   public void testBatchSensorValues() {
     Map<String,String> sensors = client().resource("/v1/applications/simple-app/entities/simple-ent/sensors/current-state")
@@ -220,6 +256,76 @@ public class ApplicationResourceTest extends BrooklynRestResourceTest {
     assertEquals(sensors.get(RestMockSimpleEntity.SAMPLE_SENSOR.getName()), "foo4");
   }
 
+  @Test(dependsOnMethods = "testBatchSensorValues")
+  public void testBatchSensorValuesPagedAndProjected() {
+    String uri = "/v1/applications/simple-app/entities/simple-ent/sensors/current-state";
+    Map<String,String> all = client().resource(uri).get(new GenericType<Map<String,String>>() {});
+
+    Map<String,String> paged = Maps.newLinkedHashMap();
+    String cursor = null;
+    int pages = 0;
+    do {
+      WebResource resource = client().resource(uri).queryParam("limit", "1");
+      if (cursor != null) resource = resource.queryParam("cursor", cursor);
+      ClientResponse response = resource.get(ClientResponse.class);
+      Map<String,String> page = response.getEntity(new GenericType<Map<String,String>>() {});
+      assertTrue(page.size() <= 1, "page="+page);
+      paged.putAll(page);
+      cursor = response.getHeaders().getFirst(JsonPaging.NEXT_CURSOR_HEADER);
+      pages++;
+    } while (cursor != null);
+    assertEquals(paged, all);
+    assertEquals(pages, all.size());
+
+    Map<String,String> projected = client().resource(uri)
+        .queryParam("fields", RestMockSimpleEntity.SAMPLE_SENSOR.getName())
+        .get(new GenericType<Map<String,String>>() {});
+    assertEquals(projected, ImmutableMap.of(RestMockSimpleEntity.SAMPLE_SENSOR.getName(), "foo4"));
+  }
+
+  @Test(dependsOnMethods = "testBatchSensorValues")
+  public void testConditionalGetOfSensorValues() {
+    String uri = "/v1/applications/simple-app/entities/simple-ent/sensors/current-state";
+    ClientResponse response = client().resource(uri).get(ClientResponse.class);
+    assertEquals(response.getStatus(), 200);
+    String etag = response.getHeaders().getFirst("ETag");
+    assertNotNull(etag);
+
+    response = client().resource(uri).header("If-None-Match", etag).get(ClientResponse.class);
+    assertEquals(response.getStatus(), 304);
+
+    EntityLocal entity = (EntityLocal) Iterables.getOnlyElement(
+        getManagementContext().getApplications().iterator().next().getOwnedChildren());
+    entity.setAttribute(new BasicAttributeSensor<String>(String.class, "test.conditional"), "changed");
+
+    response = client().resource(uri).header("If-None-Match", etag).get(ClientResponse.class);
+    assertEquals(response.getStatus(), 200);
+    assertEquals(response.getEntity(new GenericType<Map<String,String>>() {}).get("test.conditional"), "changed");
+  }
+
+  @Test(dependsOnMethods = "testBatchSensorValues")
+  public void testStreamSensorValues() {
+    String events = client().resource("/v1/applications/simple-app/sensors/stream")
+        .queryParam("entity", "simple-ent")
+        .queryParam("sensor", RestMockSimpleEntity.SAMPLE_SENSOR.getName())
+        .queryParam("period", "0")
+        .queryParam("timeout", "500")
+        .get(String.class);
+    assertTrue(events.startsWith("data: "), "events="+events);
+    assertTrue(events.contains("{\""+RestMockSimpleEntity.SAMPLE_SENSOR.getName()+"\":\"foo4\"}"), "events="+events);
+  }
+
+  @Test(dependsOnMethods = "testDeployApplication")
+  public void testListApplicationsProjected() {
+    Set<Map<String,Object>> applications = client().resource("/v1/applications")
+        .queryParam("fields", "status")
+        .get(new GenericType<Set<Map<String,Object>>>() {});
+    assertTrue(applications.size() > 0);
+    for (Map<String,Object> app : applications) {
+      assertEquals(app.keySet(), ImmutableSet.of("status"));
+    }
+  }
+
   @Test(dependsOnMethods = "testBatchSensorValues")
   public void testReadEachSensor() {
     Set<SensorSummary> sensors = client().resource("/v1/applications/simple-app/entities/simple-ent/sensors")
@@ -297,7 +403,9 @@ public class ApplicationResourceTest extends BrooklynRestResourceTest {
     assertEquals(details.get("leafEntityCount"), 1);
   }
 
-  @Test(dependsOnMethods = {"testListEffectors", "testTriggerSampleEffector", "testListApplications","testReadEachSensor","testPolicyWhichCapitalizes"})
+  @Test(dependsOnMethods = {"testListEffectors", "testTriggerSampleEffector", "testListApplications","testReadEachSensor","testPolicyWhichCapitalizes",
+      "testBatchInvokeEffector", "testListApplicationsProjected", "testBatchSensorValuesPagedAndProjected",
+      "testStreamSensorValues", "testConditionalGetOfSensorValues"})
   public void testDeleteApplication() throws TimeoutException, InterruptedException {
     int size = getManagementContext().getApplications().size();
     ClientResponse response = client().resource("/v1/applications/simple-app")
@@ -0,0 +1,52 @@
+package brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.test.entity.TestEntity;
+
+import com.google.common.collect.ImmutableMap;
+
+public class CoalescingSensorListenerTest {
+
+    private TestEntity entity;
+    private CoalescingSensorListener listener;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        entity = new TestEntity();
+        listener = new CoalescingSensorListener(null);
+    }
+
+    @Test
+    public void testUnchangedValuesNotResent() throws Exception {
+        listener.put(entity, "a", 1);
+        listener.put(entity, "b", "x");
+        assertEquals(listener.awaitChanges(0, 10), ImmutableMap.of(entity.getId(), ImmutableMap.of("a", 1, "b", "x")));
+
+        // re-set to the same values, as a sensor adapter does on each poll
+        listener.put(entity, "a", 1);
+        listener.put(entity, "b", "x");
+        assertTrue(listener.awaitChanges(0, 10).isEmpty());
+
+        listener.put(entity, "a", 2);
+        listener.put(entity, "b", "x");
+        assertEquals(listener.awaitChanges(0, 10), ImmutableMap.of(entity.getId(), ImmutableMap.of("a", 2)));
+    }
+
+    @Test
+    public void testValueChangedBackBeforeSendingNotSent() throws Exception {
+        listener.put(entity, "a", 1);
+        listener.awaitChanges(0, 10);
+
+        listener.put(entity, "a", 2);
+        listener.put(entity, "a", 1);
+        Map<String, Map<String, Object>> changes = listener.awaitChanges(0, 10);
+        assertTrue(changes.isEmpty(), "changes="+changes);
+    }
+}
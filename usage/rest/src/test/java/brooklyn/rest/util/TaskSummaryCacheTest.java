@@ -0,0 +1,80 @@
+package brooklyn.rest.util;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import brooklyn.rest.domain.TaskSummary;
+import brooklyn.util.task.BasicExecutionManager;
+import brooklyn.util.task.BasicTask;
+
+public class TaskSummaryCacheTest {
+
+    private BasicExecutionManager em;
+    private TaskSummaryCache cache;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        em = new BasicExecutionManager();
+        cache = new TaskSummaryCache();
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testSummaryRebuiltOnlyWhenTaskChanges() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        BasicTask<String> task = new BasicTask<String>(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                finish.await();
+                return "done";
+            }
+        });
+        em.submit(task);
+        started.await();
+
+        TaskSummary running = cache.get(task, false);
+        assertSame(cache.get(task, false), running);
+
+        task.setBlockingDetails("waiting for test");
+        TaskSummary blocked = cache.get(task, false);
+        assertNotSame(blocked, running);
+
+        finish.countDown();
+        task.get();
+        TaskSummary ended = cache.get(task, false);
+        assertNotSame(ended, blocked);
+        assertSame(cache.get(task, false), ended);
+        assertNull(ended.getDetailedStatus());
+    }
+
+    @Test
+    public void testDetailedAndBriefSummariesCachedSeparately() throws Exception {
+        BasicTask<String> task = new BasicTask<String>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "done";
+            }
+        });
+        em.submit(task).get();
+
+        TaskSummary detailed = cache.get(task, true);
+        TaskSummary brief = cache.get(task, false);
+        assertNotSame(detailed, brief);
+        assertSame(cache.get(task, true), detailed);
+        assertNull(brief.getDetailedStatus());
+    }
+}